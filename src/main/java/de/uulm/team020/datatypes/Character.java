@@ -1,6 +1,9 @@
 package de.uulm.team020.datatypes;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -21,7 +24,7 @@ import de.uulm.team020.logging.Magpie;
  * {@link CharacterInformation} and will be constantly modified by the server.
  *
  * @author Florian Sihler
- * @version 1.2b, 06/19/2020
+ * @version 1.3, 07/11/2020
  */
 public class Character implements IAmJson {
 
@@ -54,6 +57,23 @@ public class Character implements IAmJson {
     private transient boolean didRetire;
     // used to buffer properties
     private transient Set<PropertyEnum> moledieBuffer = null;
+    // held weakly, see IAmObservable
+    private transient List<WeakReference<MoveObserver>> moveObservers;
+
+    /**
+     * Gets notified whenever the character changed its coordinates using
+     * {@link Character#setCoordinates(Point)} or {@link Character#move(int, int)}.
+     * Changes made to the point returned by {@link Character#getCoordinates()}
+     * directly can not be noticed.
+     */
+    @FunctionalInterface
+    public interface MoveObserver {
+        /**
+         * @param character The character that moved
+         * @param from      The coordinates it left, may be {@code null}
+         */
+        void moved(Character character, Point from);
+    }
 
     /**
      * Sets the character, no validity checks will be performed
@@ -267,7 +287,9 @@ public class Character implements IAmJson {
     }
 
     public void setCoordinates(Point coordinates) {
+        final Point from = this.coordinates;
         this.coordinates = coordinates;
+        notifyMoved(from);
     }
 
     public void setMp(int mp) {
@@ -400,7 +422,9 @@ public class Character implements IAmJson {
         Point possibleTarget = new Point(this.coordinates).move(deltaX, deltaY);
         if (!Point.isNeighbour(this.coordinates, possibleTarget)) // is no neighbor
             return false;
+        final Point from = moveObservers == null ? null : new Point(this.coordinates);
         this.coordinates.move(deltaX, deltaY);
+        notifyMoved(from);
         return true;
     }
 
@@ -558,6 +582,43 @@ public class Character implements IAmJson {
         return this.didRetire;
     }
 
+    /**
+     * Registers the observer, it will only be referenced weakly.
+     *
+     * @param observer The observer to notify
+     */
+    public void addMoveObserver(MoveObserver observer) {
+        if (moveObservers == null)
+            moveObservers = new ArrayList<>(1);
+        removeMoveObserver(observer); // no duplicates, drops cleared ones as well
+        moveObservers.add(new WeakReference<>(observer));
+    }
+
+    /**
+     * Removes the observer, if registered.
+     *
+     * @param observer The observer to remove
+     */
+    public void removeMoveObserver(MoveObserver observer) {
+        if (moveObservers == null)
+            return;
+        moveObservers.removeIf(reference -> reference.get() == null || reference.get() == observer);
+    }
+
+    private void notifyMoved(Point from) {
+        if (moveObservers == null)
+            return;
+        Iterator<WeakReference<MoveObserver>> iterator = moveObservers.iterator();
+        while (iterator.hasNext()) {
+            MoveObserver observer = iterator.next().get();
+            if (observer == null) {
+                iterator.remove();
+            } else {
+                observer.moved(this, from);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "Character [characterId=" + characterId + ", name='" + name + '\'' + ", coordinates=" + coordinates
@@ -1,9 +1,13 @@
 package de.uulm.team020.datatypes;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
 import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
 import de.uulm.team020.datatypes.enumerations.GadgetEnum;
 import de.uulm.team020.datatypes.exceptions.SafeFieldException;
@@ -12,11 +16,15 @@ import de.uulm.team020.datatypes.exceptions.SafeFieldException;
  * Will contain the current state of a field while playing. This excludes
  * entities (Characters, ...) staying on this field. They are not included to
  * provide more flexibility.
+ * <p>
+ * Changes made by the setters will be reported to the registered
+ * {@link IAmObservable.FieldObserver}s, this is used by the maps to track
+ * their changes.
  *
  * @author Florian Sihler
- * @version 1.3, 06/20/2020
+ * @version 1.5, 07/11/2020
  */
-public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState {
+public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState, IAmObservable {
 
     private static final String FIELD_TYPE_TXT = "Field type '";
 
@@ -36,6 +44,8 @@ public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState {
     private transient int foggyRoundsRemaining = 0;
     private boolean isUpdated;
 
+    private transient List<WeakReference<FieldObserver>> observers;
+
     /**
      * Construct a new field, this method should not be called to construct a Field,
      * as it is to be base on a {@link Scenario#getField()} and therefore a
@@ -225,27 +235,54 @@ public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState {
     }
 
     public void setState(FieldStateEnum state) {
+        if (this.state == state)
+            return;
+        final boolean wasWalkable = isWalkable();
+        final boolean wasBlockingLOS = blocksLOS();
         this.state = state;
+        int kinds = FieldChangeLog.CONTENT;
+        if (wasWalkable != isWalkable())
+            kinds |= FieldChangeLog.WALKABILITY;
+        if (wasBlockingLOS != blocksLOS())
+            kinds |= FieldChangeLog.TRANSPARENCY;
+        notifyObservers(kinds);
     }
 
     public void setGadget(Gadget gadget) {
+        if (this.gadget == gadget)
+            return;
         this.gadget = gadget;
+        notifyObservers(FieldChangeLog.CONTENT);
     }
 
     public void setDestroyed(boolean destroyed) {
+        if (isDestroyed == destroyed)
+            return;
         isDestroyed = destroyed;
+        notifyObservers(FieldChangeLog.CONTENT);
     }
 
     public void setInverted(boolean inverted) {
+        if (isInverted == inverted)
+            return;
         isInverted = inverted;
+        notifyObservers(FieldChangeLog.CONTENT);
     }
 
     public void setChipAmount(Integer chipAmount) {
+        if (Objects.equals(this.chipAmount, chipAmount))
+            return;
         this.chipAmount = chipAmount;
+        notifyObservers(FieldChangeLog.CONTENT);
     }
 
     public void setFoggy(boolean foggy) {
+        if (isFoggy == foggy)
+            return;
+        final boolean wasBlockingLOS = blocksLOS();
         isFoggy = foggy;
+        notifyObservers(
+                FieldChangeLog.CONTENT | (wasBlockingLOS != blocksLOS() ? FieldChangeLog.TRANSPARENCY : 0));
     }
 
     public void setUpdated(boolean updated) {
@@ -266,7 +303,10 @@ public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState {
     public void setSafeIndex(int num) {
         if (this.state != FieldStateEnum.SAFE)
             throw new SafeFieldException("Only fields containing a safe can hae a safeIndex");
+        if (this.safeIndex == num)
+            return;
         this.safeIndex = num;
+        notifyObservers(FieldChangeLog.CONTENT);
     }
 
     @Override
@@ -281,4 +321,33 @@ public class Field implements IAmJson, IAmWalkable, IAmTransparent, IAmAState {
     public void setFoggyRoundsRemaining(int foggyRoundsRemaining) {
         this.foggyRoundsRemaining = foggyRoundsRemaining;
     }
+
+    @Override
+    public void addObserver(FieldObserver observer) {
+        if (observers == null)
+            observers = new ArrayList<>(1);
+        removeObserver(observer); // no duplicates, drops cleared ones as well
+        observers.add(new WeakReference<>(observer));
+    }
+
+    @Override
+    public void removeObserver(FieldObserver observer) {
+        if (observers == null)
+            return;
+        observers.removeIf(reference -> reference.get() == null || reference.get() == observer);
+    }
+
+    private void notifyObservers(int kinds) {
+        if (observers == null)
+            return;
+        Iterator<WeakReference<FieldObserver>> iterator = observers.iterator();
+        while (iterator.hasNext()) {
+            FieldObserver observer = iterator.next().get();
+            if (observer == null) {
+                iterator.remove();
+            } else {
+                observer.fieldChanged(kinds);
+            }
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package de.uulm.team020.datatypes;
+
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
+
+/**
+ * To be implemented by mutable field types so that an
+ * {@link AbstractGameField} holding them is able to record their changes.
+ * Observers are held weakly, so an abandoned map will not be kept alive by the
+ * fields it shares with others.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public interface IAmObservable {
+
+    /**
+     * Gets notified whenever an observed field changes
+     */
+    @FunctionalInterface
+    interface FieldObserver {
+        /**
+         * @param kinds What changed, using the flags of {@link FieldChangeLog}
+         */
+        void fieldChanged(int kinds);
+    }
+
+    /**
+     * Registers the observer, it will only be referenced weakly.
+     *
+     * @param observer The observer to notify
+     */
+    void addObserver(FieldObserver observer);
+
+    /**
+     * Removes the observer, if registered.
+     *
+     * @param observer The observer to remove
+     */
+    void removeObserver(FieldObserver observer);
+
+}
@@ -0,0 +1,157 @@
+package de.uulm.team020.datatypes;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Occupants of the cells of a {@link State}. Every cell holds the dense slot of
+ * the character standing on it, the cells of the cat and the janitor are kept
+ * as markers. The index follows the characters by observing them, moving a
+ * character only updates the cell it left and the one it entered. Characters
+ * added to or removed from the set are not followed, the {@link State} drops
+ * the index for those.
+ *
+ * @author Florian Sihler
+ * @version 1.2, 07/11/2020
+ */
+final class OccupantIndex implements Character.MoveObserver {
+
+    private static final int EMPTY = -1;
+
+    private final FieldMap map;
+    private final Set<Character> source;
+    private final int width;
+    private final int height;
+    // slot of the character on the cell, EMPTY if none
+    private final int[] cells;
+    private final Character[] characters;
+    private final Map<Character, Integer> slots;
+    private int catCell = EMPTY;
+    private int janitorCell = EMPTY;
+
+    OccupantIndex(final FieldMap map, final Set<Character> characters, final Point cat, final Point janitor) {
+        this.map = map;
+        this.source = characters;
+        final Field[][] field = map.getField();
+        int maxWidth = 0;
+        for (final Field[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        this.width = maxWidth;
+        this.height = field.length;
+        this.cells = new int[width * height];
+        Arrays.fill(cells, EMPTY);
+        this.characters = characters == null ? new Character[0] : characters.toArray(new Character[0]);
+        this.slots = new IdentityHashMap<>(this.characters.length * 2);
+        for (int slot = 0; slot < this.characters.length; slot++) {
+            final Character character = this.characters[slot];
+            slots.put(character, slot);
+            character.addMoveObserver(this);
+            final int cell = cellOf(character.getCoordinates());
+            if (cell != EMPTY) {
+                cells[cell] = slot;
+            }
+        }
+        this.catCell = cellOf(cat);
+        this.janitorCell = cellOf(janitor);
+    }
+
+    /**
+     * @param map        The current map
+     * @param characters The current characters
+     *
+     * @return True if the index was built for other characters or another map,
+     *         or the number of characters changed
+     */
+    boolean isOutdated(final FieldMap map, final Set<Character> characters) {
+        return this.map != map || this.source != characters
+                || characters != null && characters.size() != this.characters.length;
+    }
+
+    /**
+     * Stops following the characters
+     */
+    void detach() {
+        for (final Character character : characters) {
+            character.removeMoveObserver(this);
+        }
+    }
+
+    @Override
+    public void moved(final Character character, final Point from) {
+        final Integer slot = slots.get(character);
+        if (slot == null) {
+            return;
+        }
+        final int left = cellOf(from);
+        if (left != EMPTY && cells[left] == slot) {
+            cells[left] = otherOn(from, slot);
+        }
+        final int entered = cellOf(character.getCoordinates());
+        if (entered != EMPTY) {
+            cells[entered] = slot;
+        }
+    }
+
+    // slot of another character still standing on the cell, EMPTY if none
+    private int otherOn(final Point cell, final int slot) {
+        for (int other = 0; other < characters.length; other++) {
+            if (other != slot && cell.equals(characters[other].getCoordinates())) {
+                return other;
+            }
+        }
+        return EMPTY;
+    }
+
+    void catMoved(final Point to) {
+        catCell = cellOf(to);
+    }
+
+    void janitorMoved(final Point to) {
+        janitorCell = cellOf(to);
+    }
+
+    /**
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return The character on the cell, null if there is none or the cell is not
+     *         on the map
+     */
+    Character characterAt(final int x, final int y) {
+        final int cell = cellOf(x, y);
+        return cell == EMPTY || cells[cell] == EMPTY ? null : characters[cells[cell]];
+    }
+
+    State.Occupant occupantAt(final int x, final int y) {
+        final int cell = cellOf(x, y);
+        if (cell == EMPTY) {
+            return State.Occupant.NONE;
+        }
+        if (cells[cell] != EMPTY) {
+            return State.Occupant.CHARACTER;
+        }
+        if (cell == catCell) {
+            return State.Occupant.CAT;
+        }
+        return cell == janitorCell ? State.Occupant.JANITOR : State.Occupant.NONE;
+    }
+
+    private int cellOf(final Point point) {
+        return point == null ? EMPTY : cellOf(point.getX(), point.getY());
+    }
+
+    private int cellOf(final int x, final int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return EMPTY;
+        }
+        return y * width + x;
+    }
+
+}
@@ -1,7 +1,10 @@
 package de.uulm.team020.datatypes;
 
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 
 import de.uulm.team020.datatypes.util.Point;
@@ -9,9 +12,18 @@ import de.uulm.team020.datatypes.util.Point;
 /**
  * Snapshot of the current game-state. Contains the {@link FieldMap}, all active
  * Characters, and the safe-combinations owned by the target team...
+ * <p>
+ * The occupants of the cells are indexed on the first query by
+ * {@link #occupantAt(int, int)} or {@link #getCharacterAt(Point)}. The index
+ * follows characters moved by {@link Character#setCoordinates(Point)} or
+ * {@link Character#move(int, int)} as well as the cat and the janitor, changing
+ * the map or the set of characters rebuilds it. Characters have to be added or
+ * removed through {@link #getCharacters()} or {@link #setCharacters(Set)} to be
+ * noticed, changing the set passed to the state directly is only noticed if its
+ * size changes.
  *
  * @author Florian Sihler
- * @version 1.0, 03/29/2020
+ * @version 1.2, 07/11/2020
  */
 public class State implements IAmJson {
 
@@ -28,6 +40,23 @@ public class State implements IAmJson {
     Point catCoordinates;
     Point janitorCoordinates;
 
+    private transient OccupantIndex occupants;
+    private transient Set<Character> charactersView;
+
+    /**
+     * What stands on a cell
+     */
+    public enum Occupant {
+        /** Nothing, or the cell is not on the map */
+        NONE,
+        /** One of the characters */
+        CHARACTER,
+        /** The cat */
+        CAT,
+        /** The janitor */
+        JANITOR
+    }
+
     /**
      * Initializes a new State with no validity checking
      *
@@ -72,8 +101,18 @@ public class State implements IAmJson {
         return mySafeCombinations;
     }
 
+    /**
+     * @return The characters, changes to the set are passed to the characters of
+     *         the state. Null if there are none.
+     */
     public Set<Character> getCharacters() {
-        return characters;
+        if (characters == null) {
+            return null;
+        }
+        if (charactersView == null) {
+            charactersView = new CharacterSet();
+        }
+        return charactersView;
     }
 
     public Point getCatCoordinates() {
@@ -90,6 +129,7 @@ public class State implements IAmJson {
 
     public void setMap(FieldMap map) {
         this.map = map;
+        dropOccupants();
     }
 
     public void setMySafeCombinations(Set<Integer> mySafeCombinations) {
@@ -98,14 +138,134 @@ public class State implements IAmJson {
 
     public void setCharacters(Set<Character> characters) {
         this.characters = characters;
+        this.charactersView = null;
+        dropOccupants();
     }
 
     public void setCatCoordinates(Point catCoordinates) {
         this.catCoordinates = catCoordinates;
+        if (occupants != null) {
+            occupants.catMoved(catCoordinates);
+        }
     }
 
     public void setJanitorCoordinates(Point janitorCoordinates) {
         this.janitorCoordinates = janitorCoordinates;
+        if (occupants != null) {
+            occupants.janitorMoved(janitorCoordinates);
+        }
+    }
+
+    /**
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return What stands on the cell, characters take precedence
+     */
+    public Occupant occupantAt(int x, int y) {
+        return getOccupants().occupantAt(x, y);
+    }
+
+    /**
+     * @param coordinates The cell
+     *
+     * @return What stands on the cell, characters take precedence
+     */
+    public Occupant occupantAt(Point coordinates) {
+        return occupantAt(coordinates.getX(), coordinates.getY());
+    }
+
+    /**
+     * @param coordinates The cell
+     *
+     * @return The character standing on the cell, if any
+     */
+    public Optional<Character> getCharacterAt(Point coordinates) {
+        if (!coordinates.isOnField(map)) {
+            // not indexed, e.g. characters not placed yet
+            return characters == null ? Optional.empty()
+                    : characters.stream().filter(c -> coordinates.equals(c.getCoordinates())).findAny();
+        }
+        return Optional.ofNullable(getOccupants().characterAt(coordinates.getX(), coordinates.getY()));
+    }
+
+    private OccupantIndex getOccupants() {
+        if (occupants == null || occupants.isOutdated(map, characters)) {
+            dropOccupants();
+            occupants = new OccupantIndex(map, characters, catCoordinates, janitorCoordinates);
+        }
+        return occupants;
+    }
+
+    private void dropOccupants() {
+        if (occupants != null) {
+            occupants.detach();
+            occupants = null;
+        }
+    }
+
+    /**
+     * The characters of the state, adding or removing one drops the index of the
+     * occupants.
+     */
+    private final class CharacterSet extends AbstractSet<Character> {
+
+        @Override
+        public boolean add(Character character) {
+            final boolean added = characters.add(character);
+            if (added) {
+                dropOccupants();
+            }
+            return added;
+        }
+
+        @Override
+        public boolean remove(Object character) {
+            final boolean removed = characters.remove(character);
+            if (removed) {
+                dropOccupants();
+            }
+            return removed;
+        }
+
+        @Override
+        public boolean contains(Object character) {
+            return characters.contains(character);
+        }
+
+        @Override
+        public void clear() {
+            characters.clear();
+            dropOccupants();
+        }
+
+        @Override
+        public Iterator<Character> iterator() {
+            final Iterator<Character> iterator = characters.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Character next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    dropOccupants();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return characters.size();
+        }
+
     }
 
     /**
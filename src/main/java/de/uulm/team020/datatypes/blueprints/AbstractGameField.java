@@ -4,20 +4,28 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import de.uulm.team020.datatypes.IAmObservable;
+import de.uulm.team020.datatypes.IAmObservable.FieldObserver;
 import de.uulm.team020.datatypes.IAmWalkable;
 import de.uulm.team020.datatypes.util.Point;
 import de.uulm.team020.logging.Magpie;
 
 /**
  * Requirements for n-times n, two dimensional Matrix of 'T'-type Fields.
+ * <p>
+ * Every change made by {@link #setSpecificField(Point, IAmWalkable)} is
+ * recorded in a {@link FieldChangeLog}. If the fields themselves are mutable
+ * ({@link IAmObservable}) their changes will be recorded as well, as soon as
+ * {@link #trackFieldChanges()} was called. Consumers (like the pathfinder) use
+ * the log to update only what was affected.
  * 
  * @author Florian Sihler
- * @version 1.3b, 06/19/2020
+ * @version 1.7, 07/11/2020
  */
 public abstract class AbstractGameField<T extends IAmWalkable> implements Serializable {
 
@@ -39,6 +47,32 @@ public abstract class AbstractGameField<T extends IAmWalkable> implements Serial
     /** maximum col length in supplied Field */
     private transient int maxHeight = 0;
 
+    /** changes made to this field, created on the first change */
+    private transient FieldChangeLog changes;
+    /** observers of the single cells, null if not tracking field changes */
+    private transient CellObserver[][] cellObservers;
+
+    /**
+     * Reports changes of a single cell to the change log, is held strongly by the
+     * map and weakly by the field.
+     */
+    private static final class CellObserver implements FieldObserver {
+        private final AbstractGameField<?> owner;
+        private final int x;
+        private final int y;
+
+        private CellObserver(final AbstractGameField<?> owner, final int x, final int y) {
+            this.owner = owner;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void fieldChanged(final int kinds) {
+            owner.recordChange(x, y, kinds);
+        }
+    }
+
     /**
      * Initializes:
      * <ul>
@@ -289,6 +323,17 @@ public abstract class AbstractGameField<T extends IAmWalkable> implements Serial
         return isInMap(x, y) ? map[y][x] : null;
     }
 
+    /**
+     * Tries to get the field, return null if invalid (or null)
+     * 
+     * @param x The x-coordinate of the field you want
+     * @param y The y-coordinate of the field you want
+     * @return Field if it exists, {@code null} otherwise
+     */
+    public T getSpecificField(int x, int y) {
+        return isInMap(x, y) ? getField()[y][x] : null;
+    }
+
     /**
      * Tries to set the field, return null if not valid
      * 
@@ -301,10 +346,86 @@ public abstract class AbstractGameField<T extends IAmWalkable> implements Serial
             return false;
         }
         final T[][] map = getField();
-        map[coordinate.getY()][coordinate.getX()] = newField;
+        final int x = coordinate.getX();
+        final int y = coordinate.getY();
+        if (cellObservers != null) {
+            observeCell(map[y][x], newField, cellObservers[y][x]);
+        }
+        map[y][x] = newField;
+        recordChange(x, y, FieldChangeLog.ALL);
         return true;
     }
 
+    /**
+     * Records the change of a cell, to be called whenever a cell is altered
+     * without using {@link #setSpecificField(Point, IAmWalkable)}.
+     * 
+     * @param x     X coordinate of the cell
+     * @param y     Y coordinate of the cell
+     * @param kinds What changed, see {@link FieldChangeLog}
+     */
+    public void recordChange(int x, int y, int kinds) {
+        if (changes == null) {
+            changes = new FieldChangeLog();
+        }
+        changes.record(x, y, kinds);
+    }
+
+    /**
+     * @return The number of changes recorded so far, to be used with
+     *         {@link #forEachChangeSince(long, FieldChangeLog.ChangeConsumer)}
+     */
+    public long getChangeVersion() {
+        return changes == null ? 0 : changes.getVersion();
+    }
+
+    /**
+     * Replays all changes recorded after the given version.
+     * 
+     * @param version  The version seen last
+     * @param consumer Will receive the changes
+     * 
+     * @return False if the changes are no longer available, in that case everything
+     *         derived from this field has to be considered outdated
+     */
+    public boolean forEachChangeSince(long version, FieldChangeLog.ChangeConsumer consumer) {
+        if (changes == null) {
+            return version == 0;
+        }
+        return changes.forEachSince(version, consumer);
+    }
+
+    /**
+     * Starts to record the changes made to the (mutable) fields themselves, e.g. by
+     * {@code Field#setState}. Calling it multiple times has no effect.
+     */
+    public void trackFieldChanges() {
+        if (cellObservers != null) {
+            return;
+        }
+        final T[][] map = getField();
+        cellObservers = new CellObserver[map.length][];
+        for (int y = 0; y < map.length; y++) {
+            if (map[y] == null) {
+                continue;
+            }
+            cellObservers[y] = new CellObserver[map[y].length];
+            for (int x = 0; x < map[y].length; x++) {
+                cellObservers[y][x] = new CellObserver(this, x, y);
+                observeCell(null, map[y][x], cellObservers[y][x]);
+            }
+        }
+    }
+
+    private static void observeCell(Object oldField, Object newField, CellObserver observer) {
+        if (oldField instanceof IAmObservable) {
+            ((IAmObservable) oldField).removeObserver(observer);
+        }
+        if (newField instanceof IAmObservable) {
+            ((IAmObservable) newField).addObserver(observer);
+        }
+    }
+
     /**
      * Checks whether a given {@code coordinate} is in range of the map.
      * 
@@ -332,8 +453,8 @@ public abstract class AbstractGameField<T extends IAmWalkable> implements Serial
         if (coordinate == null || !coordinate.isOnField(this))
             return Optional.empty();
 
-        Set<Point> validNeighbours = Arrays.stream(coordinate.getNeighbours()).filter(p -> p.isOnField(this))
-                .collect(Collectors.toSet());
+        final Set<Point> validNeighbours = new HashSet<>(16);
+        forEachNeighbour(coordinate, (x, y) -> validNeighbours.add(new Point(x, y)));
         return Optional.of(validNeighbours);
     }
 
@@ -349,11 +470,27 @@ public abstract class AbstractGameField<T extends IAmWalkable> implements Serial
         if (coordinate == null || !coordinate.isOnField(this))
             return Optional.empty();
 
-        List<T> validNeighbours = Arrays.stream(coordinate.getNeighbours()).filter(p -> p.isOnField(this))
-                .map(this::getSpecificField).collect(Collectors.toList());
+        final List<T> validNeighbours = new ArrayList<>(8);
+        forEachNeighbour(coordinate, (x, y) -> validNeighbours.add(getField()[y][x]));
         return Optional.of(validNeighbours);
     }
 
+    // visits the neighbours on the map without creating points for them
+    private void forEachNeighbour(final Point coordinate, final IntBinaryConsumer consumer) {
+        for (int y = coordinate.getY() - 1; y <= coordinate.getY() + 1; y++) {
+            for (int x = coordinate.getX() - 1; x <= coordinate.getX() + 1; x++) {
+                if ((x != coordinate.getX() || y != coordinate.getY()) && isInMap(x, y)) {
+                    consumer.accept(x, y);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntBinaryConsumer {
+        void accept(int x, int y);
+    }
+
     /**
      * Retrieves the nested the supplied Field in an human-readable way.
      * <p>
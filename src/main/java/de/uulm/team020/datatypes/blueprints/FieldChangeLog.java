@@ -0,0 +1,109 @@
+package de.uulm.team020.datatypes.blueprints;
+
+/**
+ * Bounded log of the cells changed in an {@link AbstractGameField}. Every
+ * recorded change increments the version of the log. Consumers remember the
+ * version they have seen and ask for all changes since then by
+ * {@link #forEachSince(long, ChangeConsumer)}. As only the latest changes are
+ * retained, consumers falling too far behind get told so and have to drop
+ * everything they derived from the field.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class FieldChangeLog {
+
+    /** The walkability of the cell changed */
+    public static final int WALKABILITY = 1;
+    /** The transparency of the cell changed */
+    public static final int TRANSPARENCY = 2;
+    /** Anything else about the cell changed (gadget, chips, ...) */
+    public static final int CONTENT = 4;
+    /** Everything may have changed, e.g. the cell was replaced */
+    public static final int ALL = WALKABILITY | TRANSPARENCY | CONTENT;
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int KIND_BITS = 8;
+    private static final long COORDINATE_MASK = 0xFFFFFFL;
+
+    /**
+     * Receives the recorded changes
+     */
+    @FunctionalInterface
+    public interface ChangeConsumer {
+        /**
+         * Called for every change, in the order they were recorded.
+         *
+         * @param x     X coordinate of the changed cell
+         * @param y     Y coordinate of the changed cell
+         * @param kinds Bit-set of {@link FieldChangeLog#WALKABILITY},
+         *              {@link FieldChangeLog#TRANSPARENCY} and
+         *              {@link FieldChangeLog#CONTENT}
+         */
+        void changed(int x, int y, int kinds);
+    }
+
+    private final long[] entries;
+    private long version = 0;
+
+    /**
+     * Construct a new log retaining the default number of changes
+     */
+    public FieldChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new log retaining the given number of changes
+     *
+     * @param capacity Number of changes to retain
+     */
+    public FieldChangeLog(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity (" + capacity + ") has to be greater than 0.");
+        }
+        this.entries = new long[capacity];
+    }
+
+    /**
+     * Records the change of a cell and increments the version.
+     *
+     * @param x     X coordinate of the changed cell
+     * @param y     Y coordinate of the changed cell
+     * @param kinds What changed
+     */
+    public void record(final int x, final int y, final int kinds) {
+        entries[(int) (version % entries.length)] = ((x & COORDINATE_MASK) << 32)
+                | ((y & COORDINATE_MASK) << KIND_BITS) | (kinds & 0xFF);
+        version += 1;
+    }
+
+    /**
+     * @return The number of changes recorded so far
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Replays all changes recorded after the given version.
+     *
+     * @param since    The version seen last
+     * @param consumer Will receive the changes
+     *
+     * @return False if the changes are no longer available (or the version is
+     *         unknown), in that case the consumer will not be called at all
+     */
+    public boolean forEachSince(final long since, final ChangeConsumer consumer) {
+        if (since < version - entries.length || since > version) {
+            return false;
+        }
+        for (long v = since; v < version; v++) {
+            final long entry = entries[(int) (v % entries.length)];
+            consumer.changed((int) (entry >>> 32), (int) ((entry >>> KIND_BITS) & COORDINATE_MASK),
+                    (int) (entry & 0xFF));
+        }
+        return true;
+    }
+
+}
@@ -2,22 +2,76 @@ package de.uulm.team020.datatypes.util;
 
 /**
  * A Metric which is used by {@link Point} to calculate circles where the radius
- * is applied and checked by the given metric.
- * 
+ * is applied and checked by the given metric. The pathfinder uses it as its
+ * heuristic, where the common grid metrics are available as constants that
+ * work on coordinates without creating points.
+ *
  * @author Florian Sihler
- * @version 1.0, 05/08/2020
+ * @version 1.1, 07/11/2020
  */
 @FunctionalInterface
 public interface DistanceMetric {
 
+    /** Number of steps if walking diagonal is allowed, also known as chebyshev */
+    DistanceMetric KING = Grid.KING;
+    /** Number of steps if only walking straight is allowed */
+    DistanceMetric MANHATTAN = Grid.MANHATTAN;
+    /** Always zero, turns an A*-search into dijkstra */
+    DistanceMetric ZERO = Grid.ZERO;
+
     /**
      * Metric which calculates the distance between a and b
-     * 
+     *
      * @param a The first point
      * @param b The second point
-     * 
+     *
      * @return The distance
      */
     double getDistance(final Point a, final Point b);
 
-}
\ No newline at end of file
+    /**
+     * Metric which calculates the distance between the two coordinates, by
+     * default this creates both points.
+     *
+     * @param ax X coordinate of the first point
+     * @param ay Y coordinate of the first point
+     * @param bx X coordinate of the second point
+     * @param by Y coordinate of the second point
+     *
+     * @return The distance
+     */
+    default double getDistance(final int ax, final int ay, final int bx, final int by) {
+        return getDistance(new Point(ax, ay), new Point(bx, by));
+    }
+
+    /**
+     * The metrics of grids which are common enough to be calculated on the
+     * coordinates directly
+     */
+    enum Grid implements DistanceMetric {
+        KING {
+            @Override
+            public double getDistance(final int ax, final int ay, final int bx, final int by) {
+                return Math.max(Math.abs(ax - bx), Math.abs(ay - by));
+            }
+        },
+        MANHATTAN {
+            @Override
+            public double getDistance(final int ax, final int ay, final int bx, final int by) {
+                return Math.abs(ax - bx) + Math.abs(ay - by);
+            }
+        },
+        ZERO {
+            @Override
+            public double getDistance(final int ax, final int ay, final int bx, final int by) {
+                return 0;
+            }
+        };
+
+        @Override
+        public double getDistance(final Point a, final Point b) {
+            return getDistance(a.getX(), a.getY(), b.getX(), b.getY());
+        }
+    }
+
+}
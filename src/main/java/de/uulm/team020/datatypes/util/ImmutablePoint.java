@@ -0,0 +1,99 @@
+package de.uulm.team020.datatypes.util;
+
+/**
+ * Variant of {@link Point} which can not be changed, so it may be shared and
+ * cached. Points of typical board sizes (coordinates from 0 to
+ * {@value #CACHE_SIZE} exclusive) are interned, {@link #of(int, int)} returns
+ * the same instance for them every time and does not allocate. All others are
+ * created on demand.
+ * <p>
+ * It is equal to every {@link Point} with the same coordinates, so it may be
+ * used to look up points in sets and maps containing mutable ones.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class ImmutablePoint extends Point {
+
+    private static final long serialVersionUID = 5208245128458373011L;
+
+    /** Points with both coordinates in [0, CACHE_SIZE) are interned */
+    public static final int CACHE_SIZE = 64;
+
+    private static final ImmutablePoint[] CACHE = new ImmutablePoint[CACHE_SIZE * CACHE_SIZE];
+
+    static {
+        for (int y = 0; y < CACHE_SIZE; y++) {
+            for (int x = 0; x < CACHE_SIZE; x++) {
+                CACHE[y * CACHE_SIZE + x] = new ImmutablePoint(x, y);
+            }
+        }
+    }
+
+    private ImmutablePoint(final int xCord, final int yCord) {
+        super(xCord, yCord);
+    }
+
+    /**
+     * @param xCord the x-coordinate
+     * @param yCord the y-coordinate
+     *
+     * @return The interned point if it is cached, a new one otherwise
+     */
+    public static ImmutablePoint of(final int xCord, final int yCord) {
+        if (xCord >= 0 && xCord < CACHE_SIZE && yCord >= 0 && yCord < CACHE_SIZE) {
+            return CACHE[yCord * CACHE_SIZE + xCord];
+        }
+        return new ImmutablePoint(xCord, yCord);
+    }
+
+    /**
+     * @param point The point to get the immutable variant for
+     *
+     * @return The point itself if immutable already, see {@link #of(int, int)}
+     *         otherwise
+     */
+    public static ImmutablePoint of(final Point point) {
+        if (point instanceof ImmutablePoint) {
+            return (ImmutablePoint) point;
+        }
+        return of(point.getX(), point.getY());
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link Point#pack(int, int)}
+     *
+     * @return The point with the coordinates, see {@link #of(int, int)}
+     */
+    public static ImmutablePoint ofPacked(final long packed) {
+        return of(Point.unpackX(packed), Point.unpackY(packed));
+    }
+
+    /**
+     * Not supported for an immutable Variant
+     * 
+     * @param ignored -ignored-
+     * @return never
+     */
+    @Override
+    public Point setX(final int ignored) {
+        throw new UnsupportedOperationException("This point is immutable");
+    }
+
+    /**
+     * Not supported for an immutable Variant
+     * 
+     * @param ignored -ignored-
+     * @return never
+     */
+    @Override
+    public Point setY(final int ignored) {
+        throw new UnsupportedOperationException("This point is immutable");
+    }
+
+    // keep the cached points unique
+    private Object readResolve() {
+        return of(getX(), getY());
+    }
+
+}
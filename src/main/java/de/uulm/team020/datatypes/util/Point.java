@@ -25,7 +25,7 @@ import de.uulm.team020.helper.pathfinding.Path;
  * more familiar with the ones stated here.
  *
  * @author Florian Sihler
- * @version 1.5, 05/05/2020
+ * @version 1.7, 07/11/2020
  */
 public class Point implements IAmJson {
 
@@ -342,6 +342,88 @@ public class Point implements IAmJson {
         return isNeighbour(this, p2);
     }
 
+    /**
+     * Packs both coordinates into a single long, e.g. to use them as key without
+     * creating a point.
+     *
+     * @param xCord the x-coordinate
+     * @param yCord the y-coordinate
+     *
+     * @return The x-coordinate in the upper, the y-coordinate in the lower half
+     *
+     * @see #unpackX(long)
+     * @see #unpackY(long)
+     */
+    public static long pack(final int xCord, final int yCord) {
+        return ((long) xCord << 32) | (yCord & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Both coordinates of this point packed into a long
+     *
+     * @see #pack(int, int)
+     */
+    public long pack() {
+        return pack(getX(), getY());
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #pack(int, int)}
+     *
+     * @return The x-coordinate
+     */
+    public static int unpackX(final long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #pack(int, int)}
+     *
+     * @return The y-coordinate
+     */
+    public static int unpackY(final long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Packs both coordinates into a single int, each of them has to fit into a
+     * short.
+     *
+     * @param xCord the x-coordinate
+     * @param yCord the y-coordinate
+     *
+     * @return The x-coordinate in the upper, the y-coordinate in the lower half
+     *
+     * @throws IllegalArgumentException If a coordinate does not fit into a short
+     *
+     * @see #unpackIntX(int)
+     * @see #unpackIntY(int)
+     */
+    public static int packInt(final int xCord, final int yCord) {
+        if (xCord != (short) xCord || yCord != (short) yCord) {
+            throw new IllegalArgumentException("Coordinates (" + xCord + "," + yCord + ") do not fit into a short.");
+        }
+        return (xCord << 16) | (yCord & 0xFFFF);
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #packInt(int, int)}
+     *
+     * @return The x-coordinate
+     */
+    public static int unpackIntX(final int packed) {
+        return packed >> 16;
+    }
+
+    /**
+     * @param packed Coordinates packed by {@link #packInt(int, int)}
+     *
+     * @return The y-coordinate
+     */
+    public static int unpackIntY(final int packed) {
+        return (short) packed;
+    }
+
     private static final Point[] NEIGHBOUR_POINTS = new Point[] { new Point(-1, -1), new Point(0, -1), new Point(1, -1),
             new Point(-1, 0), new Point(1, 0), new Point(-1, 1), new Point(0, 1), new Point(1, 1) };
 
@@ -807,7 +889,8 @@ public class Point implements IAmJson {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        // same as Objects.hash(x, y), without boxing both of them
+        return 31 * (31 + x) + y;
     }
 
     @Override
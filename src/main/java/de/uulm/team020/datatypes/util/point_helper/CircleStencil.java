@@ -0,0 +1,246 @@
+package de.uulm.team020.datatypes.util.point_helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.util.DistanceMetric;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * The shape of a circle, as constructed by
+ * {@link PointAlgorithms#getCircle(Point, int, double, DistanceMetric)}, stored
+ * as offsets relative to its center. The shape only depends on the radius, the
+ * tolerance and the metric, so it is calculated once and cached for all
+ * centers. Metrics have to depend on the difference of both points only, like
+ * all metrics of {@link Point} and {@link DistanceMetric} do.
+ * <p>
+ * Stencils with a radius up to {@value #MAX_CACHED_RADIUS} are cached, the
+ * {@value #MAX_CACHED} used most recently. Metrics are compared by identity, so
+ * use the constants of {@link DistanceMetric} if possible, other ones are only
+ * kept until they get evicted.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public final class CircleStencil {
+
+    /** Stencils with a greater radius are not cached */
+    public static final int MAX_CACHED_RADIUS = 64;
+    /** Maximum number of stencils cached, the least recently used is dropped */
+    public static final int MAX_CACHED = 256;
+
+    private static final Map<Key, CircleStencil> CACHE = Collections
+            .synchronizedMap(new LinkedHashMap<>(MAX_CACHED * 2, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Key, CircleStencil> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+
+    private final int radius;
+    // offsets packed by Point#packInt, row by row
+    private final int[] offsets;
+    // all offsets of the square around the center, which are part of the shape
+    private final long[] mask;
+
+    private static final class Key {
+        private final int radius;
+        private final double tolerance;
+        private final DistanceMetric metric;
+
+        private Key(final int radius, final double tolerance, final DistanceMetric metric) {
+            this.radius = radius;
+            this.tolerance = tolerance;
+            this.metric = metric;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * radius + Double.hashCode(tolerance)) * 31 + System.identityHashCode(metric);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return radius == other.radius && Double.compare(tolerance, other.tolerance) == 0
+                    && metric == other.metric;
+        }
+    }
+
+    private CircleStencil(final int radius, final double tolerance, final DistanceMetric metric) {
+        this.radius = radius;
+        final int side = 2 * radius + 1;
+        this.mask = new long[(int) (((long) side * side + 63) / 64)];
+        final Point center = new Point(0, 0);
+        final List<Integer> found = new ArrayList<>();
+        for (int y = -radius; y <= radius; y++) {
+            // if the middle point isn't in the circle we can skip the line
+            if (!isInCircleRadius(center, new Point(0, y), radius, tolerance, metric)) {
+                continue;
+            }
+            // check from left and right until found one:
+            final int xLineStart = findRadiusBetween(center, y, -radius, 0, 1, radius, tolerance, metric);
+            final int xLineEnd = findRadiusBetween(center, y, radius, 0, -1, radius, tolerance, metric);
+            for (int x = xLineStart; x <= xLineEnd; x++) {
+                found.add(Point.packInt(x, y));
+                final int index = (y + radius) * side + x + radius;
+                mask[index >>> 6] |= 1L << index;
+            }
+        }
+        this.offsets = found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the stencil for the given parameters, from the cache if possible.
+     *
+     * @param radius    Include all inner points with this radius &gt;= 0
+     * @param tolerance Tolerance to be used when checking to match radius, see
+     *                  {@link PointAlgorithms#getCircle(Point, int, double, DistanceMetric)}
+     * @param metric    The metric that shall be used to check the radius against
+     *
+     * @return The stencil
+     *
+     * @throws IllegalArgumentException If the radius is negative
+     */
+    public static CircleStencil of(final int radius, final double tolerance, final DistanceMetric metric) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("The radius must be >= 0, not: " + radius);
+        }
+        Objects.requireNonNull(metric, "Metric");
+        if (radius > MAX_CACHED_RADIUS) {
+            return new CircleStencil(radius, tolerance, metric);
+        }
+        final Key key = new Key(radius, tolerance, metric);
+        final CircleStencil cached = CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // calculated outside of the lock, another thread may have been faster
+        final CircleStencil stencil = new CircleStencil(radius, tolerance, metric);
+        final CircleStencil other = CACHE.putIfAbsent(key, stencil);
+        return other == null ? stencil : other;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return Number of cells in the shape
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @param index Index of the cell, in [0, {@link #size()})
+     *
+     * @return X offset of the cell to the center
+     */
+    public int getOffsetX(final int index) {
+        return Point.unpackIntX(offsets[index]);
+    }
+
+    /**
+     * @param index Index of the cell, in [0, {@link #size()})
+     *
+     * @return Y offset of the cell to the center
+     */
+    public int getOffsetY(final int index) {
+        return Point.unpackIntY(offsets[index]);
+    }
+
+    /**
+     * @param offsetX X offset to the center
+     * @param offsetY Y offset to the center
+     *
+     * @return True if the cell with the given offset is part of the shape
+     */
+    public boolean contains(final int offsetX, final int offsetY) {
+        if (Math.abs(offsetX) > radius || Math.abs(offsetY) > radius) {
+            return false;
+        }
+        final int index = (offsetY + radius) * (2 * radius + 1) + offsetX + radius;
+        return (mask[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param center The center of the shape
+     * @param point  The point to check
+     *
+     * @return True if the point is part of the shape around the center
+     */
+    public boolean contains(final Point center, final Point point) {
+        return contains(point.getX() - center.getX(), point.getY() - center.getY());
+    }
+
+    /**
+     * Moves the shape to the given center.
+     *
+     * @param center The center of the shape
+     *
+     * @return New (mutable) points of all cells, row by row
+     */
+    public List<Point> translate(final Point center) {
+        final List<Point> result = new ArrayList<>(offsets.length);
+        for (final int offset : offsets) {
+            result.add(new Point(center.getX() + Point.unpackIntX(offset), center.getY() + Point.unpackIntY(offset)));
+        }
+        return result;
+    }
+
+    /**
+     * Moves the shape to the given center and drops all cells not on the field.
+     *
+     * @param center The center of the shape
+     * @param field  The field to clip the shape with
+     *
+     * @return New (mutable) points of the cells on the field
+     */
+    public Set<Point> translateAndClip(final Point center, final AbstractGameField<?> field) {
+        final Object[][] rows = field.getField();
+        final Set<Point> result = new HashSet<>(offsets.length * 2);
+        for (final int offset : offsets) {
+            final int x = center.getX() + Point.unpackIntX(offset);
+            final int y = center.getY() + Point.unpackIntY(offset);
+            if (y >= 0 && y < rows.length && rows[y] != null && x >= 0 && x < rows[y].length) {
+                result.add(new Point(x, y));
+            }
+        }
+        return result;
+    }
+
+    private static int findRadiusBetween(final Point center, final int y, final int start, final int end,
+            final int direction, final int radius, final double tolerance, final DistanceMetric metric) {
+        final Point p = new Point(start, y);
+        for (int x = start; direction > 0 ? x <= end : x >= end; x += direction, p.setX(x)) {
+            if (isInCircleRadius(center, p, radius, tolerance, metric)) {
+                return x;
+            }
+        }
+        return start;
+    }
+
+    private static boolean isInCircleRadius(final Point center, final Point p, final int radius, final double tolerance,
+            final DistanceMetric metric) {
+        return metric.getDistance(center, p) - tolerance <= radius;
+    }
+
+    @Override
+    public String toString() {
+        return "CircleStencil [radius=" + radius + ", size=" + offsets.length + "]";
+    }
+
+}
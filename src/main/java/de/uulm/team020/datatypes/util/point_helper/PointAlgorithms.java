@@ -1,6 +1,5 @@
 package de.uulm.team020.datatypes.util.point_helper;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import de.uulm.team020.datatypes.util.DistanceMetric;
@@ -14,7 +13,7 @@ import de.uulm.team020.helper.pathfinding.Path.WayPoint;
  * a static helper
  * 
  * @author Florian Sihler
- * @version 1.0, 07/07/2020
+ * @version 1.2, 07/11/2020
  */
 public class PointAlgorithms {
 
@@ -22,6 +21,26 @@ public class PointAlgorithms {
     private PointAlgorithms() {
     }
 
+    /** Tolerance of the legacy check for edges lying on the line */
+    private static final double EDGE_TOLERANCE = 0.0001;
+
+    /**
+     * Receives the cells of a line, see
+     * {@link PointAlgorithms#walkLine(int, int, int, int, LineVisitor)}
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+        /**
+         * Called for every cell of the line, in order.
+         *
+         * @param x X coordinate of the cell
+         * @param y Y coordinate of the cell
+         *
+         * @return True to continue with the next cell, false to stop
+         */
+        boolean visit(int x, int y);
+    }
+
     /**
      * This method will use a modified 4 connected Bresenham's line algorithm to
      * rasterize the line between the given points. It uses some minor optimizations
@@ -38,72 +57,103 @@ public class PointAlgorithms {
      * @param endY   Ending y coordinate
      * 
      * @return the path from start to end -- will contain start and (if differ) end.
+     * 
+     * @see #walkLine(int, int, int, int, LineVisitor)
      */
     public static Path getLine(final int startX, final int startY, final int endX, final int endY) {
+        final Path result = new Path();
+        walkLine(startX, startY, endX, endY, (x, y) -> {
+            result.append(new WayPoint(x, y));
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * Visits the cells of the line between the given points, exactly like they are
+     * returned by {@link #getLine(int, int, int, int)}, but without creating any
+     * object. The visitor may stop the walk early, e.g. on the first cell blocking
+     * the line of sight.
+     * <p>
+     * Whether a strut may be skipped is decided with integers, by checking if the
+     * edge of the cell lies on the line. The fp-precision check used before
+     * accepted edges slightly off the line for longer lines as well, to keep the
+     * cells the same the (rare) edges close to the line are checked that way.
+     * 
+     * @param startX  Starting x coordinate
+     * @param startY  Starting y coordinate
+     * @param endX    Ending x coordinate
+     * @param endY    Ending y coordinate
+     * @param visitor Will receive the cells from start to end
+     * 
+     * @return True if all cells were visited, false if the visitor stopped
+     */
+    public static boolean walkLine(final int startX, final int startY, final int endX, final int endY,
+            final LineVisitor visitor) {
         // compute initial deltas
         final int deltaX = endX - startX;
         final int deltaY = endY - startY;
         // compute signum to get correct directions on iter
         final int sigX = deltaX >= 0 ? +1 : -1; // if == 0 we will guard otherwise
         final int sigY = deltaY >= 0 ? +1 : -1; // if == 0 we will guard otherwise
-        // error for calculation
-        // the resulting path -- will be populated in the process
-        Path result = new Path();
-        // if it is a direct line construct path from there
+        // if it is a direct line walk it from there
         if (deltaX == 0) {
             // is direct vertical as no x movement
             for (int y = startY; sigY > 0 ? y < endY : y > endY; y += sigY) {
-                result.append(new WayPoint(startX, y));
+                if (!visitor.visit(startX, y)) {
+                    return false;
+                }
             }
         } else if (deltaY == 0) {
             // is direct horizontal as no y movement
             for (int x = startX; sigX > 0 ? x < endX : x > endX; x += sigX) {
-                result.append(new WayPoint(x, startY));
+                if (!visitor.visit(x, startY)) {
+                    return false;
+                }
             }
-        } else {
-            result = walkDiagonal(startX, startY, endX, endY, deltaX, deltaY);
+        } else if (!walkDiagonal(startX, startY, endX, endY, visitor)) {
+            return false;
         }
-        result.append(new WayPoint(endX, endY));
-        return result;
+        return visitor.visit(endX, endY);
     }
 
-    private static Path walkDiagonal(final int startX, final int startY, final int endX, final int endY, int deltaX,
-            int deltaY) {
-        // Stores the constructed path - might omit the end point which will get added
-        // at last
-        final Path result = new Path();
+    private static boolean walkDiagonal(final int startX, final int startY, final int endX, final int endY,
+            final LineVisitor visitor) {
         // calculate with error
         int currentError = 0;
-        // recompute the signs - reduces number of method args :D
-        final int sigX = deltaX >= 0 ? +1 : -1; // if == 0 we will guard otherwise
-        final int sigY = deltaY >= 0 ? +1 : -1; // if == 0 we will guard otherwise
-        // We just need abs deltas from now one so we abs them here:
-        deltaX = Math.abs(deltaX);
-        deltaY = Math.abs(deltaY);
-        // For end calculation, this helps to calculate if the field-edge is on the line
-        // drawn by start and end
-        final double distStartEnd = Point.getDistance(startX, startY, endX, endY);
+        final long deltaX = (long) endX - startX;
+        final long deltaY = (long) endY - startY;
+        final int sigX = deltaX >= 0 ? +1 : -1;
+        final int sigY = deltaY >= 0 ? +1 : -1;
+        final int absX = Math.abs(endX - startX);
+        final int absY = Math.abs(endY - startY);
+        // edges further away from the line than this (in terms of the doubled cross
+        // product, squared) can not pass the legacy check: all points passing it lie
+        // in an ellipse around the line
+        final double squaredLength = (double) (deltaX * deltaX + deltaY * deltaY);
+        final double closeToLine = EDGE_TOLERANCE * 1.01 * squaredLength * (2 * Math.sqrt(squaredLength) + 1);
         // for iteration and to keep start and end coordinates untouched
         int currentX = startX;
         int currentY = startY;
         // should the next coordinate - the strut - be skipped?
         boolean skipNext = false;
-        for (int i = 0; i < deltaX + deltaY; i++) {
-            // only append the point, if its edge in line direction does not directly fit on
-            // to the line
-            final double cX = currentX + sigX / 2.0; // get edge coordinate
-            final double cY = currentY + sigY / 2.0;
-            // we see if the edge-point 'c' is on the field by check if the sum of the
-            // distances to start and end is the same as the distance between start and end
-            final double distAC = Point.getDistance(startX, startY, cX, cY);
-            final double distCB = Point.getDistance(cX, cY, endX, endY);
-            // if this strut should not be skipped
+        for (int i = 0; i < absX + absY; i++) {
             if (!skipNext) {
-                // add the point
-                result.append(new WayPoint(currentX, currentY));
-                // If we have a edge coordinate directly on the line, we can skip the next strut
-                // as the line is not crossing the strut-fields found
-                skipNext = NumericHelper.closeEnough(distStartEnd, distAC + distCB, 0.0001);
+                if (!visitor.visit(currentX, currentY)) {
+                    return false;
+                }
+                // doubled offset of the edge in line direction to the start
+                final long edgeX = 2L * (currentX - startX) + sigX;
+                final long edgeY = 2L * (currentY - startY) + sigY;
+                final long cross = edgeX * deltaY - edgeY * deltaX;
+                if (cross == 0) {
+                    // the edge is on the line, so skip the strut unless it is behind the end
+                    skipNext = Math.abs(edgeX) <= 2L * absX;
+                } else {
+                    skipNext = (double) cross * cross <= closeToLine
+                            && edgeIsCloseEnough(startX, startY, endX, endY, currentX + sigX / 2.0,
+                                    currentY + sigY / 2.0);
+                }
             } else {
                 // The next field is not to be skipped, as it is not possible for a line to
                 // contain any space
@@ -111,8 +161,8 @@ public class PointAlgorithms {
             }
 
             // we compute the next direction we will walk to
-            final int e1 = currentError + deltaY;
-            final int e2 = currentError - deltaX;
+            final int e1 = currentError + absY;
+            final int e2 = currentError - absX;
             // calculate the better one and update the current error delta
             if (Math.abs(e1) < Math.abs(e2)) {
                 currentX += sigX;
@@ -122,7 +172,16 @@ public class PointAlgorithms {
                 currentError = e2;
             }
         }
-        return result;
+        return true;
+    }
+
+    // the edge is on the line if the distances to start and end add up to the length
+    private static boolean edgeIsCloseEnough(final int startX, final int startY, final int endX, final int endY,
+            final double cX, final double cY) {
+        final double distStartEnd = Point.getDistance(startX, startY, endX, endY);
+        final double distAC = Point.getDistance(startX, startY, cX, cY);
+        final double distCB = Point.getDistance(cX, cY, endX, endY);
+        return NumericHelper.closeEnough(distStartEnd, distAC + distCB, EDGE_TOLERANCE);
     }
 
     /**
@@ -135,59 +194,17 @@ public class PointAlgorithms {
      *                  note, that using values greater than one will not increase
      *                  the total circle but make the point-shape approximate a
      *                  rectangle
-     * @param metric    The metric that shall be used to check the radius against
+     * @param metric    The metric that shall be used to check the radius against,
+     *                  has to depend on the difference of the points only
      * 
      * @return List of all the points in the given radius
+     * 
+     * @see CircleStencil
      */
     public static List<Point> getCircle(final Point center, final int radius, final double tolerance,
             final DistanceMetric metric) {
-        if (radius < 0) {
-            throw new IllegalArgumentException("The radius must be >= 0, not: " + radius);
-        }
-        // We do not really care about rounding errors, as it is just a sloppy guess to
-        // prevent unnecessary reallocations
-        final List<Point> result = new ArrayList<>((int) (Math.PI * radius * radius));
-        final int xMiddle = center.getX();
-        final int xStart = xMiddle - radius;
-        final int xEnd = xMiddle + radius;
-        final int yStart = center.getY() - radius;
-        final int yEnd = center.getY() + radius;
-
-        // lets start having fun
-        for (int y = yStart; y <= yEnd; y++) {
-            // if the middle point isn't in the circle we can skip the line
-            final Point yCenter = new Point(xMiddle, y);
-            if (!isInCircleRadius(center, yCenter, radius, tolerance, metric)) {
-                continue;
-            }
-            // check from left until found one:
-            final int xLineStart = findRadiusBetween(center, y, xStart, xMiddle, 1, radius, tolerance, metric);
-
-            // check from right until found one:
-            final int xLineEnd = findRadiusBetween(center, y, xEnd, xMiddle, -1, radius, tolerance, metric);
-
-            // now add everything from line-start to line-end to the set:
-            for (int x = xLineStart; x <= xLineEnd; x++) {
-                result.add(new Point(x, y));
-            }
-        }
-        return result;
-    }
-
-    private static int findRadiusBetween(final Point center, final int y, final int start, final int end,
-            final int direction, final int radius, final double tolerance, final DistanceMetric metric) {
-        final Point p = new Point(start, y);
-        for (int x = start; direction > 0 ? x <= end : x >= end; x += direction, p.setX(x)) {
-            if (isInCircleRadius(center, p, radius, tolerance, metric)) {
-                return x;
-            }
-        }
-        return start;
-    }
-
-    private static boolean isInCircleRadius(final Point center, final Point p, final int radius, final double tolerance,
-            final DistanceMetric metric) {
-        return metric.getDistance(center, p) - tolerance <= radius;
+        // the shape is the same for every center
+        return CircleStencil.of(radius, tolerance, metric).translate(center);
     }
 
 }
\ No newline at end of file
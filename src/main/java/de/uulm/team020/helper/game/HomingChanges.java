@@ -0,0 +1,77 @@
+package de.uulm.team020.helper.game;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import de.uulm.team020.datatypes.Character;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Changes the {@link HomingGuidance} cannot notice on its own, passed to
+ * {@link HomingGuidance#updateOperation(de.uulm.team020.datatypes.State, de.uulm.team020.datatypes.Matchconfig, Character, List, HomingChanges)}.
+ * Moves of characters (by {@link Character#setCoordinates(Point)} or
+ * {@link Character#move(int, int)}), the cat and the janitor are noticed, just
+ * like changes made by the setters of the fields. What has to be reported are
+ * changes of the characters themselves, like gadgets, properties, chips or mp,
+ * and changes made to the gadgets placed on fields.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class HomingChanges {
+
+    private final Set<Character> changedCharacters;
+    private final List<Point> changedFields;
+
+    /**
+     * Start collecting the changes, there are none so far
+     */
+    public HomingChanges() {
+        this.changedCharacters = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.changedFields = new ArrayList<>();
+    }
+
+    /**
+     * Reports a character whose gadgets, properties, chips or points changed.
+     * Reporting the operator drops all targets.
+     *
+     * @param character The changed character
+     *
+     * @return This, to report further changes
+     */
+    public HomingChanges characterChanged(final Character character) {
+        this.changedCharacters.add(Objects.requireNonNull(character, "Character"));
+        return this;
+    }
+
+    /**
+     * Reports a field whose content changed without using its setters, e.g. a
+     * cocktail on it got poisoned.
+     *
+     * @param field The coordinates of the changed field
+     *
+     * @return This, to report further changes
+     */
+    public HomingChanges fieldChanged(final Point field) {
+        this.changedFields.add(Objects.requireNonNull(field, "Field"));
+        return this;
+    }
+
+    Set<Character> getChangedCharacters() {
+        return changedCharacters;
+    }
+
+    List<Point> getChangedFields() {
+        return changedFields;
+    }
+
+    @Override
+    public String toString() {
+        return "HomingChanges [characters=" + changedCharacters.size() + ", fields=" + changedFields + "]";
+    }
+
+}
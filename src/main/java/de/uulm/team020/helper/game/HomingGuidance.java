@@ -1,15 +1,21 @@
 package de.uulm.team020.helper.game;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import de.uulm.team020.datatypes.Character;
 import de.uulm.team020.datatypes.Field;
@@ -18,13 +24,20 @@ import de.uulm.team020.datatypes.Gadget;
 import de.uulm.team020.datatypes.Matchconfig;
 import de.uulm.team020.datatypes.State;
 import de.uulm.team020.datatypes.WiretapWithEarplugs;
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
 import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
 import de.uulm.team020.datatypes.enumerations.GadgetEnum;
 import de.uulm.team020.datatypes.enumerations.OperationEnum;
 import de.uulm.team020.datatypes.enumerations.PropertyEnum;
 import de.uulm.team020.datatypes.exceptions.HomingException;
+import de.uulm.team020.datatypes.util.DistanceMetric;
+import de.uulm.team020.datatypes.util.ImmutablePoint;
 import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.datatypes.util.point_helper.CircleStencil;
+import de.uulm.team020.helper.pathfinding.DistanceField;
+import de.uulm.team020.helper.pathfinding.FieldOfView;
 import de.uulm.team020.helper.pathfinding.Path;
+import de.uulm.team020.helper.pathfinding.VisibilityIndex;
 import de.uulm.team020.logging.Magpie;
 
 /**
@@ -34,11 +47,18 @@ import de.uulm.team020.logging.Magpie;
  * <p>
  * This class was named {@code OperationAim}, but changed the name when included
  * in game-data to offer a more 'abstract'-usage.
+ * <p>
+ * The targets of a {@link HomingTargetType} are calculated on first access and
+ * kept until the next update, asking if there are any targets may stop at the
+ * first one found. Passing the {@link HomingChanges} to an update only drops
+ * the targets whose inputs changed. With a pool set by
+ * {@link #setParallelPool(ForkJoinPool)} every update calculates all targets,
+ * the expensive ones in parallel.
  *
  * @author Lennart Altenhof
  * @author Florian Sihler
  * 
- * @version 1.1, 06/19/2020
+ * @version 1.17, 07/11/2020
  * @since 1.2
  */
 public class HomingGuidance {
@@ -64,9 +84,19 @@ public class HomingGuidance {
      */
     private final Set<Character> neighbourCharacters;
     /**
-     * The targets to aim at calculated via {@link #updateTargets()}.
+     * The targets to aim at, calculated on first access and dropped by
+     * {@link #updateTargets()}.
      */
     private final Map<HomingTargetType, Set<Point>> calculatedTargets;
+    /**
+     * Whether the last {@link #updateTargets()} succeeded, targets are only
+     * calculated for a valid operation.
+     */
+    private boolean operationValid = false;
+    /**
+     * Whether the operator stands on a foggy field, which only allows movement.
+     */
+    private boolean operatorInFog = false;
     /**
      * The state used for calculating targets.
      */
@@ -83,6 +113,44 @@ public class HomingGuidance {
      * The matchconfig.
      */
     private Matchconfig matchconfig = null;
+    /**
+     * Distances of all fields to the operator, calculated on demand by
+     * {@link #getWalkingDistances()}.
+     */
+    private DistanceField walkingDistances = null;
+    /**
+     * Line of sight on the map, kept as long as the map stays the same, see
+     * {@link #isInLineOfSight(Point, Point)}.
+     */
+    private VisibilityIndex visibility = null;
+    /**
+     * Records the moves of the characters since the last update, the characters
+     * only keep weak references so it is held here.
+     */
+    private final Character.MoveObserver moveRecorder = this::characterMoved;
+    /**
+     * Cells left and entered by characters since the last update.
+     */
+    private final List<Point> movedCells = new ArrayList<>();
+    /**
+     * The characters of the state observed by the {@link #moveRecorder}.
+     */
+    private Set<Character> observedSource = null;
+    private final Set<Character> observedCharacters = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * What the last update has seen, to find the changes since then.
+     */
+    private FieldMap seenMap = null;
+    private long seenFieldVersion = 0;
+    private Set<Integer> seenSafeCombinations = null;
+    private Point seenOperatorPosition = null;
+    private Point seenCatCoordinates = null;
+    private Point seenJanitorCoordinates = null;
+    /**
+     * If set, updates calculate all targets using this pool, see
+     * {@link #calculateTargets(ForkJoinPool)}.
+     */
+    private ForkJoinPool parallelPool = null;
 
     /**
      * Create a new homing guidance system which calculates valid points for an
@@ -99,7 +167,8 @@ public class HomingGuidance {
     }
 
     /**
-     * Updates the whole operation by recalculating all targets.
+     * Updates the whole operation, the targets will be calculated again on first
+     * access.
      *
      * @param env           The current state
      * @param matchconfig   The matchconfig
@@ -112,11 +181,133 @@ public class HomingGuidance {
         this.matchconfig = matchconfig;
         this.operator = operator;
         this.ownCharacters = ownCharacters;
+        this.walkingDistances = null;
         updateShortcuts();
         updateTargets();
+        observeChanges();
+        if (this.parallelPool != null) {
+            calculateTargets(this.parallelPool);
+        }
         magpie.writeInfo("Updated operation: " + this.toString(), "update");
     }
 
+    /**
+     * Updates the operation like
+     * {@link #updateOperation(State, Matchconfig, Character, List)}, but if the
+     * state, the matchconfig, the operator (and its position) and the own
+     * characters are the same as on the last update only the targets whose inputs
+     * changed are dropped. Moved characters and fields changed by their setters
+     * are noticed, everything else has to be reported by the changes.
+     *
+     * @param env           The current state
+     * @param matchconfig   The matchconfig
+     * @param operator      The character that targets are calculated for
+     * @param ownCharacters The characters the operator's faction owns
+     * @param changes       The changes since the last update which cannot be
+     *                      noticed
+     */
+    public void updateOperation(final State env, final Matchconfig matchconfig, final Character operator,
+            final List<UUID> ownCharacters, final HomingChanges changes) {
+        if (!isSameOperation(env, matchconfig, operator, ownCharacters)
+                || changes.getChangedCharacters().contains(operator)) {
+            updateOperation(env, matchconfig, operator, ownCharacters);
+            return;
+        }
+        final Set<HomingTargetType> outdated = EnumSet.noneOf(HomingTargetType.class);
+        if (!collectOutdated(changes, outdated)) {
+            // too much changed to tell
+            updateOperation(env, matchconfig, operator, ownCharacters);
+            return;
+        }
+        updateNeighbourCharacters();
+        this.calculatedTargets.keySet().removeAll(outdated);
+        observeChanges();
+        if (this.parallelPool != null) {
+            calculateTargets(this.parallelPool);
+        }
+        magpie.writeInfo("Updated operation, outdated: " + outdated, "update");
+    }
+
+    /**
+     * Sets the pool to calculate all targets with on every update, instead of
+     * calculating them on first access.
+     *
+     * @param pool The pool to use, null to calculate the targets on first access
+     */
+    public void setParallelPool(final ForkJoinPool pool) {
+        this.parallelPool = pool;
+    }
+
+    /**
+     * Calculates the targets of all target types not calculated so far. The
+     * expensive ones, checking lines of sight or searching the map, are
+     * calculated in parallel on the pool while the calling thread calculates the
+     * others. The calculations only read, so the state, its characters and the
+     * map must not be changed until this returns. The results are stored by the
+     * calling thread once all of them are done, so they do not depend on the
+     * order the calculations finished.
+     *
+     * @param pool The pool to run the expensive calculations in
+     */
+    public void calculateTargets(final ForkJoinPool pool) {
+        if (!this.operationValid) {
+            return;
+        }
+        final List<HomingTargetType> expensive = new ArrayList<>();
+        final List<HomingTargetType> cheap = new ArrayList<>();
+        for (final HomingTargetType aimTarget : HomingTargetType.values()) {
+            if (aimTarget == HomingTargetType.RETIRE || this.calculatedTargets.containsKey(aimTarget)) {
+                continue;
+            }
+            (isExpensive(aimTarget) && isCalculable(aimTarget) ? expensive : cheap).add(aimTarget);
+        }
+        // those are built on first use, the workers would race for them. The
+        // expensive types only check lines of sight from the operator.
+        this.state.occupantAt(getOperatorPosition());
+        getVisibility().prepare(getOperatorPosition());
+        if (expensive.contains(HomingTargetType.MOVEMENT) && isOperatorOnMap()) {
+            getWalkingDistances();
+        }
+
+        final ForkJoinTask<List<Set<Point>>> task = pool
+                .submit(() -> expensive.parallelStream().map(this::calcTargetsFor).collect(Collectors.toList()));
+        final Map<HomingTargetType, Set<Point>> cheapTargets = new EnumMap<>(HomingTargetType.class);
+        for (final HomingTargetType aimTarget : cheap) {
+            cheapTargets.put(aimTarget, calcTargetsFor(aimTarget));
+        }
+        final List<Set<Point>> expensiveTargets = task.join();
+        this.calculatedTargets.putAll(cheapTargets);
+        for (int i = 0; i < expensive.size(); i++) {
+            this.calculatedTargets.put(expensive.get(i), expensiveTargets.get(i));
+        }
+        magpie.writeInfo("Calculated " + (cheap.size() + expensive.size()) + " target types, " + expensive.size()
+                + " in parallel.", "update");
+    }
+
+    /**
+     * @param aimTarget The aim target
+     * @return True if calculating the targets checks lines of sight or searches
+     *         the map, so it is worth to be done in parallel
+     */
+    private static boolean isExpensive(final HomingTargetType aimTarget) {
+        switch (aimTarget) {
+            case MOVEMENT:
+            case MOLEDIE:
+            case BOWLER_BLADE:
+            case LASER_COMPACT:
+            case ROCKET_PEN:
+            case MOTHBALL_POUCH:
+            case FOG_TIN:
+            case GRAPPLE:
+            case JETPACK:
+            case OBSERVATION:
+            case PROPERTY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Returns whether targets for aim targets of given {@code type} are available.
      *
@@ -124,18 +315,27 @@ public class HomingGuidance {
      * @return Whether targets are available
      */
     public boolean targetsAvailableFor(final HomingOperationEnum type) {
-        return !getTargetsFor(type).isEmpty();
+        for (final HomingTargetType aimTarget : HomingTargetType.values()) {
+            if (aimTarget.getType() == type && targetsAvailableFor(aimTarget)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Returns whether targets for given aim target are available.
+     * Returns whether targets for given aim target are available. If the targets
+     * were not calculated yet, this will stop at the first one found.
      *
      * @param aimTarget The aim target
      * @return Whether targets are available
      */
     public boolean targetsAvailableFor(final HomingTargetType aimTarget) {
         final Set<Point> targets = this.calculatedTargets.get(aimTarget);
-        return targets != null && !targets.isEmpty();
+        if (targets != null) {
+            return !targets.isEmpty();
+        }
+        return isCalculable(aimTarget) && anyTargetFor(aimTarget);
     }
 
     /**
@@ -144,8 +344,8 @@ public class HomingGuidance {
      * @return Whether targets are available
      */
     public boolean targetsAvailable() {
-        for (final Set<Point> targets : this.calculatedTargets.values()) {
-            if (!targets.isEmpty()) {
+        for (final HomingTargetType aimTarget : HomingTargetType.values()) {
+            if (targetsAvailableFor(aimTarget)) {
                 return true;
             }
         }
@@ -160,30 +360,84 @@ public class HomingGuidance {
      */
     public Set<Point> getTargetsFor(final HomingOperationEnum aimTargetType) {
         final Set<Point> res = new HashSet<>();
-        this.calculatedTargets.keySet().stream().filter(t -> t.getType() == aimTargetType)
-                .forEach(t -> res.addAll(this.calculatedTargets.get(t)));
+        if (!this.operationValid) {
+            return res;
+        }
+        for (final HomingTargetType aimTarget : HomingTargetType.values()) {
+            if (aimTarget.getType() == aimTargetType && aimTarget != HomingTargetType.RETIRE) {
+                res.addAll(getTargetsFor(aimTarget));
+            }
+        }
         return res;
     }
 
     /**
      * Used for determining needed MP for moving operator's position to passed
-     * {@code end} point.
+     * {@code end} point. This is the number of steps on the shortest walkable
+     * path.
      *
      * @param end The end point
-     * @return The amount of MPs needed
+     * @return The amount of MPs needed, {@link Integer#MAX_VALUE} if the point
+     *         cannot be reached at all. If the operator is not on the map this
+     *         is the king distance.
      */
     public int getNeededMP(final Point end) {
-        return Point.getKingDistance(getOperatorPosition(), end);
+        if (!isOperatorOnMap()) {
+            return Point.getKingDistance(getOperatorPosition(), end);
+        }
+        final int distance = getWalkingDistances().getDistance(end);
+        return distance == DistanceField.UNREACHABLE ? Integer.MAX_VALUE : distance;
+    }
+
+    /**
+     * Distances of all fields to the operator's position. They will be calculated
+     * once per operation (and again if the operator moved or the walkability
+     * changed), the movement targets are taken from them as well.
+     *
+     * @return The distances, unlimited by the mp of the operator
+     *
+     * @throws IllegalArgumentException If the operator is not on the map
+     */
+    protected DistanceField getWalkingDistances() {
+        if (this.walkingDistances == null || !this.walkingDistances.getSource().equals(getOperatorPosition())) {
+            this.walkingDistances = DistanceField.compute(getMap(), getOperatorPosition(), DistanceField.NO_BUDGET);
+        }
+        return this.walkingDistances;
+    }
+
+    /**
+     * Checks if the line from start to end is in line of sight, without checking
+     * start and end themselves. Uses a {@link VisibilityIndex}, which is kept
+     * (and updated) as long as the state uses the same map.
+     *
+     * @param start The start point
+     * @param end   The end point
+     * @return True if no field between start and end blocks the line of sight
+     */
+    protected boolean isInLineOfSight(final Point start, final Point end) {
+        return getVisibility().isLineOfSight(start, end);
+    }
+
+    private VisibilityIndex getVisibility() {
+        if (this.visibility == null || this.visibility.getMap() != getMap()) {
+            this.visibility = VisibilityIndex.of(getMap());
+        }
+        return this.visibility;
     }
 
     /**
-     * Gets the calculated targets for a given aim target.
+     * Gets the targets for a given aim target, they are calculated on the first
+     * call after an update.
      *
      * @param aimTarget The aim target
-     * @return Set of possible targets
+     * @return Set of possible targets, null for {@link HomingTargetType#RETIRE} or
+     *         if there is no valid operation
      */
     public Set<Point> getTargetsFor(final HomingTargetType aimTarget) {
-        return this.calculatedTargets.get(aimTarget);
+        if (aimTarget == HomingTargetType.RETIRE || !this.operationValid) {
+            return null;
+        }
+        return this.calculatedTargets.computeIfAbsent(aimTarget, this::calcTargetsFor);
     }
 
     /**
@@ -203,6 +457,7 @@ public class HomingGuidance {
                 .append(",\nneighbourCharacterPositions: ")
                 .append(this.neighbourCharacters.stream().map(Character::getCoordinates).collect(Collectors.toList()))
                 .append(") {");
+        // only those calculated so far
         for (final Map.Entry<HomingTargetType, Set<Point>> entry : this.calculatedTargets.entrySet()) {
             stringBuilder.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
             stringBuilder.append(",");
@@ -222,7 +477,7 @@ public class HomingGuidance {
      */
     private Set<Point> calcTargetsFor(final HomingTargetType aimTarget) {
         // check if needed preconditions are satisfied
-        if (!checkTargetPreconditions(aimTarget)) {
+        if (!isCalculable(aimTarget)) {
             return Collections.emptySet();
         }
 
@@ -280,6 +535,54 @@ public class HomingGuidance {
         }
     }
 
+    /**
+     * Checks if there is any target for the aim target without collecting all of
+     * them, this is only worth it for those searching the whole map or doing a
+     * search of their own. The others are calculated and kept. Both ways go
+     * through the same {@code streamTargetsFor...} methods, so they agree even if
+     * these are overridden.
+     *
+     * @param aimTarget The aim target, assumed to be calculable
+     * @return True if there is at least one target
+     */
+    private boolean anyTargetFor(final HomingTargetType aimTarget) {
+        final Stream<Point> targets;
+        switch (aimTarget) {
+            case LASER_COMPACT:
+                targets = streamTargetsForLaserCompact();
+                break;
+            case ROCKET_PEN:
+                targets = streamTargetsForRocketPen();
+                break;
+            case JETPACK:
+                targets = streamTargetsForJetpack();
+                break;
+            case MOVEMENT:
+                targets = streamTargetsForMovement();
+                break;
+            case OBSERVATION:
+                targets = streamTargetsForObservation();
+                break;
+            default:
+                return !getTargetsFor(aimTarget).isEmpty();
+        }
+        return targets.findAny().isPresent();
+    }
+
+    /**
+     * Checks if targets may be calculated for the aim target at all, this includes
+     * the operator standing on a foggy field and
+     * {@link #checkTargetPreconditions(HomingTargetType)}.
+     *
+     * @param aimTarget The aim target
+     * @return True if there may be targets
+     */
+    private boolean isCalculable(final HomingTargetType aimTarget) {
+        return this.operationValid && aimTarget != HomingTargetType.RETIRE
+                && (!this.operatorInFog || aimTarget == HomingTargetType.MOVEMENT)
+                && checkTargetPreconditions(aimTarget);
+    }
+
     /**
      * This is a helper for {@link #calcTargetsFor(HomingTargetType)} and will
      * verify that all necessary preconditions for generating the target points are
@@ -410,13 +713,11 @@ public class HomingGuidance {
      * @return The possible targets
      */
     protected Set<Point> getTargetsForMoledieGadget() {
-        return getPointsInRange(getOperatorPosition(), matchconfig.getMoledieRange(), true).stream()
-                // all points moledie can hit by range and line of sight
-                .filter(p -> getMap().getSpecificField(p).getState() != FieldStateEnum.WALL)
-                // filter out the cats and janitors position
-                .filter(p -> !isCatOrJanitor(p))
-                // get all fields which are no walls
-                .collect(Collectors.toSet()); // collect them
+        // all points moledie can hit by range and line of sight
+        return getPointsInRange(matchconfig.getMoledieRange(), true,
+                // that are no walls and not the cats or janitors position
+                (x, y) -> getMap().getSpecificField(x, y).getState() != FieldStateEnum.WALL
+                        && !isCatOrJanitor(x, y));
     }
 
     /**
@@ -457,14 +758,13 @@ public class HomingGuidance {
         final Set<Point> targets = new HashSet<>();
         for (final Character c : getCharactersOnFieldWithoutCatAndJanitor()) {
             // check for line of sight and in range
-            final Path path = Point.getLine(getOperatorPosition(), c.getCoordinates());
-            if (notAValidBowlerBladeTarget(c, path)) {
+            if (notAValidBowlerBladeTarget(c)) {
                 continue;
             }
 
             // check if any other character is in line of sight
             // add only if nothing in the way :)
-            if (pathIsNotBlockedByCharacter(path)) {
+            if (pathIsNotBlockedByCharacter(Point.getLine(getOperatorPosition(), c.getCoordinates()))) {
                 targets.add(c.getCoordinates());
             }
         }
@@ -488,15 +788,12 @@ public class HomingGuidance {
     }
 
     private boolean anyCharacterOnThisPoint(final Point p) {
-        // check for janitor or cat
-        if (this.state.getJanitorCoordinates().equals(p) || this.state.getCatCoordinates().equals(p)) {
-            return true;
-        }
-        return this.state.getCharacters().stream().anyMatch(cc -> cc.getCoordinates().equals(p));
+        // any character, janitor or cat
+        return this.state.occupantAt(p) != State.Occupant.NONE;
     }
 
-    private boolean notAValidBowlerBladeTarget(final Character c, final Path path) {
-        return !path.isLineOfSight(getMap()) // is not line of sight or
+    private boolean notAValidBowlerBladeTarget(final Character c) {
+        return !isInLineOfSight(getOperatorPosition(), c.getCoordinates()) // is not line of sight or
                 || Point.getKingDistance(getOperatorPosition(), c.getCoordinates()) > this.matchconfig
                         .getBowlerBladeRange();// is outside of range
     }
@@ -563,21 +860,25 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForLaserCompact() {
-        final Set<Point> targets = new HashSet<>();
+        return streamTargetsForLaserCompact().collect(Collectors.toSet());
+    }
+
+    /**
+     * The targets of {@link #getTargetsForLaserCompact()}, checking for any of
+     * them will stop at the first one.
+     *
+     * @return Stream of possible targets, may contain duplicates
+     */
+    protected Stream<Point> streamTargetsForLaserCompact() {
         // check characters
-        for (final Character c : getCharactersOnFieldWithoutCatAndJanitor()) {
-            if (characterWithCocktailInLOS(c)) {
-                targets.add(c.getCoordinates());
-            }
-        }
-        // check fields, if they have a cocktail and are valid we will collect them as
-        // possible targets
-        targets.addAll(this.mapPoints.stream().filter(this::isCocktailOnField).collect(Collectors.toSet()));
-        return targets;
+        final Stream<Point> characters = getCharactersOnFieldWithoutCatAndJanitor().stream()
+                .filter(this::characterWithCocktailInLOS).map(Character::getCoordinates);
+        // check fields, if they have a cocktail and are valid they are possible targets
+        return Stream.concat(characters, this.mapPoints.stream().filter(this::isCocktailOnField));
     }
 
     private boolean characterWithCocktailInLOS(final Character c) {
-        return Point.getLine(getOperatorPosition(), c.getCoordinates()).isLineOfSight(getMap()) // character is in los
+        return isInLineOfSight(getOperatorPosition(), c.getCoordinates()) // character is in los
                 && c.getGadgetType(GadgetEnum.COCKTAIL).isPresent(); // character holds a cocktail
     }
 
@@ -595,23 +896,35 @@ public class HomingGuidance {
         final Field field = getMap().getSpecificField(p);
         return field != null // field is on the map; and holds a cocktail:
                 && field.getGadget() != null && field.getGadget().getGadget() == GadgetEnum.COCKTAIL
-                && Point.getLine(getOperatorPosition(), p).isLineOfSight(getMap()); // is in line of sight
+                && isInLineOfSight(getOperatorPosition(), p); // is in line of sight
     }
 
     /**
      * Gets targets for {@link GadgetEnum#ROCKET_PEN} gadget. Possible ones are in
      * line of sight.
      * <p>
-     * <i>NOTE:</i> Current implementation is hardly ineffective for large maps :c.
-     * Maybe it is more effective to launch a bfs search to retrieve all fields in
-     * los and stop if they are not in los anymore
+     * <i>NOTE:</i> The lines from the operator are only drawn for the first
+     * query, afterwards every point is a lookup in the {@link VisibilityIndex}.
      *
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForRocketPen() {
+        return streamTargetsForRocketPen().collect(Collectors.toSet());
+    }
+
+    /**
+     * The targets of {@link #getTargetsForRocketPen()}, checking for any of them
+     * will stop at the first one.
+     *
+     * @return Stream of possible targets
+     */
+    protected Stream<Point> streamTargetsForRocketPen() {
         return this.mapPoints.stream() // for all points on the map :/
-                .filter(p -> Point.getLine(getOperatorPosition(), p).isLineOfSight(getMap())) // check if in los
-                .collect(Collectors.toSet()); // collect
+                .filter(this::isInLineOfSightOfOperator); // check if in los
+    }
+
+    private boolean isInLineOfSightOfOperator(final Point p) {
+        return isInLineOfSight(getOperatorPosition(), p);
     }
 
     /**
@@ -634,10 +947,9 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForMothballPouch() {
-        return getPointsInRange(this.matchconfig.getMothballPouchRange(), true).stream()
-                // for all points in range and los of mothball; which are a fireplace:
-                .filter(p -> getMap().getSpecificField(p).getState() == FieldStateEnum.FIREPLACE)
-                .collect(Collectors.toSet()); // collect them
+        // for all points in range and los of mothball; which are a fireplace:
+        return getPointsInRange(this.matchconfig.getMothballPouchRange(), true,
+                (x, y) -> getMap().getSpecificField(x, y).getState() == FieldStateEnum.FIREPLACE);
     }
 
     /**
@@ -647,10 +959,9 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForFogTin() {
-        return getPointsInRange(this.matchconfig.getFogTinRange(), true).stream()
-                // for all points in range and los of mothball; which are no wall:
-                .filter(p -> getMap().getSpecificField(p).getState() != FieldStateEnum.WALL)
-                .collect(Collectors.toSet()); // collect them
+        // for all points in range and los of the fog tin; which are no wall:
+        return getPointsInRange(this.matchconfig.getFogTinRange(), true,
+                (x, y) -> getMap().getSpecificField(x, y).getState() != FieldStateEnum.WALL);
     }
 
     /**
@@ -661,10 +972,9 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForGrapple() {
-        return getPointsInRange(this.matchconfig.getGrappleRange(), true).stream()
-                // for all points in range and los of mothball; which have a gadget:
-                .filter(p -> getMap().getSpecificField(p).getGadget() != null) // embrace the formatter!
-                .collect(Collectors.toSet()); // collect them
+        // for all points in range and los of the grapple; which have a gadget:
+        return getPointsInRange(this.matchconfig.getGrappleRange(), true,
+                (x, y) -> getMap().getSpecificField(x, y).getGadget() != null);
     }
 
     /**
@@ -702,7 +1012,17 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForJetpack() {
-        return this.mapPoints.stream().filter(this::fieldCanBeJetpackTarget).collect(Collectors.toSet());
+        return streamTargetsForJetpack().collect(Collectors.toSet());
+    }
+
+    /**
+     * The targets of {@link #getTargetsForJetpack()}, checking for any of them
+     * will stop at the first one.
+     *
+     * @return Stream of possible targets
+     */
+    protected Stream<Point> streamTargetsForJetpack() {
+        return this.mapPoints.stream().filter(this::fieldCanBeJetpackTarget);
     }
 
     /**
@@ -790,15 +1110,26 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForMovement() {
-        // yeah this is sad, we simply use range 1 but if we can use longer paths in the
-        // future, just change it
-        return getPointsInRange(getOperatorPosition(), Math.min(this.operator.getMp(), 1), false).stream()
-                // for all points in mp range; that are walkable and not the current position:
-                .filter(this::isWalkableMovementTarget).collect(Collectors.toSet()); // collect them
+        return streamTargetsForMovement().collect(Collectors.toSet());
     }
 
-    private boolean isWalkableMovementTarget(final Point p) {
-        return getMap().getSpecificField(p).isWalkable() && !p.equals(getOperatorPosition());
+    /**
+     * The targets of {@link #getTargetsForMovement()}, checking for any of them
+     * will stop at the first one.
+     *
+     * @return Stream of possible targets
+     */
+    protected Stream<Point> streamTargetsForMovement() {
+        final int mp = this.operator.getMp();
+        if (mp <= 0) {
+            return Stream.empty();
+        }
+        if (!isOperatorOnMap()) {
+            // nothing to flood from, only the walkable fields next to the operator
+            return getPointsInRange(1, false, (x, y) -> getMap().getSpecificField(x, y).isWalkable()).stream();
+        }
+        // the same flood getNeededMP uses, all reached fields are walkable
+        return getWalkingDistances().getPointsWithin(1, mp).stream();
     }
 
     private Set<Point> getTargetsForPropertyAction() {
@@ -847,8 +1178,18 @@ public class HomingGuidance {
      * @return Set of possible targets
      */
     protected Set<Point> getTargetsForObservation() {
+        return streamTargetsForObservation().collect(Collectors.toSet());
+    }
+
+    /**
+     * The targets of {@link #getTargetsForObservation()}, checking for any of them
+     * will stop at the first one.
+     *
+     * @return Stream of possible targets
+     */
+    protected Stream<Point> streamTargetsForObservation() {
         return getCharactersOnFieldWithoutCatAndJanitor().stream().filter(this::isObservableCharacter)
-                .map(Character::getCoordinates).collect(Collectors.toSet());
+                .map(Character::getCoordinates);
     }
 
     /**
@@ -859,30 +1200,253 @@ public class HomingGuidance {
      * @return True if the character is observable (in los and not one of own)
      */
     private boolean isObservableCharacter(final Character c) {
-        return Point.getLine(getOperatorPosition(), c.getCoordinates()).isLineOfSight(getMap())
+        return isInLineOfSight(getOperatorPosition(), c.getCoordinates())
                 && isNotOneOfOwnCharacters(c);
     }
 
     /**
-     * This updates the {@link #calculatedTargets}.
+     * This drops the {@link #calculatedTargets}, they will be calculated on first
+     * access.
      */
     protected void updateTargets() {
         this.calculatedTargets.clear();
+        this.operationValid = false;
         // check if operator on foggy field
         final Field field = getMap().getSpecificField(getOperatorPosition());
         if (field == null) {
             throw new HomingException("Operator is not placed on a valid field! Field is null. Operator: " + operator);
         }
+        this.operatorInFog = field.isFoggy();
+        this.operationValid = true;
+    }
+
+    /**
+     * Checks if an update may be done incrementally, as it is the same operation
+     * as the last successful one.
+     */
+    private boolean isSameOperation(final State env, final Matchconfig matchconfig, final Character operator,
+            final List<UUID> ownCharacters) {
+        return this.operationValid && this.state == env && this.matchconfig == matchconfig
+                && this.operator == operator && Objects.equals(this.ownCharacters, ownCharacters)
+                && this.seenMap == env.getMap()
+                && isObserving(env.getCharacters())
+                && Objects.equals(this.seenOperatorPosition, getOperatorPosition());
+    }
+
+    /**
+     * Collects the target types whose inputs changed since the last update.
+     *
+     * @param changes  The reported changes
+     * @param outdated Will receive the outdated target types
+     * @return False if the changes cannot be told, e.g. the field of the operator
+     *         changed or the map dropped its changes
+     */
+    private boolean collectOutdated(final HomingChanges changes, final Set<HomingTargetType> outdated) {
+        final boolean[] operatorFieldChanged = { false };
+        final FieldMap map = getMap();
+        final boolean logged = map.forEachChangeSince(this.seenFieldVersion, (x, y, kinds) -> {
+            if ((kinds & FieldChangeLog.WALKABILITY) != 0) {
+                this.walkingDistances = null;
+            }
+            operatorFieldChanged[0] |= x == getOperatorPosition().getX() && y == getOperatorPosition().getY();
+            markChanged(x, y, true, outdated);
+        });
+        if (!logged || operatorFieldChanged[0]) {
+            return false;
+        }
+        for (final Point p : changes.getChangedFields()) {
+            if (p.equals(getOperatorPosition())) {
+                return false;
+            }
+            markChanged(p, true, outdated);
+        }
+        for (final Point p : this.movedCells) {
+            markChanged(p, false, outdated);
+        }
+        for (final Character c : changes.getChangedCharacters()) {
+            markChanged(c.getCoordinates(), false, outdated);
+        }
+        if (!Objects.equals(this.seenCatCoordinates, this.state.getCatCoordinates())) {
+            markChanged(this.seenCatCoordinates, false, outdated);
+            markChanged(this.state.getCatCoordinates(), false, outdated);
+        }
+        if (!Objects.equals(this.seenJanitorCoordinates, this.state.getJanitorCoordinates())) {
+            markChanged(this.seenJanitorCoordinates, false, outdated);
+            markChanged(this.state.getJanitorCoordinates(), false, outdated);
+        }
+        if (!Objects.equals(this.seenSafeCombinations, this.state.getMySafeCombinations())) {
+            outdated.add(HomingTargetType.SPY);
+        }
+        return true;
+    }
+
+    private void markChanged(final Point p, final boolean isField, final Set<HomingTargetType> outdated) {
+        if (p != null) {
+            markChanged(p.getX(), p.getY(), isField, outdated);
+        }
+    }
+
+    /**
+     * Marks all target types which depend on the given cell as outdated.
+     *
+     * @param x        X coordinate of the changed cell
+     * @param y        Y coordinate of the changed cell
+     * @param isField  True if the field changed, false if a character, the cat or
+     *                 the janitor on it changed
+     * @param outdated Will receive the outdated target types
+     */
+    private void markChanged(final int x, final int y, final boolean isField,
+            final Set<HomingTargetType> outdated) {
+        final Point operatorPosition = getOperatorPosition();
+        final int distance = Math.max(Math.abs(x - operatorPosition.getX()), Math.abs(y - operatorPosition.getY()));
         for (final HomingTargetType aimTarget : HomingTargetType.values()) {
-            if (aimTarget == HomingTargetType.RETIRE) {
-                // we do not want to add anything for retire target but this is needed for
-                // callbacks
-                continue;
+            if (distance <= (isField ? getFieldReach(aimTarget) : getCharacterReach(aimTarget))) {
+                outdated.add(aimTarget);
+            }
+        }
+    }
+
+    /**
+     * The distance to the operator up to which changed fields may change the
+     * targets of the given type, the fields passed by the lines of sight
+     * included.
+     *
+     * @param aimTarget The aim target
+     * @return The distance, -1 if fields do not matter
+     */
+    private int getFieldReach(final HomingTargetType aimTarget) {
+        switch (aimTarget) {
+            case GAMBLE:
+            case TECHNICOLOUR_PRISM:
+            case POISON_PILLS:
+            case TAKE_COCKTAIL:
+            case BANG_AND_BURN:
+                return 1;
+            case SPY:
+                // flaps and seals
+                return 2;
+            case MOLEDIE:
+                return this.matchconfig.getMoledieRange();
+            case BOWLER_BLADE:
+                return this.matchconfig.getBowlerBladeRange();
+            case MOTHBALL_POUCH:
+                return this.matchconfig.getMothballPouchRange();
+            case FOG_TIN:
+                return this.matchconfig.getFogTinRange();
+            case GRAPPLE:
+                return this.matchconfig.getGrappleRange();
+            case MOVEMENT:
+                return this.operator.getMp();
+            case LASER_COMPACT:
+            case ROCKET_PEN:
+            case JETPACK:
+            case OBSERVATION:
+            case PROPERTY:
+                return Integer.MAX_VALUE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * The distance to the operator up to which characters, the cat or the janitor
+     * entering, leaving or changing may change the targets of the given type.
+     *
+     * @param aimTarget The aim target
+     * @return The distance, -1 if characters do not matter
+     */
+    private int getCharacterReach(final HomingTargetType aimTarget) {
+        switch (aimTarget) {
+            case SPY:
+            case HAIRDRYER:
+            case POISON_PILLS:
+            case GAS_GLOSS:
+            case WIRETAP_WITH_EARPLUGS:
+            case CHICKEN_FEED:
+            case NUGGET:
+            case MIRROR_OF_WILDERNESS:
+            case COCKTAIL:
+                return 1;
+            case MOLEDIE:
+                return this.matchconfig.getMoledieRange();
+            case BOWLER_BLADE:
+                return this.matchconfig.getBowlerBladeRange();
+            case LASER_COMPACT:
+            case JETPACK:
+            case OBSERVATION:
+            case PROPERTY:
+                return Integer.MAX_VALUE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Remembers what the update has seen and starts recording the moves of the
+     * characters until the next one.
+     */
+    private void observeChanges() {
+        this.movedCells.clear();
+        final Set<Character> characters = this.state.getCharacters();
+        if (!isObserving(characters)) {
+            for (final Character c : this.observedCharacters) {
+                c.removeMoveObserver(this.moveRecorder);
+            }
+            this.observedSource = characters;
+            this.observedCharacters.clear();
+            if (characters != null) {
+                this.observedCharacters.addAll(characters);
+            }
+            for (final Character c : this.observedCharacters) {
+                c.addMoveObserver(this.moveRecorder);
+            }
+        }
+        this.seenMap = getMap();
+        getMap().trackFieldChanges();
+        this.seenFieldVersion = getMap().getChangeVersion();
+        final Set<Integer> safeCombinations = this.state.getMySafeCombinations();
+        this.seenSafeCombinations = safeCombinations == null ? null : new HashSet<>(safeCombinations);
+        this.seenOperatorPosition = copyOf(getOperatorPosition());
+        this.seenCatCoordinates = copyOf(this.state.getCatCoordinates());
+        this.seenJanitorCoordinates = copyOf(this.state.getJanitorCoordinates());
+    }
+
+    /**
+     * Checks if the {@link #moveRecorder} observes exactly the given characters,
+     * as characters may be added to or removed from the same set.
+     *
+     * @param characters The characters of the state
+     * @return True if all of them and no others are observed
+     */
+    private boolean isObserving(final Set<Character> characters) {
+        if (this.observedSource != characters) {
+            return false;
+        }
+        if (characters == null) {
+            return true;
+        }
+        if (characters.size() != this.observedCharacters.size()) {
+            return false;
+        }
+        for (final Character c : characters) {
+            if (!this.observedCharacters.contains(c)) {
+                return false;
             }
-            this.calculatedTargets.put(aimTarget,
-                    field.isFoggy() && aimTarget != HomingTargetType.MOVEMENT ? Collections.emptySet()
-                            : calcTargetsFor(aimTarget));
         }
+        return true;
+    }
+
+    private void characterMoved(final Character character, final Point from) {
+        if (from != null) {
+            this.movedCells.add(copyOf(from));
+        }
+        if (character.getCoordinates() != null) {
+            this.movedCells.add(copyOf(character.getCoordinates()));
+        }
+    }
+
+    private static Point copyOf(final Point p) {
+        return p == null ? null : ImmutablePoint.of(p);
     }
 
     /**
@@ -904,15 +1468,21 @@ public class HomingGuidance {
         // neighbours
         this.neighbours.clear();
         getMap().getNeighboursOfSpecificField(getOperatorPosition()).ifPresent(this.neighbours::addAll);
-        // neighbour characters
-        this.neighbourCharacters.clear();
-        this.neighbourCharacters.addAll(this.state.getCharacters().stream() // all characters registered
-                // which are neighbours, cat or janitor should never stay on such a field:
-                .filter(this::isNeighbourAndNeitherCatNorJanitor).collect(Collectors.toSet())); // collect and add
+        updateNeighbourCharacters();
     }
 
-    private boolean isNeighbourAndNeitherCatNorJanitor(final Character c) {
-        return this.neighbours.contains(c.getCoordinates()) && !isCatOrJanitor(c.getCoordinates());
+    /**
+     * Updates the {@link #neighbourCharacters}, the {@link #neighbours} are
+     * assumed to be up to date.
+     */
+    private void updateNeighbourCharacters() {
+        this.neighbourCharacters.clear();
+        for (final Point p : this.neighbours) {
+            // cat or janitor should never stay on the field of a character
+            if (!isCatOrJanitor(p)) {
+                this.state.getCharacterAt(p).ifPresent(this.neighbourCharacters::add);
+            }
+        }
     }
 
     private void populatePointToMapAndSafe(final int y, final int x) {
@@ -932,10 +1502,19 @@ public class HomingGuidance {
      * @return The points on the field that are in range
      */
     protected Set<Point> getPointsInRange(final Point start, final int range, final boolean inLineOfSight) {
-        return this.mapPoints.stream()
-                .filter(p -> Point.getKingDistance(start, p) <= range
-                        && (!inLineOfSight || Point.getLine(start, p).isLineOfSight(getMap(), false)))
-                .collect(Collectors.toSet());
+        if (range < 0) {
+            return new HashSet<>();
+        }
+        if (inLineOfSight) {
+            // a single sweep over the range
+            return FieldOfView.compute(getMap(), start, range).getVisiblePoints();
+        }
+        if (range > CircleStencil.MAX_CACHED_RADIUS) {
+            return this.mapPoints.stream().filter(p -> Point.getKingDistance(start, p) <= range)
+                    .collect(Collectors.toSet());
+        }
+        // the square around the start, clipped to the map
+        return CircleStencil.of(range, 0, DistanceMetric.KING).translateAndClip(start, getMap());
     }
 
     /**
@@ -951,6 +1530,41 @@ public class HomingGuidance {
         return getPointsInRange(getOperatorPosition(), range, inLineOfSight);
     }
 
+    /**
+     * Like {@link #getPointsInRange(int, boolean)}, but points are only created for
+     * the cells accepted by the filter.
+     *
+     * @param range         The range
+     * @param inLineOfSight Whether the points have to be in line of sight. This
+     *                      will not check for the start and end field to be in los!
+     * @param filter        Decides which of the cells in range are wanted, gets
+     *                      cells on the field only
+     * @return The points on the field that are in range and accepted
+     */
+    protected Set<Point> getPointsInRange(final int range, final boolean inLineOfSight,
+            final FieldOfView.CellFilter filter) {
+        if (range < 0) {
+            return new HashSet<>();
+        }
+        final Point start = getOperatorPosition();
+        if (inLineOfSight) {
+            // a single sweep over the range
+            return FieldOfView.compute(getMap(), start, range).getVisiblePoints(filter);
+        }
+        final Set<Point> points = new HashSet<>();
+        final Field[][] fields = getMap().getField();
+        // the square around the start, clipped to the map
+        for (int y = Math.max(0, start.getY() - range); y <= start.getY() + range && y < fields.length; y++) {
+            final int width = fields[y] == null ? 0 : fields[y].length;
+            for (int x = Math.max(0, start.getX() - range); x <= start.getX() + range && x < width; x++) {
+                if (filter.test(x, y)) {
+                    points.add(new Point(x, y));
+                }
+            }
+        }
+        return points;
+    }
+
     /**
      * Gets the characters from {@link #state} without cat and janitor. Additionally
      * this will verify that all characters passing are positioned on the field
@@ -982,6 +1596,12 @@ public class HomingGuidance {
      * @return True when the character is on the cat's or janitor's position, false
      *         otherwise
      */
+    private boolean isCatOrJanitor(final int x, final int y) {
+        final Point cc = this.state.getCatCoordinates();
+        final Point jc = this.state.getJanitorCoordinates();
+        return cc != null && cc.getX() == x && cc.getY() == y || jc != null && jc.getX() == x && jc.getY() == y;
+    }
+
     protected boolean isCatOrJanitor(final Character c) {
         return isCatOrJanitor(c.getCoordinates());
     }
@@ -1036,8 +1656,7 @@ public class HomingGuidance {
      * @return The character if on the given point
      */
     protected Optional<Character> getCharacterAtPosition(final Point p) {
-        return state == null ? Optional.empty()
-                : state.getCharacters().stream().filter(c -> c.getCoordinates().equals(p)).findAny();
+        return state == null ? Optional.empty() : state.getCharacterAt(p);
     }
 
     protected FieldMap getMap() {
@@ -1048,4 +1667,9 @@ public class HomingGuidance {
         return operator == null ? null : operator.getCoordinates();
     }
 
+    private boolean isOperatorOnMap() {
+        final Point position = getOperatorPosition();
+        return position != null && position.isOnField(getMap());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+
+/**
+ * Labels the connected components of the walkable cells of a field, so that
+ * connectivity can be answered by comparing two labels instead of searching a
+ * path. Cells are connected if one may step from either of them to the other,
+ * which for the plain neighbour rules is the case for all neighbours. With the
+ * rules of the {@link GridSearch} (the last cell of a row is never entered by a
+ * vertical or left-diagonal step) only the steps possible in both directions
+ * are used, so equal labels still guarantee a path, but different labels do
+ * not rule one out.
+ * <p>
+ * The index references the field and has to be told about every cell that
+ * became blocked or free using {@link #update(int, int)}. Freeing a cell merges
+ * the components around it by relabeling the smaller ones, blocking a cell
+ * relabels the component it was part of, as it may have been split.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+final class ComponentIndex<T extends IAmWalkable> {
+
+    /** Label of all cells that are blocked or not on the field */
+    static final int NONE = 0;
+
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final T[][] field;
+    private final boolean canWalkDiagonal;
+    private final boolean flying;
+    private final boolean legacyRules;
+    private final int width;
+    private final int[] labels;
+    // number of cells per label
+    private int[] sizes = new int[16];
+    private int nextLabel = NONE + 1;
+    private int componentCount = 0;
+    private int[] queue;
+
+    /**
+     * Labels the components of the given field.
+     *
+     * @param field           The field to label, rows may differ in length
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     * @param legacyRules     Use the neighbour rules of the {@link GridSearch}?
+     */
+    ComponentIndex(final T[][] field, final boolean canWalkDiagonal, final boolean flying,
+            final boolean legacyRules) {
+        this.field = field;
+        this.canWalkDiagonal = canWalkDiagonal;
+        this.flying = flying;
+        this.legacyRules = legacyRules;
+        int maxWidth = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        this.width = maxWidth;
+        this.labels = new int[maxWidth * field.length];
+        this.queue = new int[16];
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; field[y] != null && x < field[y].length; x++) {
+                if (labels[y * width + x] == NONE && isWalkable(x, y)) {
+                    final int label = newLabel();
+                    sizes[label] = flood(x, y, NONE, label);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return The label of the component containing the cell, {@link #NONE} if
+     *         it is blocked or not on the field
+     */
+    int getComponent(final int x, final int y) {
+        return exists(x, y) ? labels[y * width + x] : NONE;
+    }
+
+    /**
+     * @return Number of components
+     */
+    int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Checks if there is a path between the two cells, which have to be on the
+     * field. The start is always left, even if it is blocked. Without legacy
+     * rules the answer is exact, with them false may also mean that there is a
+     * path using steps only possible in one direction.
+     *
+     * @param startX            X coordinate of the start
+     * @param startY            Y coordinate of the start
+     * @param endX              X coordinate of the end
+     * @param endY              Y coordinate of the end
+     * @param blockedEndAllowed May the end be blocked?
+     *
+     * @return True if connected
+     */
+    boolean connected(final int startX, final int startY, final int endX, final int endY,
+            final boolean blockedEndAllowed) {
+        if (startX == endX && startY == endY) {
+            return true;
+        }
+        final boolean endWalkable = isWalkable(endX, endY);
+        if (!endWalkable && !blockedEndAllowed) {
+            return false;
+        }
+        if (isNeighbour(startX, startY, endX, endY) && canStep(startX, startY, endX, endY)) {
+            return true;
+        }
+        final int[] startLabels = isWalkable(startX, startY) ? new int[] { labels[startY * width + startX] }
+                : neighbourLabels(startX, startY, true);
+        final int[] endLabels = endWalkable ? new int[] { labels[endY * width + endX] }
+                : neighbourLabels(endX, endY, false);
+        for (final int startLabel : startLabels) {
+            for (final int endLabel : endLabels) {
+                if (startLabel != NONE && startLabel == endLabel) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updates the labels after the cell became blocked or free. Does nothing if
+     * its walkability did not change.
+     *
+     * @param x X coordinate of the changed cell
+     * @param y Y coordinate of the changed cell
+     */
+    void update(final int x, final int y) {
+        if (!exists(x, y)) {
+            return;
+        }
+        final int cell = y * width + x;
+        final boolean walkable = isWalkable(x, y);
+        if (walkable && labels[cell] == NONE) {
+            join(x, y);
+        } else if (!walkable && labels[cell] != NONE) {
+            split(x, y);
+        }
+    }
+
+    // the cell became free, merge all components around into the biggest one
+    private void join(final int x, final int y) {
+        int target = NONE;
+        for (int d = 0; d < moves(); d++) {
+            final int label = connectedLabel(x, y, d);
+            if (label != NONE && (target == NONE || sizes[label] > sizes[target])) {
+                target = label;
+            }
+        }
+        if (target == NONE) {
+            target = newLabel();
+        }
+        labels[y * width + x] = target;
+        sizes[target] += 1;
+        for (int d = 0; d < moves(); d++) {
+            final int label = connectedLabel(x, y, d);
+            if (label != NONE && label != target) {
+                sizes[target] += flood(x + DX[d], y + DY[d], label, target);
+                componentCount -= 1;
+            }
+        }
+    }
+
+    // the cell became blocked, the component may fall apart
+    private void split(final int x, final int y) {
+        final int cell = y * width + x;
+        final int old = labels[cell];
+        labels[cell] = NONE;
+        componentCount -= 1;
+        for (int d = 0; d < moves(); d++) {
+            final int nx = x + DX[d];
+            final int ny = y + DY[d];
+            if (getComponent(nx, ny) == old) {
+                final int label = newLabel();
+                sizes[label] = flood(nx, ny, old, label);
+            }
+        }
+    }
+
+    // label of a neighbour connected to the (free) cell, NONE if there is none
+    private int connectedLabel(final int x, final int y, final int direction) {
+        final int nx = x + DX[direction];
+        final int ny = y + DY[direction];
+        if (getComponent(nx, ny) == NONE || !canStep(x, y, nx, ny) || !canStep(nx, ny, x, y)) {
+            return NONE;
+        }
+        return labels[ny * width + nx];
+    }
+
+    // labels of the free neighbours the cell can be left to (or entered from)
+    private int[] neighbourLabels(final int x, final int y, final boolean leaving) {
+        final int[] result = new int[moves()];
+        for (int d = 0; d < result.length; d++) {
+            final int nx = x + DX[d];
+            final int ny = y + DY[d];
+            final boolean step = leaving ? canStep(x, y, nx, ny) : canStep(nx, ny, x, y);
+            result[d] = step ? getComponent(nx, ny) : NONE;
+        }
+        return result;
+    }
+
+    /**
+     * Relabels all cells labeled 'from' connected to the given cell.
+     *
+     * @return Number of relabeled cells
+     */
+    private int flood(final int x, final int y, final int from, final int to) {
+        int head = 0;
+        int tail = 0;
+        int count = 0;
+        labels[y * width + x] = to;
+        queue[tail++] = y * width + x;
+        while (head < tail) {
+            final int cell = queue[head++];
+            count += 1;
+            final int cx = cell % width;
+            final int cy = cell / width;
+            for (int d = 0; d < moves(); d++) {
+                final int nx = cx + DX[d];
+                final int ny = cy + DY[d];
+                if (!exists(nx, ny)) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (labels[next] != from || from == NONE && !isWalkable(nx, ny) || !canStep(cx, cy, nx, ny)
+                        || !canStep(nx, ny, cx, cy)) {
+                    continue;
+                }
+                labels[next] = to;
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, Math.min(queue.length * 2, labels.length));
+                }
+                queue[tail++] = next;
+            }
+        }
+        return count;
+    }
+
+    private int newLabel() {
+        if (nextLabel == sizes.length) {
+            sizes = Arrays.copyOf(sizes, sizes.length * 2);
+        }
+        componentCount += 1;
+        return nextLabel++;
+    }
+
+    private int moves() {
+        return canWalkDiagonal ? DX.length : 4;
+    }
+
+    private boolean exists(final int x, final int y) {
+        return y >= 0 && y < field.length && x >= 0 && field[y] != null && x < field[y].length;
+    }
+
+    private boolean isWalkable(final int x, final int y) {
+        return exists(x, y) && (flying || !field[y][x].blocksWay());
+    }
+
+    private boolean isNeighbour(final int x, final int y, final int otherX, final int otherY) {
+        final int dx = Math.abs(x - otherX);
+        final int dy = Math.abs(y - otherY);
+        return canWalkDiagonal ? Math.max(dx, dy) == 1 : dx + dy == 1;
+    }
+
+    // may one step from the first to the second, neighbouring cell?
+    private boolean canStep(final int fromX, final int fromY, final int toX, final int toY) {
+        if (!exists(toX, toY)) {
+            return false;
+        }
+        final int dx = toX - fromX;
+        final int dy = toY - fromY;
+        return !legacyRules || toX < (dy != 0 && dx <= 0 ? field[toY].length - 1 : field[toY].length);
+    }
+
+}
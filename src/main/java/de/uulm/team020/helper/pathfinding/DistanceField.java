@@ -0,0 +1,263 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Single-source distance field (often called flow field). A single
+ * breadth-first search from the source calculates the number of steps needed
+ * to reach every cell of the field and the direction it was entered from.
+ * Afterwards the distance to any cell can be read in constant time and the path
+ * to it may be rebuilt in time linear to its length. This is a lot cheaper than
+ * running the {@link Pathfinder} for many destinations of the same origin.
+ * <p>
+ * Rows may differ in length, missing cells are treated as being off the field.
+ * If not flying, blocked cells are never entered, the source itself is always
+ * left. The search can be limited by a budget (e.g. the MP of a character),
+ * cells further away will be unreachable.
+ * <p>
+ * The field is a snapshot, later changes to the map will not be reflected.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class DistanceField {
+
+    /** Distance of all cells not reachable (within the budget) */
+    public static final int UNREACHABLE = -1;
+    /** Use as budget if the search should not be limited */
+    public static final int NO_BUDGET = Integer.MAX_VALUE;
+
+    private static final byte NO_DIRECTION = -1;
+    // straight moves first, diagonals afterwards
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final Point source;
+    private final int width;
+    private final int height;
+    private final int budget;
+    private final int[] distances;
+    // direction index of the step leading into the cell
+    private final byte[] directions;
+    private final int reachable;
+
+    private <T extends IAmWalkable> DistanceField(final T[][] field, final Point source,
+            final boolean canWalkDiagonal, final boolean flying, final int budget) {
+        this.source = new Point(source);
+        this.height = field.length;
+        int maxWidth = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        this.width = maxWidth;
+        this.budget = budget;
+        this.distances = new int[width * height];
+        this.directions = new byte[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(directions, NO_DIRECTION);
+        this.reachable = flood(field, canWalkDiagonal, flying);
+    }
+
+    /**
+     * Calculates the distance field for the given source.
+     *
+     * @param <T>             Type of the fields
+     * @param field           The field to search on
+     * @param source          The source, has to be on the field
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     * @param budget          Maximum distance to search for, use
+     *                        {@link #NO_BUDGET} for no limit
+     *
+     * @return The calculated field
+     *
+     * @throws IllegalArgumentException If the source is not on the field or the
+     *                                  budget is negative
+     */
+    public static <T extends IAmWalkable> DistanceField compute(final T[][] field, final Point source,
+            final boolean canWalkDiagonal, final boolean flying, final int budget) {
+        if (!Objects.requireNonNull(source, "Source").isOnField(field)) {
+            throw new IllegalArgumentException("Source " + source + " has to be on the field.");
+        }
+        if (budget < 0) {
+            throw new IllegalArgumentException("Budget (" + budget + ") may not be negative.");
+        }
+        return new DistanceField(field, source, canWalkDiagonal, flying, budget);
+    }
+
+    /**
+     * Calculates the distance field for the given source, walking diagonal and not
+     * flying.
+     *
+     * @param <T>    Type of the fields
+     * @param field  The field to search on
+     * @param source The source, has to be on the field
+     * @param budget Maximum distance to search for, use {@link #NO_BUDGET} for no
+     *               limit
+     *
+     * @return The calculated field
+     *
+     * @see #compute(IAmWalkable[][], Point, boolean, boolean, int)
+     */
+    public static <T extends IAmWalkable> DistanceField compute(final AbstractGameField<T> field,
+            final Point source, final int budget) {
+        return compute(field.getField(), source, true, false, budget);
+    }
+
+    private <T extends IAmWalkable> int flood(final T[][] field, final boolean canWalkDiagonal,
+            final boolean flying) {
+        final int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        final int start = source.getY() * width + source.getX();
+        distances[start] = 0;
+        queue[tail++] = start;
+        final int moves = canWalkDiagonal ? DX.length : 4;
+        while (head < tail) {
+            final int node = queue[head++];
+            final int distance = distances[node];
+            if (distance >= budget) {
+                continue;
+            }
+            final int x = node % width;
+            final int y = node / width;
+            for (int d = 0; d < moves; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (ny < 0 || ny >= height || nx < 0 || field[ny] == null || nx >= field[ny].length) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (distances[next] != UNREACHABLE || !flying && field[ny][nx].blocksWay()) {
+                    continue;
+                }
+                distances[next] = distance + 1;
+                directions[next] = (byte) d;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    private boolean isInside(final int x, final int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    public Point getSource() {
+        return new Point(source);
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return Number of reachable cells, including the source
+     */
+    public int getReachableCount() {
+        return reachable;
+    }
+
+    /**
+     * Get the distance of a cell to the source.
+     *
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return The number of steps needed, {@link #UNREACHABLE} if not reachable
+     *         (within the budget)
+     */
+    public int getDistance(final int x, final int y) {
+        return isInside(x, y) ? distances[y * width + x] : UNREACHABLE;
+    }
+
+    /**
+     * Get the distance of a cell to the source.
+     *
+     * @param target The cell
+     *
+     * @return The number of steps needed, {@link #UNREACHABLE} if not reachable
+     *         (within the budget)
+     */
+    public int getDistance(final Point target) {
+        return getDistance(target.getX(), target.getY());
+    }
+
+    /**
+     * @param target The cell
+     * @return True if the cell can be reached (within the budget)
+     */
+    public boolean isReachable(final Point target) {
+        return getDistance(target) != UNREACHABLE;
+    }
+
+    /**
+     * Rebuilds the path from the source to the target by following the stored
+     * directions back to the source.
+     *
+     * @param target The cell to get the path to
+     *
+     * @return The path starting with the source, {@link Path#INVALID_PATH} if the
+     *         target is not reachable
+     */
+    public Path getPath(final Point target) {
+        final int distance = getDistance(target);
+        if (distance == UNREACHABLE) {
+            return Path.INVALID_PATH;
+        }
+        final int[] xs = new int[distance + 1];
+        final int[] ys = new int[distance + 1];
+        int x = target.getX();
+        int y = target.getY();
+        for (int i = distance; i >= 0; i--) {
+            xs[i] = x;
+            ys[i] = y;
+            final byte direction = directions[y * width + x];
+            if (direction != NO_DIRECTION) {
+                x -= DX[direction];
+                y -= DY[direction];
+            }
+        }
+        final Path path = new Path();
+        for (int i = 0; i <= distance; i++) {
+            path.append(new WayPoint(xs[i], ys[i]));
+        }
+        return path;
+    }
+
+    /**
+     * Collects all cells reachable with at least {@code min} and at most
+     * {@code max} steps.
+     *
+     * @param min Minimum distance, inclusive
+     * @param max Maximum distance, inclusive
+     *
+     * @return The cells, ordered by their index
+     */
+    public List<Point> getPointsWithin(final int min, final int max) {
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < distances.length; i++) {
+            final int distance = distances[i];
+            if (distance != UNREACHABLE && distance >= min && distance <= max) {
+                points.add(new Point(i % width, i / width));
+            }
+        }
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceField [source=" + source + ", budget=" + budget + ", reachable=" + reachable + "]";
+    }
+
+}
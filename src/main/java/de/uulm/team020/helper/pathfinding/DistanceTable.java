@@ -0,0 +1,413 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.logging.Magpie;
+
+/**
+ * Precomputed walking distances between all pairs of walkable cells of a field
+ * which does not change, like a scenario for the whole match. Afterwards every
+ * distance and connectivity query is a single array lookup, a
+ * {@link Pathfinder} is only needed to get the actual steps.
+ * <p>
+ * Only walkable cells are indexed, queries involving a blocked cell (or one off
+ * the field) are always {@link #UNREACHABLE}. As walking is symmetric only one
+ * half of the matrix is stored, each entry using a {@code short}. The table is
+ * built by one breadth-first search per cell, running in parallel. It may be
+ * written next to the scenario file (see {@link #fileFor(File)}) and read back
+ * on the next start.
+ * <p>
+ * The table is a snapshot, later changes to the field will not be reflected.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public final class DistanceTable {
+
+    private static Magpie magpie = Magpie.createMagpieSafe("Pathfinder");
+
+    /** Distance of all pairs not connected */
+    public static final int UNREACHABLE = -1;
+    /** Maximum number of walkable cells, limits the table to 64 MiB */
+    public static final int MAX_CELLS = 1 << 13;
+    /** Suffix of the file a table is stored in, next to the scenario */
+    public static final String FILE_SUFFIX = ".distances";
+
+    private static final int MAGIC = 0x4E545444; // NTTD
+    private static final int FORMAT_VERSION = 1;
+    // magic, version, diagonal and height
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + 1;
+    private static final int NO_CELL = -1;
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final boolean canWalkDiagonal;
+    private final int[] rowLengths;
+    private final int width;
+    // cell (y * width + x) to the index of the walkable cell
+    private final int[] cells;
+    private final int cellCount;
+    // upper triangle without the diagonal, row by row
+    private final short[] distances;
+
+    private DistanceTable(final boolean canWalkDiagonal, final int[] rowLengths, final boolean[] walkable) {
+        this.canWalkDiagonal = canWalkDiagonal;
+        this.rowLengths = rowLengths;
+        this.width = Arrays.stream(rowLengths).max().orElse(0);
+        this.cells = new int[width * rowLengths.length];
+        int count = 0;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = walkable[i] ? count++ : NO_CELL;
+        }
+        if (count > MAX_CELLS) {
+            throw new IllegalArgumentException(
+                    "Field has " + count + " walkable cells, tables are limited to " + MAX_CELLS + ".");
+        }
+        this.cellCount = count;
+        this.distances = new short[(int) ((long) count * (count - 1) / 2)];
+    }
+
+    /**
+     * Builds the table for the given field, using all available processors.
+     *
+     * @param <T>             Type of the fields
+     * @param field           The field to build the table for
+     * @param canWalkDiagonal Allow diagonal movement?
+     *
+     * @return The table
+     *
+     * @throws IllegalArgumentException If the field has more than
+     *                                  {@link #MAX_CELLS} walkable cells
+     */
+    public static <T extends IAmWalkable> DistanceTable compute(final T[][] field, final boolean canWalkDiagonal) {
+        final int[] rowLengths = new int[field.length];
+        int maxWidth = 0;
+        for (int y = 0; y < field.length; y++) {
+            rowLengths[y] = field[y] == null ? 0 : field[y].length;
+            maxWidth = Math.max(maxWidth, rowLengths[y]);
+        }
+        final boolean[] walkable = new boolean[maxWidth * field.length];
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < rowLengths[y]; x++) {
+                walkable[y * maxWidth + x] = !field[y][x].blocksWay();
+            }
+        }
+        final DistanceTable table = new DistanceTable(canWalkDiagonal, rowLengths, walkable);
+        table.fill();
+        return table;
+    }
+
+    /**
+     * Builds the table for the given field, walking diagonal.
+     *
+     * @param <T>   Type of the fields
+     * @param field The field to build the table for
+     *
+     * @return The table
+     *
+     * @see #compute(IAmWalkable[][], boolean)
+     */
+    public static <T extends IAmWalkable> DistanceTable compute(final AbstractGameField<T> field) {
+        return compute(field.getField(), true);
+    }
+
+    private void fill() {
+        // cell-index to position, the other way around
+        final int[] positions = new int[cellCount];
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != NO_CELL) {
+                positions[cells[i]] = i;
+            }
+        }
+        final ThreadLocal<int[][]> scratch = ThreadLocal
+                .withInitial(() -> new int[][] { new int[cells.length], new int[cellCount] });
+        IntStream.range(0, cellCount).parallel().forEach(source -> {
+            final int[][] buffers = scratch.get();
+            flood(source, positions[source], buffers[0], buffers[1]);
+        });
+    }
+
+    // breadth-first search, writes the distances to all cells with a greater index
+    private void flood(final int source, final int start, final int[] seen, final int[] queue) {
+        Arrays.fill(seen, UNREACHABLE);
+        final int rowStart = rowStart(source);
+        Arrays.fill(distances, rowStart, rowStart + cellCount - source - 1, (short) UNREACHABLE);
+        final int moves = canWalkDiagonal ? DX.length : 4;
+        int head = 0;
+        int tail = 0;
+        seen[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            final int node = queue[head++];
+            final int distance = seen[node];
+            final int cell = cells[node];
+            if (cell > source) {
+                distances[rowStart + cell - source - 1] = (short) distance;
+            }
+            final int x = node % width;
+            final int y = node / width;
+            for (int d = 0; d < moves; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (ny < 0 || ny >= rowLengths.length || nx < 0 || nx >= rowLengths[ny]) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (seen[next] == UNREACHABLE && cells[next] != NO_CELL) {
+                    seen[next] = distance + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    private int rowStart(final int row) {
+        // sum of (cellCount - 1 - r) for all rows r before
+        return (int) ((long) row * (2L * cellCount - row - 1) / 2);
+    }
+
+    private int cellAt(final int x, final int y) {
+        if (y < 0 || y >= rowLengths.length || x < 0 || x >= rowLengths[y]) {
+            return NO_CELL;
+        }
+        return cells[y * width + x];
+    }
+
+    /**
+     * Get the walking distance between two cells.
+     *
+     * @param startX X coordinate of the start
+     * @param startY Y coordinate of the start
+     * @param endX   X coordinate of the end
+     * @param endY   Y coordinate of the end
+     *
+     * @return The number of steps needed, {@link #UNREACHABLE} if not connected
+     *         or one of the cells is blocked
+     */
+    public int getDistance(final int startX, final int startY, final int endX, final int endY) {
+        final int a = cellAt(startX, startY);
+        final int b = cellAt(endX, endY);
+        if (a == NO_CELL || b == NO_CELL) {
+            return UNREACHABLE;
+        }
+        if (a == b) {
+            return 0;
+        }
+        final int low = Math.min(a, b);
+        final int high = Math.max(a, b);
+        return distances[rowStart(low) + high - low - 1];
+    }
+
+    /**
+     * Get the walking distance between two cells.
+     *
+     * @param start The start
+     * @param end   The end
+     *
+     * @return The number of steps needed, {@link #UNREACHABLE} if not connected
+     *         or one of the cells is blocked
+     */
+    public int getDistance(final Point start, final Point end) {
+        return getDistance(start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    /**
+     * Checks if there is a path between the two points
+     *
+     * @param start The start of the path
+     * @param end   The end of the path
+     *
+     * @return True if both are walkable and connected
+     */
+    public boolean connected(final Point start, final Point end) {
+        return getDistance(start, end) != UNREACHABLE;
+    }
+
+    /**
+     * Checks if the table was built for a field of the same shape and with the
+     * same walkable cells as the given one.
+     *
+     * @param <T>   Type of the fields
+     * @param field The field to check
+     *
+     * @return True if the table is valid for the field
+     */
+    public <T extends IAmWalkable> boolean matches(final T[][] field) {
+        if (field.length != rowLengths.length) {
+            return false;
+        }
+        for (int y = 0; y < field.length; y++) {
+            final int length = field[y] == null ? 0 : field[y].length;
+            if (length != rowLengths[y]) {
+                return false;
+            }
+            for (int x = 0; x < length; x++) {
+                if (field[y][x].blocksWay() == (cells[y * width + x] != NO_CELL)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public boolean canWalkDiagonal() {
+        return canWalkDiagonal;
+    }
+
+    /**
+     * @return Number of walkable cells indexed
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Get the file a table for the given scenario should be stored in.
+     *
+     * @param scenarioFile The file of the scenario
+     *
+     * @return The file next to it, with {@link #FILE_SUFFIX} appended
+     */
+    public static File fileFor(final File scenarioFile) {
+        return new File(scenarioFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Writes the table to the given file, overwriting it.
+     *
+     * @param file The file to write to
+     *
+     * @throws IOException If writing fails
+     */
+    public void writeTo(final File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeBoolean(canWalkDiagonal);
+            out.writeInt(rowLengths.length);
+            for (final int length : rowLengths) {
+                out.writeInt(length);
+            }
+            for (final int cell : cells) {
+                out.writeBoolean(cell != NO_CELL);
+            }
+            for (final short distance : distances) {
+                out.writeShort(distance);
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeTo(File)}.
+     *
+     * @param file The file to read from
+     *
+     * @return The table
+     *
+     * @throws IOException If reading fails or the file does not hold a table,
+     *                     including tables too big for the file
+     */
+    public static DistanceTable readFrom(final File file) throws IOException {
+        // bytes left after the header, checked before anything gets allocated
+        long remaining = file.length() - HEADER_BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("File " + file + " does not contain a distance table of this version.");
+            }
+            final boolean diagonal = in.readBoolean();
+            final int height = in.readInt();
+            if (height < 0 || height > Short.MAX_VALUE || (long) height * Integer.BYTES > remaining) {
+                throw new IOException("File " + file + " contains an invalid height: " + height);
+            }
+            remaining -= (long) height * Integer.BYTES;
+            final int[] rowLengths = new int[height];
+            int maxWidth = 0;
+            for (int y = 0; y < height; y++) {
+                rowLengths[y] = in.readInt();
+                if (rowLengths[y] < 0 || rowLengths[y] > Short.MAX_VALUE) {
+                    throw new IOException("File " + file + " contains an invalid row length: " + rowLengths[y]);
+                }
+                maxWidth = Math.max(maxWidth, rowLengths[y]);
+            }
+            final long cellCount = (long) maxWidth * height;
+            if (cellCount > remaining) {
+                throw new IOException("File " + file + " is too short for " + cellCount + " cells.");
+            }
+            remaining -= cellCount;
+            final boolean[] walkable = new boolean[(int) cellCount];
+            long walkableCount = 0;
+            for (int i = 0; i < walkable.length; i++) {
+                walkable[i] = in.readBoolean();
+                if (walkable[i]) {
+                    walkableCount++;
+                }
+            }
+            if (walkableCount <= MAX_CELLS
+                    && walkableCount * (walkableCount - 1) / 2 * Short.BYTES > remaining) {
+                throw new IOException("File " + file + " is too short for " + walkableCount + " walkable cells.");
+            }
+            final DistanceTable table;
+            try {
+                table = new DistanceTable(diagonal, rowLengths, walkable);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException("File " + file + " contains an invalid table.", ex);
+            }
+            for (int i = 0; i < table.distances.length; i++) {
+                table.distances[i] = in.readShort();
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Reads the table stored next to the scenario file, if it is valid for the
+     * given field. Otherwise the table is built and stored for the next time,
+     * failing to do so will only be logged.
+     *
+     * @param <T>          Type of the fields
+     * @param scenarioFile The file the field was loaded from
+     * @param field        The field
+     *
+     * @return The table for the field, walking diagonal
+     */
+    public static <T extends IAmWalkable> DistanceTable loadOrCompute(final File scenarioFile,
+            final AbstractGameField<T> field) {
+        final File file = fileFor(scenarioFile);
+        if (file.isFile()) {
+            try {
+                final DistanceTable table = readFrom(file);
+                if (table.canWalkDiagonal && table.matches(field.getField())) {
+                    return table;
+                }
+                magpie.writeInfo("Distance table " + file + " is outdated, rebuilding.", "Load");
+            } catch (IOException ex) {
+                magpie.writeException(ex, "Load");
+            }
+        }
+        final DistanceTable table = compute(field);
+        try {
+            table.writeTo(file);
+        } catch (IOException ex) {
+            magpie.writeException(ex, "Store");
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceTable [cells=" + cellCount + ", diagonal=" + canWalkDiagonal + "]";
+    }
+
+}
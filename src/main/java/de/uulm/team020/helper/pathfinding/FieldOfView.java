@@ -0,0 +1,248 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import de.uulm.team020.datatypes.IAmTransparent;
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.datatypes.util.point_helper.PointAlgorithms;
+
+/**
+ * All cells of a map visible from a source within a king-distance range,
+ * calculated in a single sweep. Visible means
+ * {@link Path#isLineOfSight(Path, AbstractGameField)} holds for the line drawn
+ * by {@link Point#getLine(Point, Point)}, so neither the source nor the cell
+ * itself are checked.
+ * <p>
+ * Every cell blocking the line of sight within the range casts a shadow, which
+ * contains all cells whose line may pass the blocking one. Only the lines to
+ * cells in a shadow are walked, all others are visible without further checks.
+ * As the lines are drawn from the source, the shadows are a superset of the
+ * cells actually hidden, which keeps the result identical to checking every
+ * line.
+ * <p>
+ * The result is a snapshot, later changes to the map will not be reflected.
+ *
+ * @author Florian Sihler
+ * @version 1.2, 07/11/2020
+ */
+public final class FieldOfView {
+
+    /**
+     * Decides about a cell by its coordinates, so no point has to be created
+     */
+    @FunctionalInterface
+    public interface CellFilter {
+        /**
+         * @param x X coordinate of the cell
+         * @param y Y coordinate of the cell
+         *
+         * @return True if the cell is wanted
+         */
+        boolean test(int x, int y);
+    }
+
+    private final Point source;
+    private final int range;
+    // bounds of the range clipped to the map
+    private final int minX;
+    private final int minY;
+    private final int boxWidth;
+    private final int boxHeight;
+    private final long[] visible;
+    private int visibleCount;
+
+    private FieldOfView(final Point source, final int range, final int minX, final int minY, final int maxX,
+            final int maxY) {
+        this.source = new Point(source);
+        this.range = range;
+        this.minX = minX;
+        this.minY = minY;
+        this.boxWidth = Math.max(0, maxX - minX + 1);
+        this.boxHeight = Math.max(0, maxY - minY + 1);
+        this.visible = new long[(boxWidth * boxHeight + 63) / 64];
+    }
+
+    /**
+     * Calculates the cells visible from the source.
+     *
+     * @param map    The map to look at
+     * @param source The cell to look from, may be outside of the map
+     * @param range  Maximum king-distance of the cells to the source
+     *
+     * @return The visible cells
+     *
+     * @throws IllegalArgumentException If the range is negative
+     */
+    public static FieldOfView compute(final AbstractGameField<? extends IAmTransparent> map, final Point source,
+            final int range) {
+        Objects.requireNonNull(source, "Source");
+        if (range < 0) {
+            throw new IllegalArgumentException("The range must be >= 0, not: " + range);
+        }
+        final IAmTransparent[][] field = map.getField();
+        int maxWidth = 0;
+        for (final IAmTransparent[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        final int minX = (int) Math.max(0, (long) source.getX() - range);
+        final int minY = (int) Math.max(0, (long) source.getY() - range);
+        final int maxX = (int) Math.min(maxWidth - 1L, (long) source.getX() + range);
+        final int maxY = (int) Math.min(field.length - 1L, (long) source.getY() + range);
+        final FieldOfView view = new FieldOfView(source, range, minX, minY, maxX, maxY);
+        view.sweep(map, source.isOnField(map));
+        return view;
+    }
+
+    private void sweep(final AbstractGameField<? extends IAmTransparent> map, final boolean sourceOnMap) {
+        final int size = boxWidth * boxHeight;
+        if (size == 0) {
+            return;
+        }
+        final int sx = source.getX();
+        final int sy = source.getY();
+        // cells hidden or in a shadow, lines of all others do not pass a blocking cell
+        final long[] shadowed = new long[visible.length];
+        if (sourceOnMap) {
+            // all lines stay within the range, so only blocking cells within matter
+            for (final int blocking : findBlocking(map)) {
+                castShadow(sx, sy, minX + blocking % boxWidth, minY + blocking / boxWidth, shadowed);
+            }
+        } else {
+            // lines may leave the map anywhere
+            Arrays.fill(shadowed, -1L);
+        }
+        for (int index = 0; index < size; index++) {
+            final int x = minX + index % boxWidth;
+            final int y = minY + index / boxWidth;
+            if (!isInMap(map, x, y)) {
+                continue;
+            }
+            if ((shadowed[index >>> 6] & (1L << index)) == 0 || PointAlgorithms.walkLine(sx, sy, x, y,
+                    (cx, cy) -> (cx == sx && cy == sy) || (cx == x && cy == y) || isTransparent(map, cx, cy))) {
+                visible[index >>> 6] |= 1L << index;
+                visibleCount += 1;
+            }
+        }
+    }
+
+    private List<Integer> findBlocking(final AbstractGameField<? extends IAmTransparent> map) {
+        final List<Integer> blocking = new ArrayList<>();
+        for (int index = 0; index < boxWidth * boxHeight; index++) {
+            final int x = minX + index % boxWidth;
+            final int y = minY + index / boxWidth;
+            if ((x != source.getX() || y != source.getY()) && !isTransparent(map, x, y)) {
+                blocking.add(index);
+            }
+        }
+        return blocking;
+    }
+
+    // marks all cells whose line from the source may pass the blocking cell
+    private void castShadow(final int sx, final int sy, final int bx, final int by, final long[] shadowed) {
+        // the line has to pass the blocking cell, so the cell lies beyond it
+        final int fromX = bx > sx ? bx : minX;
+        final int toX = bx < sx ? bx : minX + boxWidth - 1;
+        final int fromY = by > sy ? by : minY;
+        final int toY = by < sy ? by : minY + boxHeight - 1;
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                if ((x != bx || y != by) && VisibilityIndex.mayPass(sx, sy, x, y, bx, by)) {
+                    final int index = (y - minY) * boxWidth + (x - minX);
+                    shadowed[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+    }
+
+    private static boolean isInMap(final AbstractGameField<?> map, final int x, final int y) {
+        final Object[] row = map.getField()[y];
+        return row != null && x < row.length;
+    }
+
+    private static boolean isTransparent(final AbstractGameField<? extends IAmTransparent> map, final int x,
+            final int y) {
+        final IAmTransparent field = map.getSpecificField(x, y);
+        return field != null && !field.blocksLOS();
+    }
+
+    public Point getSource() {
+        return new Point(source);
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    /**
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return True if the cell is on the map, within the range and visible
+     */
+    public boolean isVisible(final int x, final int y) {
+        if (x < minX || x >= minX + boxWidth || y < minY || y >= minY + boxHeight) {
+            return false;
+        }
+        final int index = (y - minY) * boxWidth + (x - minX);
+        return (visible[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param point The cell
+     *
+     * @return True if the cell is on the map, within the range and visible
+     */
+    public boolean isVisible(final Point point) {
+        return isVisible(point.getX(), point.getY());
+    }
+
+    /**
+     * @return Number of visible cells, including the source if on the map
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * @return All visible cells, including the source if on the map
+     */
+    public Set<Point> getVisiblePoints() {
+        return getVisiblePoints((x, y) -> true);
+    }
+
+    /**
+     * Points are only created for the cells accepted by the filter.
+     *
+     * @param filter Decides which of the visible cells are wanted
+     *
+     * @return The visible cells accepted by the filter, including the source if on
+     *         the map and accepted
+     */
+    public Set<Point> getVisiblePoints(final CellFilter filter) {
+        final Set<Point> points = new HashSet<>();
+        for (int index = 0; index < boxWidth * boxHeight; index++) {
+            if ((visible[index >>> 6] & (1L << index)) != 0) {
+                final int x = minX + index % boxWidth;
+                final int y = minY + index / boxWidth;
+                if (filter.test(x, y)) {
+                    points.add(new Point(x, y));
+                }
+            }
+        }
+        return points;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldOfView [source=" + source + ", range=" + range + ", visible=" + visibleCount + "]";
+    }
+
+}
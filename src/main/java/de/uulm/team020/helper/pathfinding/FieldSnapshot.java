@@ -0,0 +1,68 @@
+package de.uulm.team020.helper.pathfinding;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+
+/**
+ * Read-only copy of the walkability of a field. The search-engines only ask
+ * cells if they block the way, so a snapshot can be searched by multiple
+ * threads at once while the original field keeps changing.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+final class FieldSnapshot {
+
+    /** The two kinds of cells a snapshot consists of */
+    enum Cell implements IAmWalkable {
+        FREE(true), BLOCKED(false);
+
+        private final boolean walkable;
+
+        Cell(final boolean walkable) {
+            this.walkable = walkable;
+        }
+
+        @Override
+        public boolean isWalkable() {
+            return walkable;
+        }
+    }
+
+    private FieldSnapshot() {
+    }
+
+    /**
+     * Copies the walkability of the given field, rows keep their length.
+     *
+     * @param <T>   Type of the fields
+     * @param field The field to copy
+     *
+     * @return The copy, missing rows will be empty
+     */
+    static <T extends IAmWalkable> Cell[][] of(final T[][] field) {
+        return of(field, null);
+    }
+
+    /**
+     * Copies the walkability of the given field, occupied cells will be blocked.
+     *
+     * @param <T>       Type of the fields
+     * @param field     The field to copy
+     * @param occupancy Additionally blocked cells, may be null
+     *
+     * @return The copy, missing rows will be empty
+     */
+    static <T extends IAmWalkable> Cell[][] of(final T[][] field, final OccupancyOverlay occupancy) {
+        final Cell[][] snapshot = new Cell[field.length][];
+        for (int y = 0; y < field.length; y++) {
+            final T[] row = field[y];
+            snapshot[y] = new Cell[row == null ? 0 : row.length];
+            for (int x = 0; x < snapshot[y].length; x++) {
+                snapshot[y][x] = row[x].blocksWay() || occupancy != null && occupancy.isOccupied(x, y) ? Cell.BLOCKED
+                        : Cell.FREE;
+            }
+        }
+        return snapshot;
+    }
+
+}
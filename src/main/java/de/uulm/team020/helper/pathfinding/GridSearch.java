@@ -0,0 +1,322 @@
+package de.uulm.team020.helper.pathfinding;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+import de.uulm.team020.datatypes.util.DistanceMetric;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Primitive A*-engine used by the {@link Pathfinder}. All scratch state lives
+ * in a {@link SearchWorkspace} indexed by {@code y * width + x}, the open list
+ * is a {@link NodeHeap}. {@link WayPoint}s will only be created for the final
+ * path. The engine itself is stateless, so it may be used with different
+ * workspaces at once.
+ * <p>
+ * Semantics are the same as for the {@link Pathfinder}: rows may differ in
+ * length (missing cells are treated as being off the field), if not flying
+ * blocked cells are never walked over, and if start and end are not checked,
+ * the start will always be left and the end may be blocked. Cells occupied in
+ * the {@link OccupancyOverlay} count as blocked.
+ * <p>
+ * The remaining distance is estimated by the {@link DistanceMetric#KING} if
+ * walking diagonal, by the {@link DistanceMetric#MANHATTAN} otherwise. Any other
+ * metric may be used, the paths are only guaranteed to be the shortest if it
+ * never overestimates the number of steps.
+ *
+ * @author Florian Sihler
+ * @version 1.5, 07/11/2020
+ */
+final class GridSearch<T extends IAmWalkable> implements SearchEngine {
+
+    // straight moves first, diagonals afterwards
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+    // estimates have to fit into 21 bits of the key
+    private static final int MAX_ESTIMATE = (1 << 21) - 1;
+
+    private final T[][] field;
+    private final boolean canWalkDiagonal;
+    private final boolean flying;
+    private final OccupancyOverlay occupancy;
+    // null to use the default metric, which is inlined
+    private final DistanceMetric heuristic;
+
+    /**
+     * Construct a new search-engine referencing the given field.
+     *
+     * @param field           The field to search on, changes will be respected
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     */
+    GridSearch(final T[][] field, final boolean canWalkDiagonal, final boolean flying) {
+        this(field, canWalkDiagonal, flying, null);
+    }
+
+    /**
+     * Construct a new search-engine referencing the given field and overlay.
+     *
+     * @param field           The field to search on, changes will be respected
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked and occupied cells?
+     * @param occupancy       Additionally blocked cells, changes will be
+     *                        respected, may be null
+     */
+    GridSearch(final T[][] field, final boolean canWalkDiagonal, final boolean flying,
+            final OccupancyOverlay occupancy) {
+        this(field, canWalkDiagonal, flying, occupancy, null);
+    }
+
+    /**
+     * Construct a new search-engine referencing the given field and overlay.
+     *
+     * @param field           The field to search on, changes will be respected
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked and occupied cells?
+     * @param occupancy       Additionally blocked cells, changes will be
+     *                        respected, may be null
+     * @param heuristic       Estimates the remaining steps, null to use the
+     *                        default for the movement
+     */
+    GridSearch(final T[][] field, final boolean canWalkDiagonal, final boolean flying,
+            final OccupancyOverlay occupancy, final DistanceMetric heuristic) {
+        this.field = field;
+        this.canWalkDiagonal = canWalkDiagonal;
+        this.flying = flying;
+        this.occupancy = occupancy;
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public int search(final SearchWorkspace workspace, final int startX, final int startY, final int endX, final int endY,
+            final boolean checkStartEnd) {
+        return search(workspace, startX, startY, endX, endY, checkStartEnd, SearchBudget.UNLIMITED);
+    }
+
+    @Override
+    public int search(final SearchWorkspace workspace, final int startX, final int startY, final int endX,
+            final int endY, final boolean checkStartEnd, final SearchBudget budget) {
+        final boolean limited = budget.isLimited();
+        final int width = getWidth();
+        workspace.prepare(width, field.length);
+        final NodeHeap open = workspace.getOpen();
+
+        final int startNode = startY * width + startX;
+        final int endNode = endY * width + endX;
+        workspace.reach(startNode, 0, NO_PATH);
+        open.offer(startNode, estimate(0, startX, startY, endX, endY));
+
+        final int directions = canWalkDiagonal ? DX.length : 4;
+        while (!open.isEmpty()) {
+            final long key = open.peekKey();
+            final int node = open.poll();
+            if (node == endNode) {
+                return node;
+            }
+            workspace.close(node);
+            final int x = node % width;
+            final int y = node / width;
+            if (node != startNode && !flying && blocksWay(x, y)) {
+                continue;
+            }
+            if (limited) {
+                workspace.considerClosest(node, rank(key));
+                if (budget.isExhausted(workspace.getExpansions())) {
+                    return BUDGET_EXHAUSTED;
+                }
+            }
+            final int nextCost = workspace.getCost(node) + 1;
+            for (int d = 0; d < directions; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (!canStep(nx, ny, DX[d], DY[d])) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (workspace.isClosed(next) || nextCost >= workspace.getCost(next)
+                        || !mayEnter(nx, ny, next == endNode && !checkStartEnd)) {
+                    continue;
+                }
+                workspace.reach(next, nextCost, node);
+                open.offer(next, estimate(nextCost, nx, ny, endX, endY));
+            }
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * Tells the {@link GridSearch} which cells are goals of a search for the
+     * nearest one
+     */
+    @FunctionalInterface
+    interface Goals {
+        /**
+         * @param x X coordinate of the cell, which is on the field
+         * @param y Y coordinate of the cell, which is on the field
+         *
+         * @return True if the cell is a goal
+         */
+        boolean isGoal(int x, int y);
+    }
+
+    /**
+     * Searches for the path to the goal closest to the start by expanding the
+     * cells in the order of their distance, so all goals are handled by a single
+     * search. The start has to be on the field.
+     *
+     * @param workspace     The workspace to use, will be prepared
+     * @param startX        X coordinate of the start
+     * @param startY        Y coordinate of the start
+     * @param goals         Identifies the goals
+     * @param checkStartEnd Should the goals be checked for being walkable?
+     *
+     * @return The index of the nearest goal, if reached, {@link #NO_PATH}
+     *         otherwise
+     */
+    int searchNearest(final SearchWorkspace workspace, final int startX, final int startY, final Goals goals,
+            final boolean checkStartEnd) {
+        final int width = getWidth();
+        workspace.prepare(width, field.length);
+        final NodeHeap open = workspace.getOpen();
+
+        final int startNode = startY * width + startX;
+        workspace.reach(startNode, 0, NO_PATH);
+        open.offer(startNode, 0);
+
+        final int directions = canWalkDiagonal ? DX.length : 4;
+        while (!open.isEmpty()) {
+            final int node = open.poll();
+            final int x = node % width;
+            final int y = node / width;
+            if (goals.isGoal(x, y)) {
+                return node;
+            }
+            workspace.close(node);
+            if (node != startNode && !flying && blocksWay(x, y)) {
+                continue;
+            }
+            final int nextCost = workspace.getCost(node) + 1;
+            for (int d = 0; d < directions; d++) {
+                final int nx = x + DX[d];
+                final int ny = y + DY[d];
+                if (!canStep(nx, ny, DX[d], DY[d])) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                if (workspace.isClosed(next) || nextCost >= workspace.getCost(next) || !mayEnter(nx, ny, false)
+                        && (checkStartEnd || !goals.isGoal(nx, ny))) {
+                    continue;
+                }
+                workspace.reach(next, nextCost, node);
+                open.offer(next, nextCost);
+            }
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * Builds the {@link WayPoint}-chain for the last search performed in the
+     * workspace. Nodes further apart than one step are connected by the cells on
+     * the straight or diagonal line between them.
+     *
+     * @param workspace The workspace of the search
+     * @param endNode   The node returned by the search
+     *
+     * @return The end of the path, linked to the start by its fathers
+     */
+    static WayPoint toWayPoint(final SearchWorkspace workspace, final int endNode) {
+        final int width = workspace.getWidth();
+        int length = 0;
+        for (int node = endNode; node != NO_PATH; node = workspace.getParent(node)) {
+            length += 1;
+        }
+        final int[] nodes = new int[length];
+        for (int node = endNode, i = length - 1; node != NO_PATH; node = workspace.getParent(node), i--) {
+            nodes[i] = node;
+        }
+        WayPoint current = null;
+        for (final int node : nodes) {
+            final int x = node % width;
+            final int y = node / width;
+            if (current != null) {
+                final int dx = Integer.signum(x - current.getX());
+                final int dy = Integer.signum(y - current.getY());
+                while (current.getX() + dx != x || current.getY() + dy != y) {
+                    current = new WayPoint(current.getX() + dx, current.getY() + dy, current);
+                }
+            }
+            current = new WayPoint(x, y, current);
+        }
+        return current;
+    }
+
+    private boolean mayEnter(final int x, final int y, final boolean blockedAllowed) {
+        return flying || blockedAllowed || !blocksWay(x, y);
+    }
+
+    private boolean blocksWay(final int x, final int y) {
+        return field[y][x].blocksWay() || occupancy != null && occupancy.isOccupied(x, y);
+    }
+
+    private boolean canStep(final int x, final int y, final int dx, final int dy) {
+        if (y < 0 || y >= field.length || x < 0 || field[y] == null) {
+            return false;
+        }
+        // the original implementation never enters the last cell of a row by a
+        // vertical or left-diagonal step, we keep that to produce the same paths
+        return x < (dy != 0 && dx <= 0 ? field[y].length - 1 : field[y].length);
+    }
+
+    private long estimate(final int cost, final int x, final int y, final int endX, final int endY) {
+        return heuristic == null ? key(cost, x, y, endX, endY, canWalkDiagonal)
+                : key(cost, x, y, endX, endY, heuristic);
+    }
+
+    /**
+     * Orders by the estimated total cost, ties are resolved by preferring the
+     * cheaper and afterwards the (by manhattan distance) closer node. Every
+     * component needs at most 21 bits.
+     */
+    static long key(final int cost, final int x, final int y, final int endX, final int endY,
+            final boolean canWalkDiagonal) {
+        final int dx = Math.abs(x - endX);
+        final int dy = Math.abs(y - endY);
+        final int manhattan = dx + dy;
+        final int estimate = cost + (canWalkDiagonal ? Math.max(dx, dy) : manhattan);
+        return ((long) estimate << 42) | ((long) cost << 21) | manhattan;
+    }
+
+    /**
+     * Ranks a key by the estimated remaining cost, ties are resolved by the
+     * manhattan distance. Lower ranks are closer to the end.
+     */
+    static long rank(final long key) {
+        final long remaining = (key >>> 42) - ((key >>> 21) & MAX_ESTIMATE);
+        return (remaining << 21) | (key & MAX_ESTIMATE);
+    }
+
+    /**
+     * Like {@link #key(int, int, int, int, int, boolean)}, estimating the
+     * remaining cost using the given metric. Fractions are cut off, as all costs
+     * are whole numbers this keeps a metric that never overestimates that way.
+     */
+    static long key(final int cost, final int x, final int y, final int endX, final int endY,
+            final DistanceMetric heuristic) {
+        final int manhattan = Math.abs(x - endX) + Math.abs(y - endY);
+        final double remaining = heuristic.getDistance(x, y, endX, endY);
+        final int estimate = cost + (int) Math.max(0, Math.min(remaining, MAX_ESTIMATE));
+        return ((long) Math.min(estimate, MAX_ESTIMATE) << 42) | ((long) cost << 21) | manhattan;
+    }
+
+    /**
+     * @return The length of the longest row, rows may be altered between searches
+     */
+    int getWidth() {
+        int width = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > width) {
+                width = row.length;
+            }
+        }
+        return width;
+    }
+
+}
@@ -0,0 +1,638 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+
+/**
+ * Hierarchical path-finding (HPA*, Botea et al., 2004) for large fields. The
+ * field is partitioned into square clusters. Where two clusters touch, the
+ * cells a path may cross on are grouped into entrances, every entrance
+ * contributes one or two transitions (a pair of cells, one on each side). The
+ * transition cells form the nodes of an abstract graph, connected by the
+ * transitions themselves and by the walking distances between the nodes of the
+ * same cluster, which are calculated once.
+ * <p>
+ * A query inserts start and end into the graph by connecting them to the nodes
+ * of their own and the surrounding clusters, searches on the abstract graph and
+ * afterwards refines every abstract edge by a search limited to the clusters it
+ * lies in. The resulting paths are near optimal, as they have to pass the
+ * transitions. Like the {@link JumpPointSearch} the last cell of a row may be
+ * entered from every direction.
+ * <p>
+ * Changes of single cells only mark their cluster, which is repaired with the
+ * next search: the entrances around it are calculated again and the distances
+ * of it and its neighbours are updated. Changes which are not reported (e.g.
+ * of a raw array) are noticed once an abstract edge cannot be walked any more,
+ * the clusters it lies in are repaired and the search is done again. The
+ * precomputed graph makes this engine stateful, so it must not be used by
+ * multiple threads at once.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+final class HierarchicalSearch<T extends IAmWalkable> implements SearchEngine {
+
+    /** Default length of the side of a cluster */
+    static final int DEFAULT_CLUSTER_SIZE = 10;
+
+    // entrances up to this length get one transition in the middle
+    private static final int SINGLE_TRANSITION_LENGTH = 5;
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final T[][] field;
+    private final int clusterSize;
+    private final boolean canWalkDiagonal;
+    private final boolean flying;
+
+    private int width = -1;
+    private int height = -1;
+    private int clustersX;
+    private int clustersY;
+    private Cluster[] clusters;
+    // transitions between two clusters, pairs of cells (lower cluster first)
+    private final Map<Long, int[]> borders = new HashMap<>();
+    private boolean[] dirty;
+    private boolean anyDirty;
+
+    /** The abstract nodes inside of a cluster */
+    private static final class Cluster {
+        private int[] nodes = new int[0];
+        // cells of the other clusters connected to the node
+        private int[][] partners = new int[0][];
+        // walking distances in the cluster, -1 if unreachable
+        private int[][] distances = new int[0][];
+
+        private int indexOf(final int cell) {
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i] == cell) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Construct a new search-engine referencing the given field. The abstract
+     * graph will be built with the first search.
+     *
+     * @param field           The field to search on
+     * @param clusterSize     Length of the side of a cluster
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     */
+    HierarchicalSearch(final T[][] field, final int clusterSize, final boolean canWalkDiagonal,
+            final boolean flying) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Cluster size (" + clusterSize + ") has to be at least 2.");
+        }
+        this.field = field;
+        this.clusterSize = clusterSize;
+        this.canWalkDiagonal = canWalkDiagonal;
+        this.flying = flying;
+    }
+
+    /**
+     * Marks the cluster of the cell to be repaired with the next search.
+     *
+     * @param x X coordinate of the changed cell
+     * @param y Y coordinate of the changed cell
+     */
+    void invalidate(final int x, final int y) {
+        if (clusters == null || x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        dirty[clusterOf(x, y)] = true;
+        anyDirty = true;
+    }
+
+    /**
+     * Drops the whole abstract graph, it will be built again with the next search.
+     */
+    void invalidateAll() {
+        clusters = null;
+    }
+
+    /**
+     * @return Number of nodes in the abstract graph, builds it if necessary
+     */
+    int getNodeCount() {
+        synchronize();
+        int count = 0;
+        for (final Cluster cluster : clusters) {
+            count += cluster.nodes.length;
+        }
+        return count;
+    }
+
+    @Override
+    public int search(final SearchWorkspace workspace, final int startX, final int startY, final int endX,
+            final int endY, final boolean checkStartEnd) {
+        synchronize();
+        final int start = startY * width + startX;
+        final int end = endY * width + endX;
+        final int endCell = checkStartEnd ? -1 : end;
+        int[] path = null;
+        // every failed attempt repairs at least one cluster
+        for (int attempt = 0; path == null && attempt <= clusters.length; attempt++) {
+            final int[] abstractPath = searchAbstract(workspace, start, end, endCell);
+            if (abstractPath == null) {
+                return NO_PATH;
+            }
+            path = refine(abstractPath, endCell);
+            if (path == null) {
+                // the graph is outdated, the field changed without telling
+                repair();
+            }
+        }
+        if (path == null) {
+            return NO_PATH;
+        }
+        // write the path to the workspace, cutting loops the refinement may produce
+        workspace.prepare(width, height);
+        int length = 0;
+        for (final int cell : path) {
+            // the cost is the position of the cell in the path written so far
+            final int position = workspace.getCost(cell);
+            if (position < length && path[position] == cell) {
+                length = position + 1;
+            } else {
+                workspace.reach(cell, length, length == 0 ? NO_PATH : path[length - 1]);
+                path[length++] = cell;
+            }
+        }
+        return end;
+    }
+
+    private int[] searchAbstract(final SearchWorkspace workspace, final int start, final int end,
+            final int endCell) {
+        // insert start and end into the graph, using the clusters around them
+        final Region startRegion = regionAround(start);
+        final Region endRegion = regionAround(end);
+        final int[] fromStart = regionDistances(start, startRegion, endCell, null);
+        final int[] toEnd = regionDistances(end, endRegion, -1, null);
+        final int direct = startRegion.contains(end) ? fromStart[startRegion.indexOf(end)] : -1;
+
+        workspace.prepare(width, height);
+        final NodeHeap open = workspace.getOpen();
+        final int endX = end % width;
+        final int endY = end / width;
+        workspace.reach(start, 0, NO_PATH);
+        open.offer(start, GridSearch.key(0, start % width, start / width, endX, endY, canWalkDiagonal));
+        while (!open.isEmpty()) {
+            final int node = open.poll();
+            if (node == end) {
+                return collect(workspace, end);
+            }
+            workspace.close(node);
+            final int cost = workspace.getCost(node);
+            if (node == start) {
+                for (final int cluster : startRegion.clusters) {
+                    for (final int other : clusters[cluster].nodes) {
+                        relax(workspace, node, other, cost, fromStart[startRegion.indexOf(other)], endX, endY);
+                    }
+                }
+                relax(workspace, node, end, cost, direct, endX, endY);
+            }
+            final Cluster current = clusters[clusterOf(node % width, node / width)];
+            final int index = current.indexOf(node);
+            if (index >= 0) {
+                for (int i = 0; i < current.nodes.length; i++) {
+                    relax(workspace, node, current.nodes[i], cost, current.distances[index][i], endX, endY);
+                }
+                for (final int partner : current.partners[index]) {
+                    relax(workspace, node, partner, cost, 1, endX, endY);
+                }
+                // the start is connected to the end directly
+                if (node != start && endRegion.contains(node)) {
+                    relax(workspace, node, end, cost, toEnd[endRegion.indexOf(node)], endX, endY);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void relax(final SearchWorkspace workspace, final int from, final int to, final int cost,
+            final int distance, final int endX, final int endY) {
+        if (distance <= 0 || workspace.isClosed(to)) {
+            return;
+        }
+        final int next = cost + distance;
+        if (next < workspace.getCost(to)) {
+            workspace.reach(to, next, from);
+            workspace.getOpen().offer(to,
+                    GridSearch.key(next, to % width, to / width, endX, endY, canWalkDiagonal));
+        }
+    }
+
+    private static int[] collect(final SearchWorkspace workspace, final int end) {
+        int length = 0;
+        for (int node = end; node != NO_PATH; node = workspace.getParent(node)) {
+            length += 1;
+        }
+        final int[] nodes = new int[length];
+        for (int node = end, i = length - 1; node != NO_PATH; node = workspace.getParent(node), i--) {
+            nodes[i] = node;
+        }
+        return nodes;
+    }
+
+    // replaces every abstract edge by the cells walked, null if an edge cannot be
+    // walked, its clusters are marked to be repaired
+    private int[] refine(final int[] abstractPath, final int endCell) {
+        final int start = abstractPath[0];
+        final int end = abstractPath[abstractPath.length - 1];
+        int[] path = new int[abstractPath.length * 2];
+        int length = 0;
+        path[length++] = start;
+        for (int i = 1; i < abstractPath.length; i++) {
+            final int from = abstractPath[i - 1];
+            final int to = abstractPath[i];
+            final int[] steps;
+            final Region region;
+            if (isAdjacent(from, to)) {
+                region = regionAround(to);
+                steps = isFree(to % width, to / width, endCell) ? new int[] { to } : null;
+            } else if (from == start) {
+                region = regionAround(start);
+                steps = regionPath(from, to, region, endCell);
+            } else if (to == end) {
+                // searching backwards, as the end may be blocked
+                region = regionAround(end);
+                final int[] backwards = regionPath(to, from, region, -1);
+                steps = backwards == null ? null : reversed(backwards, to);
+            } else {
+                region = regionOfCluster(clusterOf(from % width, from / width));
+                steps = regionPath(from, to, region, endCell);
+            }
+            if (steps == null) {
+                for (final int cluster : region.clusters) {
+                    dirty[cluster] = true;
+                }
+                anyDirty = true;
+                return null;
+            }
+            if (length + steps.length > path.length) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, length + steps.length));
+            }
+            System.arraycopy(steps, 0, path, length, steps.length);
+            length += steps.length;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    // turns the steps walked from the target back to some cell around
+    private static int[] reversed(final int[] steps, final int target) {
+        final int[] result = new int[steps.length];
+        for (int i = 0; i < steps.length - 1; i++) {
+            result[i] = steps[steps.length - 2 - i];
+        }
+        result[steps.length - 1] = target;
+        return result;
+    }
+
+    private boolean isAdjacent(final int a, final int b) {
+        final int dx = Math.abs(a % width - b % width);
+        final int dy = Math.abs(a / width - b / width);
+        return canWalkDiagonal ? Math.max(dx, dy) == 1 : dx + dy == 1;
+    }
+
+    // ---- breadth-first searches limited to some clusters
+
+    /** A rectangle of clusters */
+    private final class Region {
+        private final int minX;
+        private final int minY;
+        private final int maxX;
+        private final int maxY;
+        private final int[] clusters;
+
+        private Region(final int minClusterX, final int minClusterY, final int maxClusterX,
+                final int maxClusterY) {
+            this.minX = minClusterX * clusterSize;
+            this.minY = minClusterY * clusterSize;
+            this.maxX = Math.min((maxClusterX + 1) * clusterSize, width);
+            this.maxY = Math.min((maxClusterY + 1) * clusterSize, height);
+            this.clusters = new int[(maxClusterX - minClusterX + 1) * (maxClusterY - minClusterY + 1)];
+            int i = 0;
+            for (int cy = minClusterY; cy <= maxClusterY; cy++) {
+                for (int cx = minClusterX; cx <= maxClusterX; cx++) {
+                    clusters[i++] = cy * clustersX + cx;
+                }
+            }
+        }
+
+        private boolean contains(final int cell) {
+            final int x = cell % width;
+            final int y = cell / width;
+            return x >= minX && x < maxX && y >= minY && y < maxY;
+        }
+
+        private int indexOf(final int cell) {
+            return (cell / width - minY) * (maxX - minX) + cell % width - minX;
+        }
+
+        private int size() {
+            return (maxX - minX) * (maxY - minY);
+        }
+    }
+
+    private int clusterOf(final int x, final int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    private Region regionOfCluster(final int cluster) {
+        final int cx = cluster % clustersX;
+        final int cy = cluster / clustersX;
+        return new Region(cx, cy, cx, cy);
+    }
+
+    // the cluster of the cell and all of its neighbours
+    private Region regionAround(final int cell) {
+        final int cx = (cell % width) / clusterSize;
+        final int cy = (cell / width) / clusterSize;
+        return new Region(Math.max(cx - 1, 0), Math.max(cy - 1, 0), Math.min(cx + 1, clustersX - 1),
+                Math.min(cy + 1, clustersY - 1));
+    }
+
+    private boolean isFree(final int x, final int y, final int endCell) {
+        if (y < 0 || y >= field.length || x < 0 || field[y] == null || x >= field[y].length) {
+            return false;
+        }
+        return flying || !field[y][x].blocksWay() || y * width + x == endCell;
+    }
+
+    /**
+     * Breadth-first search from the cell, limited to the region. The source is
+     * always left, the given end cell may be entered even if blocked, but is
+     * never left.
+     *
+     * @return Distances indexed by {@link Region#indexOf(int)}, -1 if
+     *         unreachable, parents are stored in the given array if not null
+     */
+    private int[] regionDistances(final int source, final Region region, final int endCell, final int[] parents) {
+        final int[] distances = new int[region.size()];
+        Arrays.fill(distances, -1);
+        final int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        final int moves = canWalkDiagonal ? DX.length : 4;
+        distances[region.indexOf(source)] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            final int cell = queue[head++];
+            if (cell != source && cell == endCell && !isFree(cell % width, cell / width, -1)) {
+                continue;
+            }
+            final int distance = distances[region.indexOf(cell)];
+            for (int d = 0; d < moves; d++) {
+                final int nx = cell % width + DX[d];
+                final int ny = cell / width + DY[d];
+                if (nx < region.minX || nx >= region.maxX || ny < region.minY || ny >= region.maxY
+                        || !isFree(nx, ny, endCell)) {
+                    continue;
+                }
+                final int next = ny * width + nx;
+                final int local = region.indexOf(next);
+                if (distances[local] == -1) {
+                    distances[local] = distance + 1;
+                    if (parents != null) {
+                        parents[local] = cell;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distances;
+    }
+
+    // the cells walked from 'from' (excluded) to 'to' (included), null if 'to'
+    // cannot be reached
+    private int[] regionPath(final int from, final int to, final Region region, final int endCell) {
+        final int[] parents = new int[region.size()];
+        final int[] distances = regionDistances(from, region, endCell, parents);
+        final int length = distances[region.indexOf(to)];
+        if (length < 0) {
+            return null;
+        }
+        final int[] steps = new int[length];
+        for (int cell = to, i = length - 1; i >= 0; cell = parents[region.indexOf(cell)], i--) {
+            steps[i] = cell;
+        }
+        return steps;
+    }
+
+    // ---- building and repairing the abstract graph
+
+    private void synchronize() {
+        int currentWidth = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > currentWidth) {
+                currentWidth = row.length;
+            }
+        }
+        if (clusters == null || currentWidth != width || field.length != height) {
+            build(currentWidth, field.length);
+        } else if (anyDirty) {
+            repair();
+        }
+    }
+
+    private void build(final int newWidth, final int newHeight) {
+        this.width = newWidth;
+        this.height = newHeight;
+        this.clustersX = (newWidth + clusterSize - 1) / clusterSize;
+        this.clustersY = (newHeight + clusterSize - 1) / clusterSize;
+        this.clusters = new Cluster[clustersX * clustersY];
+        this.dirty = new boolean[clusters.length];
+        borders.clear();
+        Arrays.fill(dirty, true);
+        anyDirty = true;
+        repair();
+    }
+
+    private void repair() {
+        // corner transitions depend on the cells of a third cluster, so the
+        // neighbours of a dirty cluster have to be updated as well
+        final boolean[] touched = new boolean[clusters.length];
+        for (int cluster = 0; cluster < clusters.length; cluster++) {
+            if (!dirty[cluster]) {
+                continue;
+            }
+            touched[cluster] = true;
+            for (int d = 0; d < DX.length; d++) {
+                final int neighbour = neighbour(cluster, d);
+                if (neighbour >= 0) {
+                    touched[neighbour] = true;
+                }
+            }
+        }
+        for (int cluster = 0; cluster < clusters.length; cluster++) {
+            if (!touched[cluster]) {
+                continue;
+            }
+            for (int d = 0; d < DX.length; d++) {
+                final int neighbour = neighbour(cluster, d);
+                if (neighbour > cluster && touched[neighbour]) {
+                    borders.put(borderKey(cluster, neighbour), computeBorder(cluster, neighbour));
+                }
+            }
+        }
+        for (int cluster = 0; cluster < clusters.length; cluster++) {
+            if (touched[cluster]) {
+                clusters[cluster] = buildCluster(cluster);
+            }
+        }
+        Arrays.fill(dirty, false);
+        anyDirty = false;
+    }
+
+    private int neighbour(final int cluster, final int direction) {
+        final int cx = cluster % clustersX + DX[direction];
+        final int cy = cluster / clustersX + DY[direction];
+        if (cx < 0 || cy < 0 || cx >= clustersX || cy >= clustersY) {
+            return -1;
+        }
+        return cy * clustersX + cx;
+    }
+
+    private long borderKey(final int a, final int b) {
+        return (long) Math.min(a, b) * clusters.length + Math.max(a, b);
+    }
+
+    /**
+     * Finds the transitions between two neighbouring clusters. Straight crossings
+     * next to each other form an entrance, which gets a transition in the middle
+     * or, if long, one on each end. Diagonal crossings are only needed if none of
+     * the two cells passed by is free, otherwise they are covered by straight
+     * ones.
+     */
+    private int[] computeBorder(final int a, final int b) {
+        final int low = Math.min(a, b);
+        final int high = Math.max(a, b);
+        final int minX = (low % clustersX) * clusterSize;
+        final int minY = (low / clustersX) * clusterSize;
+        final int maxX = Math.min(minX + clusterSize, width);
+        final int maxY = Math.min(minY + clusterSize, height);
+        final Transitions transitions = new Transitions();
+        // the higher cluster is east, south-west, south or south-east
+        final int dx = high % clustersX - low % clustersX;
+        final int dy = high / clustersX - low / clustersX;
+        if (dy == 0) {
+            // along the last column
+            scanBorder(transitions, maxX - 1, minY, 0, 1, 1, 0, maxY - minY);
+        } else if (dx == 0) {
+            // along the last row
+            scanBorder(transitions, minX, maxY - 1, 1, 0, 0, 1, maxX - minX);
+        } else if (dx > 0) {
+            transitions.addCorner(maxX - 1, maxY - 1, 1, 1);
+        } else {
+            transitions.addCorner(minX, maxY - 1, -1, 1);
+        }
+        return transitions.toArray();
+    }
+
+    /**
+     * Scans the cells of a border, starting with (x, y) and moving (stepX, stepY)
+     * for length cells. The cells on the other side are (crossX, crossY) away.
+     */
+    private void scanBorder(final Transitions transitions, final int x, final int y, final int stepX,
+            final int stepY, final int crossX, final int crossY, final int length) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            final int cx = x + i * stepX;
+            final int cy = y + i * stepY;
+            final boolean crossing = i < length && isFree(cx, cy, -1) && isFree(cx + crossX, cy + crossY, -1);
+            if (crossing && runStart < 0) {
+                runStart = i;
+            } else if (!crossing && runStart >= 0) {
+                final int runLength = i - runStart;
+                if (runLength <= SINGLE_TRANSITION_LENGTH) {
+                    transitions.addStraight(x + (runStart + runLength / 2) * stepX,
+                            y + (runStart + runLength / 2) * stepY, crossX, crossY);
+                } else {
+                    transitions.addStraight(x + runStart * stepX, y + runStart * stepY, crossX, crossY);
+                    transitions.addStraight(x + (i - 1) * stepX, y + (i - 1) * stepY, crossX, crossY);
+                }
+                runStart = -1;
+            }
+            if (canWalkDiagonal && i + 1 < length) {
+                // crossing diagonally, in both directions along the border
+                transitions.addCorner(cx, cy, crossX + stepX, crossY + stepY);
+                transitions.addCorner(cx + stepX, cy + stepY, crossX - stepX, crossY - stepY);
+            }
+        }
+    }
+
+    /** Collects pairs of cells, the first one in the lower cluster */
+    private final class Transitions {
+        private int[] cells = new int[8];
+        private int count = 0;
+
+        private void addStraight(final int x, final int y, final int dx, final int dy) {
+            add(y * width + x, (y + dy) * width + x + dx);
+        }
+
+        // only if diagonal movement is allowed and both cells passed by are not free
+        private void addCorner(final int x, final int y, final int dx, final int dy) {
+            if (canWalkDiagonal && isFree(x, y, -1) && isFree(x + dx, y + dy, -1) && !isFree(x + dx, y, -1)
+                    && !isFree(x, y + dy, -1)) {
+                add(y * width + x, (y + dy) * width + x + dx);
+            }
+        }
+
+        private void add(final int from, final int to) {
+            if (count + 2 > cells.length) {
+                cells = Arrays.copyOf(cells, cells.length * 2);
+            }
+            cells[count++] = from;
+            cells[count++] = to;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(cells, count);
+        }
+    }
+
+    private Cluster buildCluster(final int cluster) {
+        // collect the transition cells inside of the cluster and their partners
+        final Map<Integer, int[]> partners = new HashMap<>();
+        for (int d = 0; d < DX.length; d++) {
+            final int neighbour = neighbour(cluster, d);
+            if (neighbour < 0) {
+                continue;
+            }
+            final int[] transitions = borders.get(borderKey(cluster, neighbour));
+            if (transitions == null) {
+                continue;
+            }
+            for (int i = 0; i < transitions.length; i += 2) {
+                final boolean firstInside = clusterOf(transitions[i] % width, transitions[i] / width) == cluster;
+                final int inside = firstInside ? transitions[i] : transitions[i + 1];
+                final int outside = firstInside ? transitions[i + 1] : transitions[i];
+                final int[] known = partners.getOrDefault(inside, new int[0]);
+                final int[] updated = Arrays.copyOf(known, known.length + 1);
+                updated[known.length] = outside;
+                partners.put(inside, updated);
+            }
+        }
+        final Cluster result = new Cluster();
+        result.nodes = partners.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        result.partners = new int[result.nodes.length][];
+        result.distances = new int[result.nodes.length][result.nodes.length];
+        for (int i = 0; i < result.nodes.length; i++) {
+            result.partners[i] = partners.get(result.nodes[i]);
+            final Region region = regionOfCluster(cluster);
+            final int[] distances = regionDistances(result.nodes[i], region, -1, null);
+            for (int j = 0; j < result.nodes.length; j++) {
+                result.distances[i][j] = distances[region.indexOf(result.nodes[j])];
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,357 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+import de.uulm.team020.logging.Magpie;
+
+/**
+ * Incremental planner for an agent moving towards a fixed goal, like the cat or
+ * the janitor, using D* Lite (Koenig and Likhachev, 2002). The search runs
+ * backwards from the goal and keeps its state between calls. If the agent moved
+ * or cells became blocked or free, only the part of the search tree affected is
+ * repaired, which usually is a small fraction of a fresh search.
+ * <p>
+ * Other than the {@link Pathfinder} the plain neighbour rules are used, so the
+ * last cell of a row may be entered from every direction. If not flying,
+ * blocked cells are never walked over, but the agent may always leave its
+ * position and the goal may be blocked. If constructed using an
+ * {@link AbstractGameField} changes will be learned automatically, otherwise
+ * they have to be reported using {@link #cellChanged(int, int)}. The planner
+ * must not be used by multiple threads at once.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class IncrementalPathfinder<T extends IAmWalkable> {
+
+    private static Magpie magpie = Magpie.createMagpieSafe("Pathfinder");
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final T[][] field;
+    private final AbstractGameField<T> source;
+    private long seenVersion = 0;
+    private final boolean canWalkDiagonal;
+    private final boolean flying;
+    private final int width;
+    private final int goal;
+
+    // cost-to-goal estimates and their one-step lookahead
+    private final int[] g;
+    private final int[] rhs;
+    private final NodeHeap open;
+    // offset of all keys, raised whenever the agent moves
+    private int keyModifier;
+    private int start = -1;
+    private long expansions;
+
+    /**
+     * Construct a new planner for the given field, which has to report changes
+     * using {@link #cellChanged(int, int)}.
+     *
+     * @param field           The field to search on
+     * @param goal            The fixed goal, has to be on the field
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     *
+     * @throws IllegalArgumentException If the goal is not on the field
+     */
+    public IncrementalPathfinder(final T[][] field, final Point goal, final boolean canWalkDiagonal,
+            final boolean flying) {
+        this(field, null, goal, canWalkDiagonal, flying);
+    }
+
+    /**
+     * Construct a new planner for the given field, changes to the field will be
+     * respected with the next call.
+     *
+     * @param field           The field to search on
+     * @param goal            The fixed goal, has to be on the field
+     * @param canWalkDiagonal Allow diagonal movement?
+     * @param flying          Ignore blocked cells?
+     *
+     * @throws IllegalArgumentException If the goal is not on the field
+     */
+    public IncrementalPathfinder(final AbstractGameField<T> field, final Point goal, final boolean canWalkDiagonal,
+            final boolean flying) {
+        this(field.getField(), field, goal, canWalkDiagonal, flying);
+    }
+
+    private IncrementalPathfinder(final T[][] field, final AbstractGameField<T> source, final Point goal,
+            final boolean canWalkDiagonal, final boolean flying) {
+        if (!Objects.requireNonNull(goal, "Goal").isOnField(field)) {
+            throw new IllegalArgumentException("Goal " + goal + " has to be on the field.");
+        }
+        this.field = field;
+        this.source = source;
+        if (source != null) {
+            source.trackFieldChanges();
+            this.seenVersion = source.getChangeVersion();
+        }
+        this.canWalkDiagonal = canWalkDiagonal;
+        this.flying = flying;
+        int maxWidth = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        this.width = maxWidth;
+        this.goal = goal.getY() * width + goal.getX();
+        this.g = new int[width * field.length];
+        this.rhs = new int[g.length];
+        this.open = new NodeHeap(g.length);
+        reset();
+    }
+
+    public Point getGoal() {
+        return new Point(goal % width, goal / width);
+    }
+
+    /**
+     * @return Number of cells expanded by the last call to
+     *         {@link #findPath(Point)}
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Reports a cell that became blocked or free, the search tree will be
+     * repaired with the next call to {@link #findPath(Point)}.
+     *
+     * @param x X coordinate of the changed cell
+     * @param y Y coordinate of the changed cell
+     */
+    public void cellChanged(final int x, final int y) {
+        if (!exists(x, y)) {
+            return;
+        }
+        final int cell = y * width + x;
+        // all edges of the cell changed, so did the lookahead of it and its neighbours
+        updateLookahead(cell);
+        for (int d = 0; d < moves(); d++) {
+            if (exists(x + DX[d], y + DY[d])) {
+                updateLookahead((y + DY[d]) * width + x + DX[d]);
+            }
+        }
+    }
+
+    /**
+     * Drops the search state, the next call will search from scratch.
+     */
+    public void reset() {
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        open.clear();
+        keyModifier = 0;
+        rhs[goal] = 0;
+        if (start >= 0) {
+            open.offer(goal, key(goal));
+        }
+    }
+
+    /**
+     * Plans the path of the agent standing at the given position to the goal,
+     * reusing as much of the previous search as possible.
+     *
+     * @param position The current position of the agent, has to be on the field
+     *
+     * @return The path starting with the position and ending with the goal,
+     *         {@link Path#INVALID_PATH} if there is no path
+     *
+     * @throws IllegalArgumentException If the position is not on the field
+     */
+    public Path findPath(final Point position) {
+        if (!Objects.requireNonNull(position, "Position").isOnField(field)) {
+            throw new IllegalArgumentException("Position " + position + " has to be on the field.");
+        }
+        synchronizeWithSource();
+        moveTo(position.getY() * width + position.getX());
+        expansions = 0;
+        computeShortestPath();
+        // the lookahead of the start is exact, its estimate may not be
+        if (rhs[start] == INFINITY) {
+            magpie.writeInfo("No path found for start: " + position + " and goal: " + getGoal() + ".", "Replan");
+            return Path.INVALID_PATH;
+        }
+        return extractPath();
+    }
+
+    private void synchronizeWithSource() {
+        if (source == null) {
+            return;
+        }
+        final long version = source.getChangeVersion();
+        if (version == seenVersion) {
+            return;
+        }
+        if (!source.forEachChangeSince(seenVersion, (x, y, kinds) -> {
+            if ((kinds & FieldChangeLog.WALKABILITY) != 0) {
+                cellChanged(x, y);
+            }
+        })) {
+            // we fell behind, there is no way to know what changed
+            reset();
+        }
+        seenVersion = version;
+    }
+
+    private void moveTo(final int position) {
+        if (start == position) {
+            return;
+        }
+        final int last = start;
+        start = position;
+        if (last < 0) {
+            open.offer(goal, key(goal));
+            return;
+        }
+        keyModifier += heuristic(last, start);
+        // the agent may leave its position even if blocked
+        if (!isWalkable(last % width, last / width)) {
+            cellChanged(last % width, last / width);
+        }
+        if (!isWalkable(start % width, start / width)) {
+            cellChanged(start % width, start / width);
+        }
+    }
+
+    private void computeShortestPath() {
+        while (open.peekKey() < key(start) || rhs[start] > g[start]) {
+            final long oldKey = open.peekKey();
+            final int cell = open.poll();
+            expansions += 1;
+            final long newKey = key(cell);
+            if (oldKey < newKey) {
+                open.offer(cell, newKey);
+            } else if (g[cell] > rhs[cell]) {
+                // overconsistent, the cell got cheaper
+                g[cell] = rhs[cell];
+                for (int d = 0; d < moves(); d++) {
+                    final int neighbour = neighbour(cell, d);
+                    if (neighbour >= 0 && neighbour != goal && g[cell] + 1 < rhs[neighbour]) {
+                        rhs[neighbour] = g[cell] + 1;
+                        updateVertex(neighbour);
+                    }
+                }
+            } else {
+                // underconsistent, everything depending on the cell has to be updated
+                final int oldG = g[cell];
+                g[cell] = INFINITY;
+                updateLookahead(cell);
+                for (int d = 0; d < moves(); d++) {
+                    final int neighbour = neighbour(cell, d);
+                    if (neighbour >= 0 && rhs[neighbour] == oldG + 1) {
+                        updateLookahead(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    // recalculates the one-step lookahead of the cell
+    private void updateLookahead(final int cell) {
+        if (cell != goal) {
+            int best = INFINITY;
+            for (int d = 0; d < moves(); d++) {
+                final int neighbour = neighbour(cell, d);
+                if (neighbour >= 0 && g[neighbour] != INFINITY && g[neighbour] + 1 < best) {
+                    best = g[neighbour] + 1;
+                }
+            }
+            rhs[cell] = best;
+        }
+        updateVertex(cell);
+    }
+
+    private void updateVertex(final int cell) {
+        if (g[cell] != rhs[cell]) {
+            open.update(cell, key(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+
+    private long key(final int cell) {
+        final int estimate = Math.min(g[cell], rhs[cell]);
+        if (estimate == INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        return ((long) (estimate + heuristic(start, cell) + keyModifier) << 32) | estimate;
+    }
+
+    private Path extractPath() {
+        final Path path = new Path();
+        int current = start;
+        path.append(new WayPoint(current % width, current / width));
+        // follow the cheapest neighbour, every step lowers the cost by one
+        while (current != goal) {
+            int next = -1;
+            for (int d = 0; d < moves(); d++) {
+                final int neighbour = neighbour(current, d);
+                if (neighbour >= 0 && g[neighbour] != INFINITY && (next < 0 || g[neighbour] < g[next])) {
+                    next = neighbour;
+                }
+            }
+            if (next < 0 || current != start && g[next] >= g[current]) {
+                throw new IllegalStateException("The search tree is broken at " + path.getEnd() + ".");
+            }
+            current = next;
+            path.append(new WayPoint(current % width, current / width));
+        }
+        return path;
+    }
+
+    /**
+     * @return The neighbour of the cell in the given direction if they are
+     *         connected by an edge, -1 otherwise
+     */
+    private int neighbour(final int cell, final int direction) {
+        final int x = cell % width;
+        final int y = cell / width;
+        final int nx = x + DX[direction];
+        final int ny = y + DY[direction];
+        if (!exists(nx, ny) || !isPassable(cell, x, y) || !isPassable(ny * width + nx, nx, ny)) {
+            return -1;
+        }
+        return ny * width + nx;
+    }
+
+    private boolean isPassable(final int cell, final int x, final int y) {
+        return isWalkable(x, y) || cell == goal || cell == start;
+    }
+
+    private int heuristic(final int from, final int to) {
+        final int dx = Math.abs(from % width - to % width);
+        final int dy = Math.abs(from / width - to / width);
+        return canWalkDiagonal ? Math.max(dx, dy) : dx + dy;
+    }
+
+    private int moves() {
+        return canWalkDiagonal ? DX.length : 4;
+    }
+
+    private boolean exists(final int x, final int y) {
+        return y >= 0 && y < field.length && x >= 0 && field[y] != null && x < field[y].length;
+    }
+
+    private boolean isWalkable(final int x, final int y) {
+        return flying || !field[y][x].blocksWay();
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalPathfinder [goal=" + getGoal() + ", diagonal=" + canWalkDiagonal + ", flying=" + flying
+                + "]";
+    }
+
+}
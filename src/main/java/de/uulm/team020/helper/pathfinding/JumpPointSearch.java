@@ -0,0 +1,223 @@
+package de.uulm.team020.helper.pathfinding;
+
+import de.uulm.team020.datatypes.IAmWalkable;
+import de.uulm.team020.datatypes.util.DistanceMetric;
+
+/**
+ * Jump point search (Harabor and Grastien, 2011) for uniform-cost grids with
+ * diagonal movement. Instead of adding every neighbour to the open list, the
+ * search jumps along straight and diagonal lines until it reaches a cell with
+ * a neighbour that can not be reached cheaper without it (a forced
+ * neighbour). Only those jump points are expanded, which on open maps are
+ * very few. The found paths are optimal.
+ * <p>
+ * Other than the {@link GridSearch}, the last cell of a row may be entered
+ * from every direction, so paths along the right border may be shorter. Apart
+ * from that the semantics are the same: rows may differ in length, if not
+ * flying blocked cells are never walked over, and if start and end are not
+ * checked, the start will always be left and the end may be blocked. Cells
+ * occupied in the {@link OccupancyOverlay} count as blocked, the heuristic may
+ * be replaced like for the {@link GridSearch}.
+ *
+ * @author Florian Sihler
+ * @version 1.3, 07/11/2020
+ */
+final class JumpPointSearch<T extends IAmWalkable> implements SearchEngine {
+
+    private static final int[] DX = { 0, -1, 1, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { -1, 0, 0, 1, -1, -1, 1, 1 };
+
+    private final T[][] field;
+    private final boolean flying;
+    private final OccupancyOverlay occupancy;
+    private final DistanceMetric heuristic;
+
+    /**
+     * Construct a new search-engine referencing the given field.
+     *
+     * @param field  The field to search on, changes will be respected
+     * @param flying Ignore blocked cells?
+     */
+    JumpPointSearch(final T[][] field, final boolean flying) {
+        this(field, flying, null);
+    }
+
+    /**
+     * Construct a new search-engine referencing the given field and overlay.
+     *
+     * @param field     The field to search on, changes will be respected
+     * @param flying    Ignore blocked and occupied cells?
+     * @param occupancy Additionally blocked cells, changes will be respected, may
+     *                  be null
+     */
+    JumpPointSearch(final T[][] field, final boolean flying, final OccupancyOverlay occupancy) {
+        this(field, flying, occupancy, DistanceMetric.KING);
+    }
+
+    /**
+     * Construct a new search-engine referencing the given field and overlay.
+     *
+     * @param field     The field to search on, changes will be respected
+     * @param flying    Ignore blocked and occupied cells?
+     * @param occupancy Additionally blocked cells, changes will be respected, may
+     *                  be null
+     * @param heuristic Estimates the remaining steps
+     */
+    JumpPointSearch(final T[][] field, final boolean flying, final OccupancyOverlay occupancy,
+            final DistanceMetric heuristic) {
+        this.field = field;
+        this.flying = flying;
+        this.occupancy = occupancy;
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public int search(final SearchWorkspace workspace, final int startX, final int startY, final int endX,
+            final int endY, final boolean checkStartEnd) {
+        return search(workspace, startX, startY, endX, endY, checkStartEnd, SearchBudget.UNLIMITED);
+    }
+
+    @Override
+    public int search(final SearchWorkspace workspace, final int startX, final int startY, final int endX,
+            final int endY, final boolean checkStartEnd, final SearchBudget budget) {
+        final boolean limited = budget.isLimited();
+        int width = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > width) {
+                width = row.length;
+            }
+        }
+        workspace.prepare(width, field.length);
+        final NodeHeap open = workspace.getOpen();
+        final Query query = new Query(endX, endY, !checkStartEnd);
+
+        final int startNode = startY * width + startX;
+        final int endNode = endY * width + endX;
+        workspace.reach(startNode, 0, NO_PATH);
+        open.offer(startNode, GridSearch.key(0, startX, startY, endX, endY, heuristic));
+
+        while (!open.isEmpty()) {
+            final long key = open.peekKey();
+            final int node = open.poll();
+            if (node == endNode) {
+                return node;
+            }
+            workspace.close(node);
+            if (limited) {
+                workspace.considerClosest(node, GridSearch.rank(key));
+                if (budget.isExhausted(workspace.getExpansions())) {
+                    return BUDGET_EXHAUSTED;
+                }
+            }
+            final int x = node % width;
+            final int y = node / width;
+            final int parent = workspace.getParent(node);
+            final int cost = workspace.getCost(node);
+            for (int d = 0; d < DX.length; d++) {
+                if (parent != NO_PATH && isPruned(query, x, y, Integer.signum(x - parent % width),
+                        Integer.signum(y - parent / width), DX[d], DY[d])) {
+                    continue;
+                }
+                final long jumpPoint = jump(query, x, y, DX[d], DY[d]);
+                if (jumpPoint == NO_PATH) {
+                    continue;
+                }
+                final int jx = (int) (jumpPoint >>> 32);
+                final int jy = (int) jumpPoint;
+                final int next = jy * width + jx;
+                final int nextCost = cost + Math.max(Math.abs(jx - x), Math.abs(jy - y));
+                if (workspace.isClosed(next) || nextCost >= workspace.getCost(next)) {
+                    continue;
+                }
+                workspace.reach(next, nextCost, node);
+                open.offer(next, GridSearch.key(nextCost, jx, jy, endX, endY, heuristic));
+            }
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * Checks if the direction may be skipped when arriving at the cell moving in
+     * the given direction, as all cells in it can be reached at most as
+     * expensive without passing this cell.
+     */
+    private boolean isPruned(final Query query, final int x, final int y, final int px, final int py,
+            final int dx, final int dy) {
+        if (px != 0 && py != 0) {
+            // natural neighbours when moving diagonal
+            if (dx == px && dy == py || dx == px && dy == 0 || dx == 0 && dy == py) {
+                return false;
+            }
+            // forced by a blocked cell behind us
+            return !(dx == -px && dy == py && !isFree(query, x - px, y)
+                    || dx == px && dy == -py && !isFree(query, x, y - py));
+        }
+        if (dx == px && dy == py) {
+            return false;
+        }
+        if (px != 0) {
+            return !(dx == px && dy != 0 && !isFree(query, x, y + dy));
+        }
+        return !(dy == py && dx != 0 && !isFree(query, x + dx, y));
+    }
+
+    /**
+     * Moves from the cell in the given direction until a jump point is reached.
+     *
+     * @return The jump point packed as {@code x << 32 | y}, {@link #NO_PATH} if
+     *         the line ends without one
+     */
+    private long jump(final Query query, final int fromX, final int fromY, final int dx, final int dy) {
+        int x = fromX;
+        int y = fromY;
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!isFree(query, x, y)) {
+                return NO_PATH;
+            }
+            if (x == query.endX && y == query.endY || hasForcedNeighbour(query, x, y, dx, dy)) {
+                return ((long) x << 32) | y;
+            }
+            if (dx != 0 && dy != 0
+                    && (jump(query, x, y, dx, 0) != NO_PATH || jump(query, x, y, 0, dy) != NO_PATH)) {
+                return ((long) x << 32) | y;
+            }
+        }
+    }
+
+    private boolean hasForcedNeighbour(final Query query, final int x, final int y, final int dx, final int dy) {
+        if (dx != 0 && dy != 0) {
+            return !isFree(query, x - dx, y) && isFree(query, x - dx, y + dy)
+                    || !isFree(query, x, y - dy) && isFree(query, x + dx, y - dy);
+        }
+        if (dx != 0) {
+            return !isFree(query, x, y + 1) && isFree(query, x + dx, y + 1)
+                    || !isFree(query, x, y - 1) && isFree(query, x + dx, y - 1);
+        }
+        return !isFree(query, x + 1, y) && isFree(query, x + 1, y + dy)
+                || !isFree(query, x - 1, y) && isFree(query, x - 1, y + dy);
+    }
+
+    private boolean isFree(final Query query, final int x, final int y) {
+        if (y < 0 || y >= field.length || x < 0 || field[y] == null || x >= field[y].length) {
+            return false;
+        }
+        return flying || !field[y][x].blocksWay() && (occupancy == null || !occupancy.isOccupied(x, y))
+                || query.blockedEndAllowed && x == query.endX && y == query.endY;
+    }
+
+    /** The parameters of a single search, keeps the engine stateless */
+    private static final class Query {
+        private final int endX;
+        private final int endY;
+        private final boolean blockedEndAllowed;
+
+        private Query(final int endX, final int endY, final boolean blockedEndAllowed) {
+            this.endX = endX;
+            this.endY = endY;
+            this.blockedEndAllowed = blockedEndAllowed;
+        }
+    }
+
+}
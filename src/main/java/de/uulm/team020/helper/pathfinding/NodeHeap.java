@@ -0,0 +1,216 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node indices (e.g. {@code y * width + x}) keyed by a
+ * primitive {@code long}. Other than {@link java.util.PriorityQueue} this heap
+ * supports a decrease-key operation in logarithmic time as it tracks the
+ * position of every node inside of the heap. Neither the nodes nor the keys
+ * will be boxed.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+final class NodeHeap {
+
+    private static final int NOT_QUEUED = -1;
+
+    private int[] nodes;
+    private long[] keys;
+    // maps node to its current index in the heap, NOT_QUEUED if not present
+    private int[] positions;
+    private int size;
+
+    /**
+     * Construct a new heap able to hold the nodes {@code [0, capacity)}.
+     *
+     * @param capacity Number of distinct nodes
+     */
+    NodeHeap(final int capacity) {
+        this.nodes = new int[Math.max(capacity, 1)];
+        this.keys = new long[this.nodes.length];
+        this.positions = new int[this.nodes.length];
+        Arrays.fill(this.positions, NOT_QUEUED);
+        this.size = 0;
+    }
+
+    /**
+     * Makes sure the heap is able to hold the nodes {@code [0, capacity)}. Will
+     * clear the heap if it has to grow.
+     *
+     * @param capacity Number of distinct nodes
+     */
+    void ensureCapacity(final int capacity) {
+        if (capacity > nodes.length) {
+            this.nodes = new int[capacity];
+            this.keys = new long[capacity];
+            this.positions = new int[capacity];
+            Arrays.fill(this.positions, NOT_QUEUED);
+            this.size = 0;
+        }
+    }
+
+    /**
+     * Removes all queued nodes, will only touch the queued ones.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[nodes[i]] = NOT_QUEUED;
+        }
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final int node) {
+        return positions[node] != NOT_QUEUED;
+    }
+
+    /**
+     * Inserts the node with the given key. If the node is already queued its key
+     * will be lowered if the new one is smaller, otherwise nothing happens.
+     *
+     * @param node The node to insert
+     * @param key  The key to order by
+     *
+     * @return True if the node was inserted or its key was lowered
+     */
+    boolean offer(final int node, final long key) {
+        int pos = positions[node];
+        if (pos == NOT_QUEUED) {
+            pos = size++;
+            nodes[pos] = node;
+            keys[pos] = key;
+            positions[node] = pos;
+            siftUp(pos);
+            return true;
+        }
+        if (key < keys[pos]) {
+            keys[pos] = key;
+            siftUp(pos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the key of the node, inserting it if it is not queued. Other than
+     * {@link #offer(int, long)} the key may also be raised.
+     *
+     * @param node The node to insert or update
+     * @param key  The new key
+     */
+    void update(final int node, final long key) {
+        final int pos = positions[node];
+        if (pos == NOT_QUEUED) {
+            offer(node, key);
+            return;
+        }
+        final long old = keys[pos];
+        keys[pos] = key;
+        if (key < old) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    /**
+     * Removes the node from the heap, does nothing if it is not queued.
+     *
+     * @param node The node to remove
+     */
+    void remove(final int node) {
+        final int pos = positions[node];
+        if (pos == NOT_QUEUED) {
+            return;
+        }
+        positions[node] = NOT_QUEUED;
+        size -= 1;
+        if (pos < size) {
+            // the last node takes its place and has to move up or down
+            final int last = nodes[size];
+            place(last, keys[size], pos);
+            siftDown(pos);
+            if (positions[last] == pos) {
+                siftUp(pos);
+            }
+        }
+    }
+
+    /**
+     * @return The smallest key, {@link Long#MAX_VALUE} if the heap is empty
+     */
+    long peekKey() {
+        return size == 0 ? Long.MAX_VALUE : keys[0];
+    }
+
+    /**
+     * Removes the node with the smallest key.
+     *
+     * @return The node with the smallest key, the heap must not be empty
+     */
+    int poll() {
+        final int top = nodes[0];
+        positions[top] = NOT_QUEUED;
+        size -= 1;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            keys[0] = keys[size];
+            positions[nodes[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int pos) {
+        final int node = nodes[pos];
+        final long key = keys[pos];
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (keys[parent] <= key)
+                break;
+            move(parent, pos);
+            pos = parent;
+        }
+        place(node, key, pos);
+    }
+
+    private void siftDown(int pos) {
+        final int node = nodes[pos];
+        final long key = keys[pos];
+        final int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            final int right = child + 1;
+            if (right < size && keys[right] < keys[child]) {
+                child = right;
+            }
+            if (key <= keys[child])
+                break;
+            move(child, pos);
+            pos = child;
+        }
+        place(node, key, pos);
+    }
+
+    private void move(final int from, final int to) {
+        nodes[to] = nodes[from];
+        keys[to] = keys[from];
+        positions[nodes[to]] = to;
+    }
+
+    private void place(final int node, final long key, final int pos) {
+        nodes[pos] = node;
+        keys[pos] = key;
+        positions[node] = pos;
+    }
+
+}
@@ -0,0 +1,212 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Marks cells occupied by moving obstacles, like characters, the cat or the
+ * janitor. If set using {@link Pathfinder#setOccupancy(OccupancyOverlay)} the
+ * searches treat occupied cells as blocked, without the field having to be
+ * copied or altered. All updates are constant time, a move just clears one bit
+ * and sets another.
+ * <p>
+ * Cells outside of the overlay are never occupied. The overlay must not be
+ * changed while a search is running.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class OccupancyOverlay {
+
+    private final int width;
+    private final int height;
+    private final long[] bits;
+    private int occupied;
+
+    /**
+     * Construct a new, empty overlay.
+     *
+     * @param width  Width of the field, use the length of the longest row
+     * @param height Height of the field
+     *
+     * @throws IllegalArgumentException If a dimension is negative
+     */
+    public OccupancyOverlay(final int width, final int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Overlay dimensions (" + width + "x" + height + ") are invalid.");
+        }
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(width * height + 63) / 64];
+    }
+
+    /**
+     * Construct a new, empty overlay fitting the given field.
+     *
+     * @param field The field to construct the overlay for
+     */
+    public OccupancyOverlay(final AbstractGameField<?> field) {
+        this(widthOf(field.getField()), field.getField().length);
+    }
+
+    private static int widthOf(final Object[][] field) {
+        int maxWidth = 0;
+        for (final Object[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        return maxWidth;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return Number of occupied cells
+     */
+    public int getOccupiedCount() {
+        return occupied;
+    }
+
+    public boolean isEmpty() {
+        return occupied == 0;
+    }
+
+    /**
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return True if the cell is occupied, false otherwise or if it is outside
+     *         of the overlay
+     */
+    public boolean isOccupied(final int x, final int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        final int index = y * width + x;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param point The cell
+     *
+     * @return True if the cell is occupied
+     */
+    public boolean isOccupied(final Point point) {
+        return isOccupied(point.getX(), point.getY());
+    }
+
+    /**
+     * Marks the cell as occupied.
+     *
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return True if it was free before
+     *
+     * @throws IllegalArgumentException If the cell is outside of the overlay
+     */
+    public boolean occupy(final int x, final int y) {
+        final int index = indexOf(x, y);
+        final long mask = 1L << index;
+        if ((bits[index >>> 6] & mask) != 0) {
+            return false;
+        }
+        bits[index >>> 6] |= mask;
+        occupied += 1;
+        return true;
+    }
+
+    /**
+     * Marks the cell as occupied.
+     *
+     * @param point The cell
+     *
+     * @return True if it was free before
+     *
+     * @throws IllegalArgumentException If the cell is outside of the overlay
+     */
+    public boolean occupy(final Point point) {
+        return occupy(point.getX(), point.getY());
+    }
+
+    /**
+     * Marks the cell as free.
+     *
+     * @param x X coordinate of the cell
+     * @param y Y coordinate of the cell
+     *
+     * @return True if it was occupied before
+     *
+     * @throws IllegalArgumentException If the cell is outside of the overlay
+     */
+    public boolean release(final int x, final int y) {
+        final int index = indexOf(x, y);
+        final long mask = 1L << index;
+        if ((bits[index >>> 6] & mask) == 0) {
+            return false;
+        }
+        bits[index >>> 6] &= ~mask;
+        occupied -= 1;
+        return true;
+    }
+
+    /**
+     * Marks the cell as free.
+     *
+     * @param point The cell
+     *
+     * @return True if it was occupied before
+     *
+     * @throws IllegalArgumentException If the cell is outside of the overlay
+     */
+    public boolean release(final Point point) {
+        return release(point.getX(), point.getY());
+    }
+
+    /**
+     * Moves an obstacle, freeing its old and occupying its new cell.
+     *
+     * @param from The cell the obstacle left
+     * @param to   The cell the obstacle entered
+     *
+     * @throws IllegalArgumentException If a cell is outside of the overlay
+     */
+    public void move(final Point from, final Point to) {
+        Objects.requireNonNull(to, "Target");
+        indexOf(to.getX(), to.getY());
+        release(from);
+        occupy(to);
+    }
+
+    /**
+     * Frees all cells.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+        occupied = 0;
+    }
+
+    private int indexOf(final int x, final int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException(
+                    "Cell (" + x + "," + y + ") is not in the overlay of size " + width + "x" + height + ".");
+        }
+        return y * width + x;
+    }
+
+    @Override
+    public String toString() {
+        return "OccupancyOverlay [width=" + width + ", height=" + height + ", occupied=" + occupied + "]";
+    }
+
+}
@@ -0,0 +1,310 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Immutable, compact variant of a {@link Path}. The coordinates are stored one
+ * after another in a single array, so a path costs two ints per point instead
+ * of a linked {@link WayPoint} each, can be walked without creating any objects
+ * and is serialized without following a chain of references.
+ * <p>
+ * {@link WayPoint}s are only created on demand, either as views using
+ * {@link #get(int)} and {@link #iterator()} or by converting it back using
+ * {@link #toPath()}.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public final class PackedPath implements Iterable<WayPoint>, Serializable {
+
+    private static final long serialVersionUID = 4196020843227417315L;
+
+    /**
+     * Receives the coordinates of the points of a path
+     */
+    @FunctionalInterface
+    public interface CellVisitor {
+        /**
+         * @param x X coordinate of the point
+         * @param y Y coordinate of the point
+         */
+        void visit(int x, int y);
+    }
+
+    // up to this length contains will just scan the path
+    static final int SCAN_LIMIT = 16;
+
+    /** The invalid path, equal to {@link Path#getInvalid()} when converted */
+    public static final PackedPath INVALID_PATH = new PackedPath(new int[] { -1, -1 });
+
+    // x0, y0, x1, y1, ...
+    private final int[] coordinates;
+    // sorted (x << 32 | y) of all points, built with the first lookup
+    private transient long[] lookup;
+
+    private PackedPath(final int[] coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    /**
+     * Construct a new path out of coordinates - amount of coordinates MUST be even
+     *
+     * @param coordinates x and y of every point, one after another
+     *
+     * @return The created path
+     */
+    public static PackedPath of(final int... coordinates) {
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("Path must get an even amount of points which is not given for: "
+                    + coordinates.length + " with: " + Arrays.toString(coordinates));
+        }
+        return new PackedPath(coordinates.clone());
+    }
+
+    /**
+     * Packs the given path.
+     *
+     * @param path The path to pack
+     *
+     * @return The packed path
+     */
+    public static PackedPath of(final Path path) {
+        final int[] coordinates = new int[Objects.requireNonNull(path, "Path").size() * 2];
+        int i = 0;
+        for (WayPoint current = path.getStart(); current != null; current = current.getChild()) {
+            coordinates[i++] = current.getX();
+            coordinates[i++] = current.getY();
+        }
+        return new PackedPath(i == coordinates.length ? coordinates : Arrays.copyOf(coordinates, i));
+    }
+
+    /**
+     * Packs the path ending with the given point by following its fathers, like
+     * {@link Path#Path(WayPoint)} does without copying a single point.
+     *
+     * @param end The end of the path
+     *
+     * @return The packed path
+     */
+    public static PackedPath of(final WayPoint end) {
+        int length = 0;
+        for (WayPoint current = end; current != null; current = current.getFather()) {
+            length += 1;
+        }
+        final int[] coordinates = new int[length * 2];
+        int i = coordinates.length;
+        for (WayPoint current = end; current != null; current = current.getFather()) {
+            coordinates[--i] = current.getY();
+            coordinates[--i] = current.getX();
+        }
+        return new PackedPath(coordinates);
+    }
+
+    /**
+     * @return The amount of points, will return 1 even if invalid!
+     * @see #invalid()
+     */
+    public int size() {
+        return coordinates.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return coordinates.length == 0;
+    }
+
+    /**
+     * @param index Index of the point, 0 is the start
+     *
+     * @return X coordinate of the point
+     */
+    public int getX(final int index) {
+        checkIndex(index);
+        return coordinates[index * 2];
+    }
+
+    /**
+     * @param index Index of the point, 0 is the start
+     *
+     * @return Y coordinate of the point
+     */
+    public int getY(final int index) {
+        checkIndex(index);
+        return coordinates[index * 2 + 1];
+    }
+
+    /**
+     * @param index Index of the point, 0 is the start
+     *
+     * @return A new way-point without father and child for the point
+     */
+    public WayPoint get(final int index) {
+        return new WayPoint(getX(index), getY(index));
+    }
+
+    /**
+     * @return A new way-point for the start, null if the path is empty
+     */
+    public WayPoint getStart() {
+        return isEmpty() ? null : get(0);
+    }
+
+    /**
+     * @return A new way-point for the end, null if the path is empty
+     */
+    public WayPoint getEnd() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not in a path of length " + size());
+        }
+    }
+
+    /**
+     * Visits all points from start to end without creating any objects.
+     *
+     * @param visitor Receives the coordinates of each point
+     */
+    public void forEachCell(final CellVisitor visitor) {
+        for (int i = 0; i < coordinates.length; i += 2) {
+            visitor.visit(coordinates[i], coordinates[i + 1]);
+        }
+    }
+
+    /**
+     * Returns if and only if the path contains the point. Long paths are
+     * searched using a sorted index which is built with the first call.
+     *
+     * @param x X coordinate of the point
+     * @param y Y coordinate of the point
+     *
+     * @return True if the path contains the point, false otherwise
+     */
+    public boolean contains(final int x, final int y) {
+        if (size() <= SCAN_LIMIT) {
+            for (int i = 0; i < coordinates.length; i += 2) {
+                if (coordinates[i] == x && coordinates[i + 1] == y) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long[] sorted = lookup;
+        if (sorted == null) {
+            sorted = new long[size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = key(coordinates[i * 2], coordinates[i * 2 + 1]);
+            }
+            Arrays.sort(sorted);
+            // a race just builds the same index twice
+            lookup = sorted;
+        }
+        return Arrays.binarySearch(sorted, key(x, y)) >= 0;
+    }
+
+    /**
+     * Returns if and only if the path contains this point
+     *
+     * @param p The point you want to check for
+     *
+     * @return True if the path contains the point, false otherwise
+     */
+    public boolean contains(final Point p) {
+        return p != null && contains(p.getX(), p.getY());
+    }
+
+    private static long key(final int x, final int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return A new path with the points in reversed order
+     */
+    public PackedPath reversed() {
+        final int[] reversed = new int[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 2) {
+            reversed[reversed.length - i - 2] = coordinates[i];
+            reversed[reversed.length - i - 1] = coordinates[i + 1];
+        }
+        return new PackedPath(reversed);
+    }
+
+    /**
+     * @return A new, linked path containing the same points
+     */
+    public Path toPath() {
+        if (invalid()) {
+            return Path.INVALID_PATH;
+        }
+        final Path path = new Path();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            path.append(new WayPoint(coordinates[i], coordinates[i + 1]));
+        }
+        return path;
+    }
+
+    public boolean invalid() {
+        return this.equals(INVALID_PATH);
+    }
+
+    /**
+     * Iterates over views of the points, every call of next creates a new
+     * way-point without father and child.
+     */
+    @Override
+    public Iterator<WayPoint> iterator() {
+        return new Iterator<WayPoint>() {
+
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < coordinates.length;
+            }
+
+            @Override
+            public WayPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final WayPoint point = new WayPoint(coordinates[next], coordinates[next + 1]);
+                next += 2;
+                return point;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(coordinates.length * 6);
+        builder.append("PackedPath [length=").append(size()).append(", path:");
+        for (int i = 0; i < coordinates.length; i += 2) {
+            builder.append(i == 0 ? "(" : " -> (").append(coordinates[i]).append(",").append(coordinates[i + 1])
+                    .append(")");
+        }
+        return builder.append("]").toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coordinates);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof PackedPath))
+            return false;
+        return Arrays.equals(coordinates, ((PackedPath) obj).coordinates);
+    }
+
+}
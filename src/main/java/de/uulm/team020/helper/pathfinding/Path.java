@@ -10,13 +10,16 @@ import java.util.Objects;
 import de.uulm.team020.datatypes.IAmTransparent;
 import de.uulm.team020.datatypes.blueprints.AbstractGameField;
 import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.datatypes.util.point_helper.PointAlgorithms;
 
 /**
  * Construction of Points to be iterated upon and to be created by the
  * pathfinder.
  * 
  * @author Florian Sihler
- * @version 1.0, 04/28/2020
+ * @version 1.3, 07/11/2020
+ *
+ * @see PackedPath
  */
 public class Path implements Collection<Path.WayPoint>, Serializable {
 
@@ -453,6 +456,36 @@ public class Path implements Collection<Path.WayPoint>, Serializable {
         return true;
     }
 
+    /**
+     * Checks if none of the points on the line from start to end are blocking the
+     * line of sight, like {@link #isLineOfSight(Path, AbstractGameField, boolean)}
+     * does for the path returned by {@link Point#getLine(Point, Point)}. The line
+     * is not created but walked, stopping at the first field blocking.
+     * 
+     * @param start         The start of the line
+     * @param end           The end of the line
+     * @param map           The map to lay the line on
+     * @param checkStartEnd should start and endpoint of the line be checked too?
+     * 
+     * @return true If the line is completely in line of sight, false If there is
+     *         any field passed which blocks the line of sight
+     */
+    public static boolean isLineOfSight(final Point start, final Point end,
+            final AbstractGameField<? extends IAmTransparent> map, boolean checkStartEnd) {
+        final int startX = start.getX();
+        final int startY = start.getY();
+        final int endX = end.getX();
+        final int endY = end.getY();
+        return PointAlgorithms.walkLine(startX, startY, endX, endY, (x, y) -> {
+            // ignore if start or end and start/end shall not be checked
+            if (!checkStartEnd && (x == startX && y == startY || x == endX && y == endY)) {
+                return true;
+            }
+            final IAmTransparent field = map.getSpecificField(x, y);
+            return field != null && !field.blocksLOS();
+        });
+    }
+
     @Override
     public void clear() {
         start = end = null; // clear-up father and child?
@@ -484,6 +517,15 @@ public class Path implements Collection<Path.WayPoint>, Serializable {
 
     @Override
     public boolean containsAll(Collection<?> arg0) {
+        if (arg0.size() > 1 && size > PackedPath.SCAN_LIMIT) {
+            // one index instead of a scan per element, short paths are scanned anyway
+            final PackedPath packed = toPacked();
+            for (Object object : arg0) {
+                if (!(object instanceof Point) || !packed.contains((Point) object))
+                    return false;
+            }
+            return true;
+        }
         for (Object object : arg0) {
             if (!contains(object))
                 return false;
@@ -541,6 +583,16 @@ public class Path implements Collection<Path.WayPoint>, Serializable {
         return arr;
     }
 
+    /**
+     * Packs this path into a {@link PackedPath}, which stores the coordinates
+     * only and may be walked without creating objects.
+     * 
+     * @return The packed path
+     */
+    public PackedPath toPacked() {
+        return invalid() ? PackedPath.INVALID_PATH : PackedPath.of(this);
+    }
+
     protected static final Path INVALID_PATH = new Path(WayPoint.INVALID);
 
     public boolean invalid() {
@@ -0,0 +1,358 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Bounded least-recently-used cache for the paths found by a
+ * {@link Pathfinder}. Queries are packed into a single {@code long} (see
+ * {@link #key(int, int, int, int, boolean, boolean)}) and looked up in an
+ * open-addressing hash-table, so a lookup neither scans the cache nor
+ * allocates. The recency is tracked by an intrusive doubly linked list over
+ * the entry-slots.
+ * <p>
+ * The cache counts hits, misses and evictions, which should be used to size
+ * it for the maps in use. Paths affected by a changed cell can be dropped
+ * selectively using {@link #invalidate(int, int)}.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public final class PathCache {
+
+    /** Returned by {@link #key(int, int, int, int, boolean, boolean)} if the query may not be cached */
+    static final long NO_KEY = -1L;
+
+    private static final int COORDINATE_BITS = 15;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    // entries, the index is called slot
+    private final long[] keys;
+    private final WayPoint[] values;
+    private final int[] newer;
+    private final int[] older;
+    private int newest = NONE;
+    private int oldest = NONE;
+    private int size = 0;
+
+    // hash-table, mapping to slot + 1, 0 is free
+    private final int[] table;
+    private final int mask;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Construct a new cache holding at most the given number of paths.
+     *
+     * @param capacity Maximum number of paths, has to be greater than 0
+     */
+    public PathCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity (" + capacity + ") has to be greater than 0.");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.values = new WayPoint[capacity];
+        this.newer = new int[capacity];
+        this.older = new int[capacity];
+        // keep the load factor at or below 0.5
+        this.table = new int[Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) * 2];
+        this.mask = table.length - 1;
+    }
+
+    /**
+     * Packs a query into a key.
+     *
+     * @param startX    X coordinate of the start
+     * @param startY    Y coordinate of the start
+     * @param endX      X coordinate of the end
+     * @param endY      Y coordinate of the end
+     * @param diagonal  Is diagonal movement allowed?
+     * @param flying    Are blocked fields ignored?
+     *
+     * @return The key, {@link #NO_KEY} if a coordinate is too big to be packed
+     */
+    static long key(final int startX, final int startY, final int endX, final int endY, final boolean diagonal,
+            final boolean flying) {
+        if (((startX | startY | endX | endY) & ~COORDINATE_MASK) != 0) {
+            return NO_KEY;
+        }
+        long key = startX;
+        key = (key << COORDINATE_BITS) | startY;
+        key = (key << COORDINATE_BITS) | endX;
+        key = (key << COORDINATE_BITS) | endY;
+        return (key << 2) | (diagonal ? 2 : 0) | (flying ? 1 : 0);
+    }
+
+    /**
+     * Get the cached path for the given key, marks it as used most recently.
+     *
+     * @param key The key of the query
+     *
+     * @return The end of the cached path, null if there is none
+     */
+    WayPoint get(final long key) {
+        final int slot = find(key);
+        if (slot == NONE) {
+            misses += 1;
+            return null;
+        }
+        hits += 1;
+        touch(slot);
+        return values[slot];
+    }
+
+    /**
+     * Caches the path for the given key. If the cache is full the least recently
+     * used path will be evicted.
+     *
+     * @param key   The key of the query
+     * @param value The end of the path
+     */
+    void put(final long key, final WayPoint value) {
+        int slot = find(key);
+        if (slot != NONE) {
+            values[slot] = value;
+            touch(slot);
+            return;
+        }
+        if (size == capacity) {
+            slot = oldest;
+            removeFromTable(keys[slot]);
+            unlink(slot);
+            evictions += 1;
+        } else {
+            slot = size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        linkAsNewest(slot);
+        insertIntoTable(key, slot);
+    }
+
+    /**
+     * Drops all paths that may be affected by a change of the walkability of the
+     * given cell. These are all paths containing the cell and all paths that
+     * could be shortened by walking over the cell, which is the case if the
+     * distance from the start to the cell and from the cell to the end is less
+     * than the length of the path. Paths found when flying are not affected.
+     *
+     * @param x X coordinate of the changed cell
+     * @param y Y coordinate of the changed cell
+     *
+     * @return Number of dropped paths
+     */
+    public int invalidate(final int x, final int y) {
+        int dropped = 0;
+        int slot = 0;
+        while (slot < size) {
+            if (isAffected(keys[slot], values[slot], x, y)) {
+                // the last slot moves into this one, so check it again
+                removeSlot(slot);
+                dropped += 1;
+            } else {
+                slot += 1;
+            }
+        }
+        invalidations += dropped;
+        return dropped;
+    }
+
+    private static boolean isAffected(final long key, final WayPoint end, final int x, final int y) {
+        if ((key & 1) != 0) {
+            return false; // flying
+        }
+        final boolean diagonal = (key & 2) != 0;
+        final int endY = (int) ((key >>> 2) & COORDINATE_MASK);
+        final int endX = (int) ((key >>> (2 + COORDINATE_BITS)) & COORDINATE_MASK);
+        final int startY = (int) ((key >>> (2 + 2 * COORDINATE_BITS)) & COORDINATE_MASK);
+        final int startX = (int) ((key >>> (2 + 3 * COORDINATE_BITS)) & COORDINATE_MASK);
+        int steps = -1;
+        for (WayPoint current = end; current != null; current = current.getFather()) {
+            if (current.getX() == x && current.getY() == y) {
+                return true;
+            }
+            steps += 1;
+        }
+        return distance(startX, startY, x, y, diagonal) + distance(x, y, endX, endY, diagonal) < steps;
+    }
+
+    private static int distance(final int x1, final int y1, final int x2, final int y2, final boolean diagonal) {
+        final int dx = Math.abs(x1 - x2);
+        final int dy = Math.abs(y1 - y2);
+        return diagonal ? Math.max(dx, dy) : dx + dy;
+    }
+
+    private void removeSlot(final int slot) {
+        removeFromTable(keys[slot]);
+        unlink(slot);
+        final int last = --size;
+        if (slot != last) {
+            // keep the slots dense by moving the last one
+            keys[slot] = keys[last];
+            values[slot] = values[last];
+            newer[slot] = newer[last];
+            older[slot] = older[last];
+            if (newer[slot] != NONE) {
+                older[newer[slot]] = slot;
+            } else {
+                newest = slot;
+            }
+            if (older[slot] != NONE) {
+                newer[older[slot]] = slot;
+            } else {
+                oldest = slot;
+            }
+            int i = hash(keys[slot]) & mask;
+            while (table[i] != last + 1) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+        }
+        values[last] = null;
+    }
+
+    /**
+     * Removes all cached paths, the statistics will be kept.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(values, null);
+        size = 0;
+        newest = NONE;
+        oldest = NONE;
+    }
+
+    /**
+     * Resets hits, misses and evictions.
+     */
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Number of paths dropped by {@link #invalidate(int, int)}
+     */
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return Share of lookups that were answered by the cache, 0 if there was
+     *         none
+     */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(final long key) {
+        for (int i = hash(key) & mask; table[i] != 0; i = (i + 1) & mask) {
+            final int slot = table[i] - 1;
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private void insertIntoTable(final long key, final int slot) {
+        int i = hash(key) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    private void removeFromTable(final long key) {
+        int i = hash(key) & mask;
+        while (keys[table[i] - 1] != key) {
+            i = (i + 1) & mask;
+        }
+        // backward shift deletion, keeps all probe sequences intact
+        int free = i;
+        for (int j = (free + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            final int home = hash(keys[table[j] - 1]) & mask;
+            // may the entry at j be moved to the free index?
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                table[free] = table[j];
+                free = j;
+            }
+        }
+        table[free] = 0;
+    }
+
+    private void touch(final int slot) {
+        if (slot != newest) {
+            unlink(slot);
+            linkAsNewest(slot);
+        }
+    }
+
+    private void unlink(final int slot) {
+        if (newer[slot] != NONE) {
+            older[newer[slot]] = older[slot];
+        } else {
+            newest = older[slot];
+        }
+        if (older[slot] != NONE) {
+            newer[older[slot]] = newer[slot];
+        } else {
+            oldest = newer[slot];
+        }
+    }
+
+    private void linkAsNewest(final int slot) {
+        newer[slot] = NONE;
+        older[slot] = newest;
+        if (newest != NONE) {
+            newer[newest] = slot;
+        }
+        newest = slot;
+        if (oldest == NONE) {
+            oldest = slot;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PathCache [size=" + size + ", capacity=" + capacity + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", invalidations=" + invalidations + "]";
+    }
+
+}
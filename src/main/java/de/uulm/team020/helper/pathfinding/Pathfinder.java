@@ -1,13 +1,26 @@
 package de.uulm.team020.helper.pathfinding;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 import de.uulm.team020.datatypes.IAmWalkable;
-import de.uulm.team020.datatypes.RingBuffer;
 import de.uulm.team020.datatypes.SimpleGameField;
 import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
+import de.uulm.team020.datatypes.util.DistanceMetric;
 import de.uulm.team020.datatypes.util.ImmutablePair;
+import de.uulm.team020.datatypes.util.ImmutablePoint;
 import de.uulm.team020.datatypes.util.Point;
 import de.uulm.team020.helper.pathfinding.Path.WayPoint;
 import de.uulm.team020.logging.Magpie;
@@ -16,9 +29,26 @@ import de.uulm.team020.logging.Magpie;
  * Basically a path-finder using A*-Algorithm to calculate the optimal path
  * between two points in any two dimensional field. As the field does not change
  * too often i did not implement LPA* and others.
+ * <p>
+ * The search itself is performed by a {@link GridSearch} which works on
+ * primitive arrays and only creates {@link WayPoint}s for the resulting path.
+ * On open maps with diagonal movement the {@link JumpPointSearch} may be
+ * selected using {@link PathfinderMode#JUMP_POINT}, expanding far less cells.
+ * Large fields are better served by {@link PathfinderMode#HIERARCHICAL}, which
+ * searches on precomputed clusters using the {@link HierarchicalSearch}.
+ * The scratch state is kept in a {@link SearchWorkspace} which is reused for
+ * all queries of this pathfinder, so a pathfinder must not be used by multiple
+ * threads at once. Found paths are kept in a {@link PathCache}, which is kept
+ * up to date with the changes of the field automatically if constructed with
+ * an {@link AbstractGameField}. Queries without a path are answered without
+ * searching if a matching {@link DistanceTable} is supplied or the connected
+ * components are known, which {@link #connected(Point, Point, boolean)}
+ * calculates.
+ * The original object-based implementation is still available (package-wide)
+ * to compare against.
  * 
  * @author Florian Sihler
- * @version 1.1, 04/28/2020
+ * @version 1.15, 07/11/2020
  */
 public class Pathfinder<T extends IAmWalkable> {
 
@@ -30,39 +60,38 @@ public class Pathfinder<T extends IAmWalkable> {
     private final boolean canWalkDiagonal;
     private final boolean flying; // does not care if walkable
 
-    private static class BufferElement extends ImmutablePair<ImmutablePair<Point, Point>, WayPoint> {
-
-        public BufferElement(final Point start, final Point end, final WayPoint value) {
-            super(new ImmutablePair<>(start, end), value);
-        }
-
-        public BufferElement(final ImmutablePair<Point, Point> key, final WayPoint value) {
-            super(key, value);
-        }
-
-        /**
-         * Returns the cached value for the search if found
-         * 
-         * @param cache  The cache to search.
-         * @param search The Pair you search for
-         * @return The target point or null if no cache or not found
-         */
-        public static WayPoint get(final RingBuffer<BufferElement> cache, final ImmutablePair<Point, Point> search) {
-            if (cache == null)
-                return null;
-            for (final BufferElement bufferElement : cache) {
-                if (Objects.equals(bufferElement.getKey(), search))
-                    return bufferElement.getValue();
-            }
-            return null;
-        }
-    }
-
-    private final RingBuffer<BufferElement> cache;
+    private final PathCache cache;
+    // the field the array belongs to, used to keep the cache up to date
+    private final AbstractGameField<T> source;
+    private long seenVersion = 0;
+    // precomputed distances, used to reject unreachable queries early
+    private DistanceTable distanceTable;
+    // connected components, only kept if changes to the field are reported
+    private ComponentIndex<T> components;
+    // steps possible in both directions with the rules of the grid search
+    private ComponentIndex<T> legacyComponents;
 
     private final int width;
     private final int height;
 
+    private final PathfinderMode mode;
+    private SearchEngine engine;
+    // the engine if it is the plain search, null otherwise
+    private GridSearch<T> gridEngine;
+    // estimates the remaining steps, null for the default of the engine
+    private DistanceMetric heuristic;
+    // cells closed by the last search and if it ran out of budget
+    private int expansions;
+    private boolean exhausted;
+    // only set in hierarchical mode, has to learn about changes
+    private final HierarchicalSearch<T> hierarchy;
+    private final SearchWorkspace workspace;
+    // moving obstacles and the engine respecting them, null if there are none
+    private OccupancyOverlay occupancy;
+    private SearchEngine occupancyEngine;
+    // scratch space of the workers answering batches, reused between them
+    private final Queue<SearchWorkspace> batchWorkspaces = new ConcurrentLinkedQueue<>();
+
     /**
      * Will reference this field for path finding, this means that all changes to
      * the field will be known by the pathfinder and considered with the <i>next</i>
@@ -152,7 +181,7 @@ public class Pathfinder<T extends IAmWalkable> {
      * @param field The field to get the data from
      */
     public Pathfinder(final AbstractGameField<T> field) {
-        this(field.getField(), field.getMaxWidth(), field.getMaxHeight(), true);
+        this(field, true);
     }
 
     /**
@@ -178,7 +207,7 @@ public class Pathfinder<T extends IAmWalkable> {
      *                        will not check fields for being walkable.
      */
     public Pathfinder(final AbstractGameField<T> field, boolean canWalkDiagonal, boolean canFly) {
-        this(field.getField(), field.getMaxWidth(), field.getMaxHeight(), DEFAULT_CACHE_SIZE, canWalkDiagonal, canFly);
+        this(field, DEFAULT_CACHE_SIZE, canWalkDiagonal, canFly);
     }
 
     /**
@@ -190,7 +219,7 @@ public class Pathfinder<T extends IAmWalkable> {
      * @param cacheSize Size of the internal cache, use 0 to disable
      */
     public Pathfinder(final AbstractGameField<T> field, final int cacheSize) {
-        this(field.getField(), field.getMaxWidth(), field.getMaxHeight(), cacheSize);
+        this(field, cacheSize, true, false);
     }
 
     /**
@@ -203,7 +232,7 @@ public class Pathfinder<T extends IAmWalkable> {
      * @param canWalkDiagonal Should the Pathfinder allow diagonal movement?
      */
     public Pathfinder(final AbstractGameField<T> field, final int cacheSize, boolean canWalkDiagonal) {
-        this(field.getField(), field.getMaxWidth(), field.getMaxHeight(), cacheSize, canWalkDiagonal, false);
+        this(field, cacheSize, canWalkDiagonal, false);
     }
 
     /**
@@ -219,7 +248,37 @@ public class Pathfinder<T extends IAmWalkable> {
      */
     public Pathfinder(final AbstractGameField<T> field, final int cacheSize, boolean canWalkDiagonal,
             final boolean canFly) {
-        this(field.getField(), field.getMaxWidth(), field.getMaxHeight(), cacheSize, canWalkDiagonal, canFly);
+        this(field, cacheSize, canWalkDiagonal, canFly, PathfinderMode.A_STAR);
+    }
+
+    /**
+     * Will reference the embedded field for path finding, this means that all
+     * changes to the field will be known by the pathfinder and considered with the
+     * <i>next</i> calculation. Will be grounded and allows diagonal movement.
+     * 
+     * @param field The field to get the data from
+     * @param mode  The search-algorithm to use
+     */
+    public Pathfinder(final AbstractGameField<T> field, final PathfinderMode mode) {
+        this(field, DEFAULT_CACHE_SIZE, true, false, mode);
+    }
+
+    /**
+     * Will reference the embedded field for path finding, this means that all
+     * changes to the field will be known by the pathfinder and considered with the
+     * <i>next</i> calculation.
+     * 
+     * @param field           The field to get the data from
+     * @param cacheSize       Size of the internal cache, use 0 to disable
+     * @param canWalkDiagonal Should the Pathfinder allow diagonal movement?
+     * @param canFly          Will be true if the Pathfinder can fly - this means it
+     *                        will not check fields for being walkable.
+     * @param mode            The search-algorithm to use
+     */
+    public Pathfinder(final AbstractGameField<T> field, final int cacheSize, boolean canWalkDiagonal,
+            final boolean canFly, final PathfinderMode mode) {
+        this(field, field.getField(), field.getMaxWidth(), field.getMaxHeight(), cacheSize, canWalkDiagonal, canFly,
+                mode);
     }
 
     /**
@@ -237,28 +296,219 @@ public class Pathfinder<T extends IAmWalkable> {
      */
     public Pathfinder(final T[][] field, final int maxWidth, final int maxHeight, final int cacheSize,
             boolean canWalkDiagonal, boolean canFly) {
+        this(field, maxWidth, maxHeight, cacheSize, canWalkDiagonal, canFly, PathfinderMode.A_STAR);
+    }
+
+    /**
+     * Will reference this field for path finding, this means that all changes to
+     * the field will be known by the pathfinder and considered with the <i>next</i>
+     * calculation.
+     * 
+     * @param field           The field to use
+     * @param maxWidth        Maximum width of the field
+     * @param maxHeight       Maximum Height of the field
+     * @param cacheSize       Size of the internal cache, use 0 to disable
+     * @param canWalkDiagonal Should the Pathfinder allow diagonal movement?
+     * @param canFly          Will be true if the Pathfinder can fly - this means it
+     *                        will not check fields for being walkable.
+     * @param mode            The search-algorithm to use
+     */
+    public Pathfinder(final T[][] field, final int maxWidth, final int maxHeight, final int cacheSize,
+            boolean canWalkDiagonal, boolean canFly, final PathfinderMode mode) {
+        this(null, field, maxWidth, maxHeight, cacheSize, canWalkDiagonal, canFly, mode);
+    }
+
+    private Pathfinder(final AbstractGameField<T> source, final T[][] field, final int maxWidth, final int maxHeight,
+            final int cacheSize, boolean canWalkDiagonal, boolean canFly, final PathfinderMode mode) {
+        this.source = source;
+        if (source != null) {
+            source.trackFieldChanges();
+            this.seenVersion = source.getChangeVersion();
+        }
         this.field = field;
         this.width = maxWidth;
         this.height = maxHeight;
         if (cacheSize > 0) {
-            cache = new RingBuffer<>(cacheSize);
+            cache = new PathCache(cacheSize);
         } else {
             cache = null;
         }
         this.canWalkDiagonal = canWalkDiagonal;
         this.flying = canFly;
+        this.mode = Objects.requireNonNull(mode, "Mode");
+        if (mode == PathfinderMode.HIERARCHICAL) {
+            this.hierarchy = new HierarchicalSearch<>(field, HierarchicalSearch.DEFAULT_CLUSTER_SIZE,
+                    canWalkDiagonal, canFly);
+            this.engine = hierarchy;
+        } else {
+            this.hierarchy = null;
+            createFieldEngine();
+        }
+        this.workspace = new SearchWorkspace(maxWidth * maxHeight);
     }
 
     public T[][] getField() {
         return this.field;
     }
 
+    public PathfinderMode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Returns the cache of found paths, which may be used to query its
+     * statistics.
+     * 
+     * @return The cache, null if caching is disabled
+     */
+    public PathCache getCache() {
+        return this.cache;
+    }
+
     /**
      * To be called, whenever the field changes, this will prevent faulty caches
-     * from being used.
+     * from being used. If the pathfinder was constructed using an
+     * {@link AbstractGameField} this is done automatically, dropping only the
+     * paths affected by the changes. In hierarchical mode the clusters will be
+     * built again.
      */
     public void invalidateCache() {
-        this.cache.clear();
+        if (this.cache != null) {
+            this.cache.clear();
+        }
+        if (this.hierarchy != null) {
+            this.hierarchy.invalidateAll();
+        }
+        this.components = null;
+        this.legacyComponents = null;
+    }
+
+    /**
+     * Supplies precomputed distances for the field, which will be used to answer
+     * all queries between walkable cells without a path in constant time. The
+     * table is ignored when flying and will be dropped as soon as the
+     * walkability of a cell in the source field changes.
+     * 
+     * @param distanceTable The table to use, null to use none
+     * 
+     * @throws IllegalArgumentException If the table was not built for this field
+     *                                  and movement
+     */
+    public void setDistanceTable(final DistanceTable distanceTable) {
+        if (distanceTable != null && (distanceTable.canWalkDiagonal() != canWalkDiagonal
+                || !distanceTable.matches(field))) {
+            throw new IllegalArgumentException("The distance table " + distanceTable + " does not match the field.");
+        }
+        synchronizeWithSource();
+        if (source != null) {
+            // the table reflects the current state
+            this.seenVersion = source.getChangeVersion();
+        }
+        this.distanceTable = distanceTable;
+    }
+
+    /**
+     * @return The distance table in use, null if there is none
+     */
+    public DistanceTable getDistanceTable() {
+        return this.distanceTable;
+    }
+
+    /**
+     * Layers the given overlay on top of the field, all cells occupied in it will
+     * be treated as blocked by the following searches (unless flying). The
+     * overlay may be changed between searches, neither cached paths nor the
+     * precomputed connectivity have to be dropped for that: cached paths crossing
+     * an occupied cell are ignored and paths found while cells are occupied are
+     * not cached. In {@link PathfinderMode#HIERARCHICAL} the clusters do not know
+     * about the overlay, so while cells are occupied the plain search is used.
+     * 
+     * @param occupancy The overlay to use, null to use none
+     */
+    public void setOccupancy(final OccupancyOverlay occupancy) {
+        this.occupancy = occupancy;
+        this.occupancyEngine = occupancy == null ? null : createEngine(field, occupancy);
+    }
+
+    /**
+     * @return The overlay in use, null if there is none
+     */
+    public OccupancyOverlay getOccupancy() {
+        return this.occupancy;
+    }
+
+    /**
+     * Replaces the metric estimating the remaining steps of the searches. By
+     * default this is the {@link DistanceMetric#KING} if walking diagonal, the
+     * {@link DistanceMetric#MANHATTAN} otherwise, which both never overestimate
+     * and therefore guarantee the shortest paths. The {@link DistanceMetric#ZERO}
+     * searches in all directions alike. Cached paths are dropped, the
+     * {@link PathfinderMode#HIERARCHICAL} clusters keep their own estimates.
+     * 
+     * @param heuristic The metric to use, null to use the default
+     */
+    public void setHeuristic(final DistanceMetric heuristic) {
+        this.heuristic = heuristic;
+        if (hierarchy == null) {
+            createFieldEngine();
+        }
+        if (occupancy != null) {
+            this.occupancyEngine = createEngine(field, occupancy);
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return The metric estimating the remaining steps, null if the default is
+     *         used
+     */
+    public DistanceMetric getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * @return Number of cells expanded by the last search, 0 if the last query
+     *         was answered without searching
+     */
+    public int getExpansions() {
+        return this.expansions;
+    }
+
+    // the engine searching the field itself, typed if it is the plain search
+    private void createFieldEngine() {
+        if (mode == PathfinderMode.JUMP_POINT && canWalkDiagonal) {
+            this.gridEngine = null;
+            this.engine = createEngine(field, null);
+        } else {
+            this.gridEngine = new GridSearch<>(field, canWalkDiagonal, flying, null, heuristic);
+            this.engine = gridEngine;
+        }
+    }
+
+    private <F extends IAmWalkable> SearchEngine createEngine(final F[][] searchField,
+            final OccupancyOverlay overlay) {
+        if (mode == PathfinderMode.JUMP_POINT && canWalkDiagonal) {
+            return new JumpPointSearch<>(searchField, flying, overlay,
+                    heuristic == null ? DistanceMetric.KING : heuristic);
+        }
+        return new GridSearch<>(searchField, canWalkDiagonal, flying, overlay, heuristic);
+    }
+
+    private boolean isOccupied() {
+        return occupancy != null && !flying && !occupancy.isEmpty();
+    }
+
+    // are cells of the path (but its start) occupied?
+    private boolean crossesOccupied(final WayPoint end, final boolean checkStartEnd) {
+        for (WayPoint current = checkStartEnd ? end : end.getFather(); current != null
+                && current.getFather() != null; current = current.getFather()) {
+            if (occupancy.isOccupied(current)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private PriorityQueue<WayPoint> constructQueue() {
@@ -274,13 +524,21 @@ public class Pathfinder<T extends IAmWalkable> {
      * @param end   The end of the path
      * 
      * @return True if there is a path, false otherwise.
+     * 
+     * @see #connected(Point, Point, boolean)
      */
     public boolean connected(final Point start, final Point end) {
-        return !Objects.equals(find(start, end, false), WayPoint.INVALID);
+        return connected(start, end, false);
     }
 
     /**
-     * Checks if there is a path between the two points
+     * Checks if there is a path between the two points. If the pathfinder was
+     * constructed using an {@link AbstractGameField}, this compares the labels of
+     * the connected components of both points, which are calculated with the
+     * first call and afterwards kept up to date. Only if the last cell of a row
+     * may make a difference for the {@link PathfinderMode#A_STAR} or cells are
+     * occupied (see {@link #setOccupancy(OccupancyOverlay)}) and the labels do not
+     * rule out a path, a path will be searched.
      * 
      * @param start         The start of the path
      * @param end           The end of the path
@@ -289,6 +547,20 @@ public class Pathfinder<T extends IAmWalkable> {
      * @return True if there is a path, false otherwise.
      */
     public boolean connected(final Point start, final Point end, final boolean checkStartEnd) {
+        if (source != null && !startOrEndAreInvalid(start, end)
+                && !startAndEndAreNotVisibleButShouldBe(start, end, checkStartEnd)) {
+            synchronizeWithSource();
+            if (components == null) {
+                buildComponents();
+            }
+            if (!components.connected(start.getX(), start.getY(), end.getX(), end.getY(), !checkStartEnd)) {
+                return false;
+            }
+            if (!isOccupied() && (legacyComponents == null || legacyComponents.connected(start.getX(), start.getY(),
+                    end.getX(), end.getY(), !checkStartEnd))) {
+                return true;
+            }
+        }
         return !Objects.equals(find(start, end, checkStartEnd), WayPoint.INVALID);
     }
 
@@ -327,6 +599,214 @@ public class Pathfinder<T extends IAmWalkable> {
         return Objects.equals(found, WayPoint.INVALID) ? Path.INVALID_PATH : new Path(found);
     }
 
+    /**
+     * Calculates the cheapest way between start and end using the supplied field
+     * like {@link #findPath(Point, Point, boolean)}, but returns it packed, so no
+     * way-points are copied.
+     * 
+     * @param start         The start of the path
+     * @param end           The end of the path
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     * 
+     * @return The path starting with the start-point and ending with the end point.
+     *         Returns {@link PackedPath#INVALID_PATH} if there is no path
+     * 
+     * @see #find(Point, Point, boolean)
+     */
+    public PackedPath findPackedPath(final Point start, final Point end, final boolean checkStartEnd) {
+        final WayPoint found = find(start, end, checkStartEnd);
+        return Objects.equals(found, WayPoint.INVALID) ? PackedPath.INVALID_PATH : PackedPath.of(found);
+    }
+
+    /**
+     * Calculates the cheapest way from the start to the closest of the given
+     * goals, searching only once instead of once per goal. Goals which are not on
+     * the field are ignored.
+     * 
+     * @param start         The start of the path
+     * @param goals         The candidates to reach
+     * @param checkStartEnd Should start and goals be checked for being walkable?
+     * 
+     * @return The path starting with the start-point and ending with the nearest
+     *         reachable goal. Returns {@link Path#INVALID_PATH} if no goal can be
+     *         reached
+     */
+    public Path findNearest(final Point start, final Set<? extends Point> goals, final boolean checkStartEnd) {
+        expansions = 0;
+        final int gridWidth = gridWidth();
+        final BitSet candidates = new BitSet(gridWidth * field.length);
+        if (startIsValid(start, checkStartEnd)) {
+            synchronizeWithSource();
+            for (final Point goal : goals) {
+                if (goal.isOnField(field) && !knownToBeUnreachable(start, goal, checkStartEnd)) {
+                    candidates.set(goal.getY() * gridWidth + goal.getX());
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            magpie.writeInfo("No reachable goal for start: " + start + " in: " + goals + ".", "Nearest");
+            return Path.INVALID_PATH;
+        }
+        return findNearest(start, (x, y) -> candidates.get(y * gridWidth + x), checkStartEnd);
+    }
+
+    /**
+     * Calculates the cheapest way from the start to the closest cell accepted by
+     * the predicate, searching only once. The predicate will be asked for every
+     * cell reached, use {@link #findNearest(Point, Set, boolean)} if the goals
+     * are known beforehand.
+     * 
+     * @param start         The start of the path
+     * @param isGoal        Identifies the goals, gets cells on the field only
+     * @param checkStartEnd Should start and goals be checked for being walkable?
+     * 
+     * @return The path starting with the start-point and ending with the nearest
+     *         reachable goal. Returns {@link Path#INVALID_PATH} if no goal can be
+     *         reached
+     */
+    public Path findNearest(final Point start, final Predicate<? super Point> isGoal, final boolean checkStartEnd) {
+        Objects.requireNonNull(isGoal, "Goal");
+        expansions = 0;
+        if (!startIsValid(start, checkStartEnd)) {
+            return Path.INVALID_PATH;
+        }
+        return findNearest(start, (x, y) -> isGoal.test(ImmutablePoint.of(x, y)), checkStartEnd);
+    }
+
+    private Path findNearest(final Point start, final GridSearch.Goals goals, final boolean checkStartEnd) {
+        // the other engines need a single end, the plain search does not
+        final GridSearch<T> search = gridEngine != null && occupancy == null ? gridEngine
+                : new GridSearch<>(field, canWalkDiagonal, flying, occupancy);
+        final int found = search.searchNearest(workspace, start.getX(), start.getY(), goals, checkStartEnd);
+        expansions = workspace.getExpansions();
+        if (found == SearchEngine.NO_PATH) {
+            magpie.writeInfo("No goal found for start: " + start + ".", "Nearest");
+            return Path.INVALID_PATH;
+        }
+        return new Path(GridSearch.toWayPoint(workspace, found));
+    }
+
+    private boolean startIsValid(final Point start, final boolean checkStartEnd) {
+        if (!Objects.requireNonNull(start, "Start").isOnField(field)) {
+            magpie.writeError("Start " + start + " has to be in the field, it is not.", "Nearest");
+            return false;
+        }
+        return !checkStartEnd || !field[start.getY()][start.getX()].blocksWay();
+    }
+
+    private int gridWidth() {
+        int gridWidth = 0;
+        for (final T[] row : field) {
+            if (row != null && row.length > gridWidth) {
+                gridWidth = row.length;
+            }
+        }
+        return gridWidth;
+    }
+
+    /**
+     * Calculates the cheapest ways between multiple pairs of start and end in
+     * parallel using the common {@link ForkJoinPool}. Will not check if start and
+     * end are both walkable.
+     * 
+     * @param queries Pairs of start and end
+     * 
+     * @return The paths in the order of the queries
+     * 
+     * @see #findPaths(Collection, boolean, ForkJoinPool)
+     */
+    public List<Path> findPaths(final Collection<ImmutablePair<Point, Point>> queries) {
+        return findPaths(queries, false, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Calculates the cheapest ways between multiple pairs of start and end in
+     * parallel. All searches work on the same copy of the walkability of the
+     * field taken at the beginning, so they are consistent even if the field
+     * changes meanwhile. Every worker of the pool gets its own
+     * {@link SearchWorkspace}. Cached paths will be used and found ones cached.
+     * <p>
+     * In {@link PathfinderMode#HIERARCHICAL} the precomputed clusters are shared,
+     * so the queries will be answered one after another.
+     * 
+     * @param queries       Pairs of start and end
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     * @param pool          The pool to run the searches in
+     * 
+     * @return The paths in the order of the queries, {@link Path#INVALID_PATH}
+     *         for all queries without a path
+     */
+    public List<Path> findPaths(final Collection<ImmutablePair<Point, Point>> queries, final boolean checkStartEnd,
+            final ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "Pool");
+        final List<ImmutablePair<Point, Point>> pairs = new ArrayList<>(queries);
+        final Path[] results = new Path[pairs.size()];
+        if (hierarchy != null) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = findPath(pairs.get(i).getKey(), pairs.get(i).getValue(), checkStartEnd);
+            }
+            return Arrays.asList(results);
+        }
+        synchronizeWithSource();
+        final boolean occupied = isOccupied();
+        final long[] keys = new long[results.length];
+        final int[] searches = new int[results.length];
+        int searchCount = 0;
+        for (int i = 0; i < results.length; i++) {
+            final Point start = pairs.get(i).getKey();
+            final Point end = pairs.get(i).getValue();
+            if (startOrEndAreInvalid(start, end) || startAndEndAreNotVisibleButShouldBe(start, end, checkStartEnd)
+                    || knownToBeUnreachable(start, end, checkStartEnd)) {
+                results[i] = Path.INVALID_PATH;
+                continue;
+            }
+            keys[i] = cache == null ? PathCache.NO_KEY
+                    : PathCache.key(start.getX(), start.getY(), end.getX(), end.getY(), canWalkDiagonal, flying);
+            final WayPoint cached = keys[i] == PathCache.NO_KEY ? null : cache.get(keys[i]);
+            if (cached != null && (!occupied || !crossesOccupied(cached, checkStartEnd))) {
+                results[i] = new Path(cached);
+            } else {
+                searches[searchCount++] = i;
+            }
+        }
+        if (searchCount == 0) {
+            return Arrays.asList(results);
+        }
+
+        final FieldSnapshot.Cell[][] snapshot = FieldSnapshot.of(field, occupied ? occupancy : null);
+        final SearchEngine batchEngine = createEngine(snapshot, null);
+        final WayPoint[] found = new WayPoint[results.length];
+        final int parallelCount = searchCount;
+        pool.submit(() -> IntStream.range(0, parallelCount).parallel().forEach(j -> {
+            final int i = searches[j];
+            final Point start = pairs.get(i).getKey();
+            final Point end = pairs.get(i).getValue();
+            SearchWorkspace scratch = batchWorkspaces.poll();
+            if (scratch == null) {
+                scratch = new SearchWorkspace(width * height);
+            }
+            final int node = batchEngine.search(scratch, start.getX(), start.getY(), end.getX(), end.getY(),
+                    checkStartEnd);
+            found[i] = node == SearchEngine.NO_PATH ? WayPoint.INVALID : GridSearch.toWayPoint(scratch, node);
+            batchWorkspaces.offer(scratch);
+        })).join();
+
+        for (int j = 0; j < searchCount; j++) {
+            final int i = searches[j];
+            if (Objects.equals(found[i], WayPoint.INVALID)) {
+                results[i] = Path.INVALID_PATH;
+            } else {
+                if (keys[i] != PathCache.NO_KEY && !occupied) {
+                    cache.put(keys[i], found[i]);
+                }
+                results[i] = new Path(found[i]);
+            }
+        }
+        magpie.writeInfo("Answered " + results.length + " queries, searched " + searchCount + " in parallel.",
+                "Find");
+        return Arrays.asList(results);
+    }
+
     /**
      * Calculates the cheapest way between start and end using the supplied field.
      * Will not check if start and end are both walkable.
@@ -352,6 +832,40 @@ public class Pathfinder<T extends IAmWalkable> {
      *         be {@link WayPoint#INVALID} if nothing found.
      */
     public WayPoint find(final Point start, final Point end, final boolean checkStartEnd) {
+        return find(start, end, checkStartEnd, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Calculates the cheapest way between start and end, giving up if the budget
+     * is used up. Then the path leads from the start to the cell estimated to be
+     * closest to the end, so the caller may at least move in the right direction.
+     * Only complete paths will be cached. In {@link PathfinderMode#HIERARCHICAL}
+     * the clusters can not be searched partially, so the plain search is used.
+     * 
+     * @param start         The start of the path
+     * @param end           The end of the path
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     * @param budget        Limits the search, {@link SearchBudget#UNLIMITED} for
+     *                      no limit
+     * 
+     * @return The result, holding the complete or partial path
+     */
+    public SearchResult findPath(final Point start, final Point end, final boolean checkStartEnd,
+            final SearchBudget budget) {
+        final WayPoint found = find(start, end, checkStartEnd, Objects.requireNonNull(budget, "Budget"));
+        if (exhausted) {
+            return new SearchResult(SearchResult.Status.EXHAUSTED, new Path(found), expansions);
+        }
+        if (Objects.equals(found, WayPoint.INVALID)) {
+            return new SearchResult(SearchResult.Status.NO_PATH, Path.INVALID_PATH, expansions);
+        }
+        return new SearchResult(SearchResult.Status.FOUND, new Path(found), expansions);
+    }
+
+    private WayPoint find(final Point start, final Point end, final boolean checkStartEnd,
+            final SearchBudget budget) {
+        expansions = 0;
+        exhausted = false;
         // First: validate, that both points are on the field
         if (startOrEndAreInvalid(start, end)) {
             magpie.writeError(
@@ -366,14 +880,62 @@ public class Pathfinder<T extends IAmWalkable> {
                     + " have both be to be walkable (set by flag: checkStartEnd), they are not.", "Find");
             return WayPoint.INVALID; // Start or end not walkable
         }
+        synchronizeWithSource();
+        if (knownToBeUnreachable(start, end, checkStartEnd)) {
+            magpie.writeInfo("No path for start: " + start + " and end: " + end + " by precomputed connectivity.",
+                    "Find");
+            return WayPoint.INVALID;
+        }
         // Is there something cached?
-        final WayPoint target = BufferElement.get(cache, new ImmutablePair<>(start, end));
-        if (target != null) {
+        final long key = cache == null ? PathCache.NO_KEY
+                : PathCache.key(start.getX(), start.getY(), end.getX(), end.getY(), canWalkDiagonal, flying);
+        final WayPoint target = key == PathCache.NO_KEY ? null : cache.get(key);
+        final boolean occupied = isOccupied();
+        if (target != null && (!occupied || !crossesOccupied(target, checkStartEnd))) {
             magpie.writeInfo("Using cached value for: start: " + start + " and end: " + end + ". Which is: " + target,
                     "Find");
             return target;
         }
 
+        final SearchEngine searching;
+        if (occupied) {
+            searching = occupancyEngine;
+        } else if (hierarchy != null && budget.isLimited()) {
+            searching = createEngine(field, null);
+        } else {
+            searching = engine;
+        }
+        final int found = searching.search(workspace, start.getX(), start.getY(), end.getX(), end.getY(),
+                checkStartEnd, budget);
+        expansions = workspace.getExpansions();
+        if (found == SearchEngine.BUDGET_EXHAUSTED) {
+            magpie.writeInfo("Budget " + budget + " exhausted for start: " + start + " and end: " + end + ".",
+                    "Find");
+            exhausted = true;
+            return GridSearch.toWayPoint(workspace, workspace.getClosest());
+        }
+        if (found == SearchEngine.NO_PATH) {
+            magpie.writeInfo("No path found for start: " + start + " and end: " + end + ".", "Find");
+            return WayPoint.INVALID;
+        }
+        // the detours around occupied cells are only valid for now
+        return appendEndAndReturnFinalWayPoint(start, end, occupied ? PathCache.NO_KEY : key,
+                GridSearch.toWayPoint(workspace, found));
+    }
+
+    /**
+     * The original object-based A*-implementation, kept to compare the results of
+     * the primitive engine against. Validation and caching has to be done by the
+     * caller.
+     * 
+     * @param start         The start of the path
+     * @param end           The end of the path
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     * 
+     * @return The populated 'end' of the path - feed upwards with the father, will
+     *         be {@link WayPoint#INVALID} if nothing found.
+     */
+    WayPoint findLegacy(final Point start, final Point end, final boolean checkStartEnd) {
         final PriorityQueue<WayPoint> queue = constructQueue();
         final WayPoint[][] calc = new WayPoint[height][width];
 
@@ -401,7 +963,7 @@ public class Pathfinder<T extends IAmWalkable> {
             visited[y][x] = true;
 
             if (current.equals(end)) { // Found end!
-                return appendEndAndReturnFinalWayPoint(start, end, current);
+                return current;
             }
             // was a blocking end-check to toss away
             else if (fieldIsNotValidToWalkOn(start, current, x, y)) {
@@ -418,16 +980,74 @@ public class Pathfinder<T extends IAmWalkable> {
         }
 
         // not found
-        magpie.writeInfo("No path found for start: " + start + " and end: " + end + ".", "Find");
         return WayPoint.INVALID;
     }
 
+    private void buildComponents() {
+        components = new ComponentIndex<>(field, canWalkDiagonal, flying, false);
+        // the grid search does not follow the plain neighbour rules
+        legacyComponents = engine instanceof GridSearch ? new ComponentIndex<>(field, canWalkDiagonal, flying, true)
+                : null;
+    }
+
+    private boolean knownToBeUnreachable(final Point start, final Point end, final boolean checkStartEnd) {
+        if (components != null) {
+            // every path of the engines follows the plain neighbour rules
+            return !components.connected(start.getX(), start.getY(), end.getX(), end.getY(), !checkStartEnd);
+        }
+        // the table only knows walkable cells
+        return distanceTable != null && !flying && !field[start.getY()][start.getX()].blocksWay()
+                && !field[end.getY()][end.getX()].blocksWay() && !distanceTable.connected(start, end);
+    }
+
+    /**
+     * Drops all cached paths and the distance table if they may be affected by
+     * the changes made to the source field since the last query, marks the
+     * changed clusters in hierarchical mode and updates the components.
+     */
+    private void synchronizeWithSource() {
+        if (source == null || cache == null && distanceTable == null && hierarchy == null && components == null) {
+            return;
+        }
+        final long version = source.getChangeVersion();
+        if (version == seenVersion) {
+            return;
+        }
+        if (!source.forEachChangeSince(seenVersion, this::cellChanged)) {
+            // we fell behind, there is no way to know what changed
+            invalidateCache();
+            distanceTable = null;
+        }
+        seenVersion = version;
+    }
+
+    private void cellChanged(final int x, final int y, final int kinds) {
+        if ((kinds & FieldChangeLog.WALKABILITY) != 0) {
+            if (cache != null) {
+                cache.invalidate(x, y);
+            }
+            distanceTable = null;
+            if (hierarchy != null) {
+                hierarchy.invalidate(x, y);
+            }
+            if (components != null) {
+                components.update(x, y);
+            }
+            if (legacyComponents != null) {
+                legacyComponents.update(x, y);
+            }
+        }
+    }
+
     private boolean fieldIsNotValidToWalkOn(final Point start, WayPoint current, int x, int y) {
         return !current.equals(start) && !flying && field[y][x].blocksWay();
     }
 
-    private WayPoint appendEndAndReturnFinalWayPoint(final Point start, final Point end, WayPoint current) {
-        cache.add(new BufferElement(start, end, current)); // cache it
+    private WayPoint appendEndAndReturnFinalWayPoint(final Point start, final Point end, final long key,
+            WayPoint current) {
+        if (key != PathCache.NO_KEY) {
+            cache.put(key, current); // cache it
+        }
         magpie.writeInfo("Found and cached: start: " + start + " end: " + end + " with found : " + current, "Find");
         return current;
     }
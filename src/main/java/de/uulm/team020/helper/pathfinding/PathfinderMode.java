@@ -0,0 +1,27 @@
+package de.uulm.team020.helper.pathfinding;
+
+/**
+ * The search-algorithm a {@link Pathfinder} uses.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public enum PathfinderMode {
+    /**
+     * Plain A*, expanding every neighbour. Keeps the paths of the original
+     * implementation. This is the default.
+     */
+    A_STAR,
+    /**
+     * Jump point search, expands only few cells on open maps. Requires diagonal
+     * movement, A* will be used otherwise. Paths are optimal but may differ
+     * from the ones found by A*.
+     */
+    JUMP_POINT,
+    /**
+     * Hierarchical search on clusters of the field, meant for large fields. The
+     * clusters are prepared with the first search and repaired when cells
+     * change. Paths are near optimal.
+     */
+    HIERARCHICAL
+}
@@ -0,0 +1,136 @@
+package de.uulm.team020.helper.pathfinding;
+
+/**
+ * Limits the work of a single search, either by the number of cells expanded,
+ * by a deadline or both. Meant for callers that have to answer in time, like
+ * clients bound to the turn phase limit of the
+ * {@link de.uulm.team020.datatypes.Matchconfig}. Budgets are immutable and may
+ * be used for multiple searches, the expansions are counted per search.
+ * <p>
+ * The deadline is given in terms of {@link System#nanoTime()} and checked every
+ * {@value #DEADLINE_INTERVAL} expansions, as asking for the time is not free.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ *
+ * @see Pathfinder#findPath(de.uulm.team020.datatypes.util.Point,
+ *      de.uulm.team020.datatypes.util.Point, boolean, SearchBudget)
+ */
+public final class SearchBudget {
+
+    /** Number of expansions between two checks of the deadline */
+    public static final int DEADLINE_INTERVAL = 64;
+
+    /** Does not limit the search at all */
+    public static final SearchBudget UNLIMITED = new SearchBudget(Integer.MAX_VALUE, 0, false);
+
+    private final int maxExpansions;
+    private final long deadline;
+    private final boolean hasDeadline;
+
+    private SearchBudget(final int maxExpansions, final long deadline, final boolean hasDeadline) {
+        if (maxExpansions < 0) {
+            throw new IllegalArgumentException("Expansions (" + maxExpansions + ") may not be negative.");
+        }
+        this.maxExpansions = maxExpansions;
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /**
+     * @param maxExpansions Maximum number of cells to expand
+     *
+     * @return A budget limiting the expansions only
+     *
+     * @throws IllegalArgumentException If the number is negative
+     */
+    public static SearchBudget ofExpansions(final int maxExpansions) {
+        return new SearchBudget(maxExpansions, 0, false);
+    }
+
+    /**
+     * @param deadline The point in time, in terms of {@link System#nanoTime()},
+     *                 the search has to end
+     *
+     * @return A budget limiting the time only
+     */
+    public static SearchBudget ofDeadline(final long deadline) {
+        return new SearchBudget(Integer.MAX_VALUE, deadline, true);
+    }
+
+    /**
+     * @param timeout Nanoseconds from now the search has to end
+     *
+     * @return A budget limiting the time only
+     */
+    public static SearchBudget ofTimeout(final long timeout) {
+        return ofDeadline(System.nanoTime() + timeout);
+    }
+
+    /**
+     * @param maxExpansions Maximum number of cells to expand
+     *
+     * @return A new budget with the deadline of this one and the given limit
+     *
+     * @throws IllegalArgumentException If the number is negative
+     */
+    public SearchBudget withExpansions(final int maxExpansions) {
+        return new SearchBudget(maxExpansions, deadline, hasDeadline);
+    }
+
+    /**
+     * @param deadline The point in time, in terms of {@link System#nanoTime()},
+     *                 the search has to end
+     *
+     * @return A new budget with the expansion limit of this one and the given
+     *         deadline
+     */
+    public SearchBudget withDeadline(final long deadline) {
+        return new SearchBudget(maxExpansions, deadline, true);
+    }
+
+    public int getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return The deadline in terms of {@link System#nanoTime()}, meaningless if
+     *         there is none
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return True if this budget does limit a search
+     */
+    public boolean isLimited() {
+        return hasDeadline || maxExpansions != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks if a search has to stop, the deadline is only checked with the
+     * first and then every {@value #DEADLINE_INTERVAL}th expansion.
+     *
+     * @param expansions Number of cells the search expanded so far
+     *
+     * @return True if the budget is used up
+     */
+    boolean isExhausted(final int expansions) {
+        if (expansions >= maxExpansions) {
+            return true;
+        }
+        return hasDeadline && expansions % DEADLINE_INTERVAL == 1 && System.nanoTime() - deadline >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchBudget [maxExpansions=" + maxExpansions + ", deadline=" + (hasDeadline ? deadline : "none")
+                + "]";
+    }
+
+}
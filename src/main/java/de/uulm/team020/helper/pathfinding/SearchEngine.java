@@ -0,0 +1,59 @@
+package de.uulm.team020.helper.pathfinding;
+
+/**
+ * A search-algorithm used by the {@link Pathfinder}. Engines keep no state
+ * between searches, everything lives in the {@link SearchWorkspace}. The found
+ * path is stored as parent-links in the workspace, consecutive nodes may be
+ * further apart than one step as long as they lie on a straight or diagonal
+ * line (see {@link GridSearch#toWayPoint(SearchWorkspace, int)}).
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+interface SearchEngine {
+
+    /** Returned by {@link #search(SearchWorkspace, int, int, int, int, boolean)} if there is no path */
+    int NO_PATH = -1;
+    /**
+     * Returned by a budgeted search that had to stop, the cell estimated to be
+     * closest to the end is kept by the workspace
+     */
+    int BUDGET_EXHAUSTED = -2;
+
+    /**
+     * Searches for the cheapest path between the two cells. Both have to be on
+     * the field.
+     *
+     * @param workspace     The workspace to use, will be prepared
+     * @param startX        X coordinate of the start
+     * @param startY        Y coordinate of the start
+     * @param endX          X coordinate of the end
+     * @param endY          Y coordinate of the end
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     *
+     * @return The index of the end, if reached, {@link #NO_PATH} otherwise
+     */
+    int search(SearchWorkspace workspace, int startX, int startY, int endX, int endY, boolean checkStartEnd);
+
+    /**
+     * Searches for the cheapest path between the two cells, stopping early if the
+     * budget is used up. Engines not supporting budgets ignore it.
+     *
+     * @param workspace     The workspace to use, will be prepared
+     * @param startX        X coordinate of the start
+     * @param startY        Y coordinate of the start
+     * @param endX          X coordinate of the end
+     * @param endY          Y coordinate of the end
+     * @param checkStartEnd Should start and end be checked for being walkable?
+     * @param budget        Limits the search
+     *
+     * @return The index of the end, if reached, {@link #NO_PATH} if there is
+     *         none and {@link #BUDGET_EXHAUSTED} if the search had to stop (see
+     *         {@link SearchWorkspace#getClosest()})
+     */
+    default int search(SearchWorkspace workspace, int startX, int startY, int endX, int endY,
+            boolean checkStartEnd, SearchBudget budget) {
+        return search(workspace, startX, startY, endX, endY, checkStartEnd);
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.uulm.team020.helper.pathfinding;
+
+/**
+ * The outcome of a search limited by a {@link SearchBudget}.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public final class SearchResult {
+
+    /** How the search ended */
+    public enum Status {
+        /** The path is complete and the cheapest one */
+        FOUND,
+        /** There is no path at all */
+        NO_PATH,
+        /**
+         * The budget was used up, the path leads from the start to the cell
+         * estimated to be closest to the end
+         */
+        EXHAUSTED
+    }
+
+    private final Status status;
+    private final Path path;
+    private final int expansions;
+
+    SearchResult(final Status status, final Path path, final int expansions) {
+        this.status = status;
+        this.path = path;
+        this.expansions = expansions;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The complete path if found, the partial path if the budget was
+     *         exhausted and {@link Path#INVALID_PATH} if there is no path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return Number of cells expanded, 0 if answered without searching
+     */
+    public int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * @return True if the path leads to the end
+     */
+    public boolean isComplete() {
+        return status == Status.FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult [status=" + status + ", expansions=" + expansions + ", path=" + path + "]";
+    }
+
+}
@@ -0,0 +1,163 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Scratch state of a single grid-search, meant to be reused for multiple
+ * queries. Instead of clearing all cells before every search, every cell
+ * carries the generation it was last written in. {@link #prepare(int, int)} just
+ * increments the current generation, so all cells written before are treated
+ * as untouched. A search therefore only pays for the cells it really visits.
+ * <p>
+ * A workspace must not be shared by concurrent searches.
+ *
+ * @author Florian Sihler
+ * @version 1.3, 07/11/2020
+ */
+final class SearchWorkspace {
+
+    private int[] costs;
+    private int[] parents;
+    // generation the cost and parent of a cell was written in
+    private int[] seen;
+    // generation a cell was closed in
+    private int[] closed;
+    private final NodeHeap open;
+
+    private int generation;
+    private int width;
+    private int expansions;
+    // closed node with the lowest estimate to the end, kept by budgeted searches
+    private int closest;
+    private long closestRank;
+
+    /**
+     * Construct a new workspace, it will grow on demand.
+     *
+     * @param cells Number of cells to prepare for
+     */
+    SearchWorkspace(final int cells) {
+        allocate(Math.max(cells, 1));
+        this.open = new NodeHeap(this.costs.length);
+        this.generation = 0;
+    }
+
+    private void allocate(final int cells) {
+        this.costs = new int[cells];
+        this.parents = new int[cells];
+        this.seen = new int[cells];
+        this.closed = new int[cells];
+    }
+
+    /**
+     * Prepares the workspace for a new search, this runs in constant time unless
+     * the workspace has to grow or the generation counter overflows.
+     *
+     * @param width  Width of the field to search on
+     * @param height Height of the field to search on
+     */
+    void prepare(final int width, final int height) {
+        final int cells = width * height;
+        this.width = width;
+        if (cells > costs.length) {
+            allocate(cells);
+            generation = 0;
+        }
+        open.ensureCapacity(costs.length);
+        open.clear();
+        expansions = 0;
+        closest = -1;
+        closestRank = Long.MAX_VALUE;
+        generation += 1;
+        if (generation == Integer.MAX_VALUE) {
+            // as seldom as it is, all stamps have to be reset
+            Arrays.fill(seen, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * @param node The node to get the cost for
+     * @return The cost of the node, {@link Integer#MAX_VALUE} if not reached in
+     *         this search
+     */
+    int getCost(final int node) {
+        return seen[node] == generation ? costs[node] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param node The node to get the parent for, has to be reached in this search
+     * @return The parent of the node
+     */
+    int getParent(final int node) {
+        return parents[node];
+    }
+
+    /**
+     * Sets the cost and the parent of the node.
+     *
+     * @param node   The node to update
+     * @param cost   The new cost
+     * @param parent The new parent
+     */
+    void reach(final int node, final int cost, final int parent) {
+        costs[node] = cost;
+        parents[node] = parent;
+        seen[node] = generation;
+    }
+
+    boolean isClosed(final int node) {
+        return closed[node] == generation;
+    }
+
+    /**
+     * Marks the node as expanded.
+     *
+     * @param node The node to close
+     */
+    void close(final int node) {
+        closed[node] = generation;
+        expansions += 1;
+    }
+
+    /**
+     * @return Number of nodes closed in the current search
+     */
+    int getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Remembers the node if it is ranked lower than the closest one so far.
+     *
+     * @param node The expanded node
+     * @param rank Lower is closer to the end
+     */
+    void considerClosest(final int node, final long rank) {
+        if (rank < closestRank) {
+            closestRank = rank;
+            closest = node;
+        }
+    }
+
+    /**
+     * @return The node ranked closest to the end, -1 if none was considered in
+     *         the current search
+     */
+    int getClosest() {
+        return closest;
+    }
+
+    /**
+     * @return Width of the field of the current search, used to map the nodes
+     */
+    int getWidth() {
+        return width;
+    }
+
+    NodeHeap getOpen() {
+        return open;
+    }
+
+}
@@ -0,0 +1,287 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import de.uulm.team020.datatypes.IAmTransparent;
+import de.uulm.team020.datatypes.blueprints.AbstractGameField;
+import de.uulm.team020.datatypes.blueprints.FieldChangeLog;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.datatypes.util.point_helper.PointAlgorithms;
+
+/**
+ * Line of sight between all cells of a map, answering
+ * {@link Path#isLineOfSight(Path, AbstractGameField)} for the lines drawn by
+ * {@link Point#getLine(Point, Point)} with a single bit test. For every source
+ * cell a bitset of the cells seen from it is kept. As lines are drawn from the
+ * start to the end they are not guaranteed to be symmetric, so both directions
+ * are stored.
+ * <p>
+ * The bitset of a source is calculated on its first query, all of them may be
+ * calculated in parallel using {@link #precompute()}. A full index needs
+ * {@code cells * cells / 8} bytes, about 20 kB for a map of 20x20. Changes of
+ * the map are learned from its {@link FieldChangeLog}, if the transparency of a
+ * cell changed (e.g. it became foggy) only the lines that may pass it are drawn
+ * again.
+ * <p>
+ * The index must not be used by multiple threads at once, as queries write the
+ * bitsets and the changes learned. The only exception are queries from sources
+ * prepared by {@link #prepare(Point)} (or {@link #precompute()}): as long as
+ * the map does not change afterwards, those only read and may be run by
+ * multiple threads. Queries from any other source still write.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public final class VisibilityIndex {
+
+    private final AbstractGameField<? extends IAmTransparent> map;
+    private long seenVersion;
+    private final int width;
+    private final int height;
+    private final int cells;
+    private final int words;
+    // cells blocking the line of sight, cells missing in a row block as well
+    private final long[] opaque;
+    // per source, null until calculated
+    private final long[][] visible;
+
+    private VisibilityIndex(final AbstractGameField<? extends IAmTransparent> map) {
+        this.map = Objects.requireNonNull(map, "Map");
+        map.trackFieldChanges();
+        this.seenVersion = map.getChangeVersion();
+        final Object[][] field = map.getField();
+        int maxWidth = 0;
+        for (final Object[] row : field) {
+            if (row != null && row.length > maxWidth) {
+                maxWidth = row.length;
+            }
+        }
+        this.width = maxWidth;
+        this.height = field.length;
+        this.cells = width * height;
+        this.words = (cells + 63) / 64;
+        this.opaque = new long[words];
+        this.visible = new long[cells][];
+        readOpacity();
+    }
+
+    /**
+     * Creates an index for the given map, the bitsets are calculated on demand.
+     *
+     * @param map The map to index
+     *
+     * @return The new index
+     */
+    public static VisibilityIndex of(final AbstractGameField<? extends IAmTransparent> map) {
+        return new VisibilityIndex(map);
+    }
+
+    public AbstractGameField<? extends IAmTransparent> getMap() {
+        return map;
+    }
+
+    /**
+     * Calculates the bitsets of all sources not yet calculated, in parallel.
+     *
+     * @return This index
+     */
+    public VisibilityIndex precompute() {
+        synchronizeWithMap();
+        IntStream.range(0, cells).parallel().filter(source -> visible[source] == null)
+                .forEach(source -> visible[source] = computeSource(source));
+        return this;
+    }
+
+    /**
+     * Learns the changes of the map and calculates the bitset of the source, if
+     * not done yet. Afterwards queries from this source only read, see the
+     * class description.
+     *
+     * @param source The source to prepare, sources off the map need nothing
+     *
+     * @return This index
+     */
+    public VisibilityIndex prepare(final Point source) {
+        synchronizeWithMap();
+        if (inside(source.getX(), source.getY())) {
+            final int index = source.getY() * width + source.getX();
+            if (visible[index] == null) {
+                visible[index] = computeSource(index);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Checks the line of sight like
+     * {@link Path#isLineOfSight(Path, AbstractGameField)} does for the line from
+     * start to end, so start and end are not checked.
+     *
+     * @param start The start of the line
+     * @param end   The end of the line
+     *
+     * @return True if no cell between start and end blocks the line of sight
+     */
+    public boolean isLineOfSight(final Point start, final Point end) {
+        return isLineOfSight(start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    /**
+     * Checks the line of sight like
+     * {@link Path#isLineOfSight(Path, AbstractGameField)} does for the line from
+     * start to end, so start and end are not checked.
+     *
+     * @param startX X coordinate of the start
+     * @param startY Y coordinate of the start
+     * @param endX   X coordinate of the end
+     * @param endY   Y coordinate of the end
+     *
+     * @return True if no cell between start and end blocks the line of sight
+     */
+    public boolean isLineOfSight(final int startX, final int startY, final int endX, final int endY) {
+        synchronizeWithMap();
+        if (!inside(startX, startY) || !inside(endX, endY)) {
+            // not indexed, draw the line
+            return traceLine(startX, startY, endX, endY);
+        }
+        final int source = startY * width + startX;
+        if (visible[source] == null) {
+            visible[source] = computeSource(source);
+        }
+        final int target = endY * width + endX;
+        return (visible[source][target >>> 6] & (1L << target)) != 0;
+    }
+
+    /**
+     * @return Number of sources whose bitsets are calculated
+     */
+    public int getComputedCount() {
+        int computed = 0;
+        for (final long[] bits : visible) {
+            if (bits != null) {
+                computed += 1;
+            }
+        }
+        return computed;
+    }
+
+    private boolean inside(final int x, final int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private boolean isOpaque(final int x, final int y) {
+        if (!inside(x, y)) {
+            return true;
+        }
+        final int index = y * width + x;
+        return (opaque[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private boolean readOpaque(final int x, final int y) {
+        final IAmTransparent field = map.getSpecificField(x, y);
+        return field == null || field.blocksLOS();
+    }
+
+    private void readOpacity() {
+        Arrays.fill(opaque, 0);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (readOpaque(x, y)) {
+                    final int index = y * width + x;
+                    opaque[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+    }
+
+    private long[] computeSource(final int source) {
+        final long[] bits = new long[words];
+        final int startX = source % width;
+        final int startY = source / width;
+        for (int target = 0; target < cells; target++) {
+            if (traceLine(startX, startY, target % width, target / width)) {
+                bits[target >>> 6] |= 1L << target;
+            }
+        }
+        return bits;
+    }
+
+    // checks the cells between start and end on the line drawn from start to end
+    private boolean traceLine(final int startX, final int startY, final int endX, final int endY) {
+        return PointAlgorithms.walkLine(startX, startY, endX, endY,
+                (x, y) -> (x == startX && y == startY) || (x == endX && y == endY) || !isOpaque(x, y));
+    }
+
+    private void synchronizeWithMap() {
+        final long version = map.getChangeVersion();
+        if (version == seenVersion) {
+            return;
+        }
+        if (!map.forEachChangeSince(seenVersion, (x, y, kinds) -> {
+            if ((kinds & FieldChangeLog.TRANSPARENCY) != 0) {
+                cellChanged(x, y);
+            }
+        })) {
+            // we fell behind, there is no way to know what changed
+            readOpacity();
+            Arrays.fill(visible, null);
+        }
+        seenVersion = version;
+    }
+
+    private void cellChanged(final int x, final int y) {
+        if (!inside(x, y) || readOpaque(x, y) == isOpaque(x, y)) {
+            return;
+        }
+        final int index = y * width + x;
+        opaque[index >>> 6] ^= 1L << index;
+        for (int source = 0; source < cells; source++) {
+            if (visible[source] != null) {
+                updateLinesPassing(source, x, y);
+            }
+        }
+    }
+
+    // draws all lines from the source again, which may pass the given cell
+    private void updateLinesPassing(final int source, final int x, final int y) {
+        final int startX = source % width;
+        final int startY = source / width;
+        final long[] bits = visible[source];
+        for (int target = 0; target < cells; target++) {
+            final int endX = target % width;
+            final int endY = target / width;
+            if (mayPass(startX, startY, endX, endY, x, y)) {
+                final long mask = 1L << target;
+                if (traceLine(startX, startY, endX, endY)) {
+                    bits[target >>> 6] |= mask;
+                } else {
+                    bits[target >>> 6] &= ~mask;
+                }
+            }
+        }
+    }
+
+    /*
+     * A line only passes cells within the bounds of start and end and never one
+     * whose center is further than a cell away from the (real) line.
+     */
+    static boolean mayPass(final int startX, final int startY, final int endX, final int endY, final int x,
+            final int y) {
+        if (x < Math.min(startX, endX) || x > Math.max(startX, endX) || y < Math.min(startY, endY)
+                || y > Math.max(startY, endY)) {
+            return false;
+        }
+        final long dx = (long) endX - startX;
+        final long dy = (long) endY - startY;
+        final long cross = dx * (y - startY) - dy * (x - startX);
+        return cross * cross <= dx * dx + dy * dy;
+    }
+
+    @Override
+    public String toString() {
+        return "VisibilityIndex [width=" + width + ", height=" + height + ", computed=" + getComputedCount() + "]";
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.uulm.team020.datatypes;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * This class tests the occupants indexed by the state
+ */
+@Tag("Core")
+public class StateTest {
+
+    private static FieldMap freeMap(int width, int height) {
+        Field[][] fields = new Field[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                fields[y][x] = new Field(FieldStateEnum.FREE);
+            }
+        }
+        return new FieldMap(fields);
+    }
+
+    private static Character character(String name, Point coordinates) {
+        return new Character(UUID.randomUUID(), name, coordinates, 3, 1, 100, 0, 0, List.of(), List.of());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("[State] Occupants follow characters, cat and janitor.")
+    public void test_occupants() {
+        Character anna = character("Anna", new Point(1, 1));
+        Character bert = character("Bert", new Point(-1, -1));
+        Set<Character> characters = new HashSet<>(Set.of(anna, bert));
+        State state = new State(1, freeMap(5, 4), new HashSet<>(), characters, new Point(4, 3), null);
+
+        Assertions.assertEquals(State.Occupant.CHARACTER, state.occupantAt(1, 1), "Anna");
+        Assertions.assertEquals(anna, state.getCharacterAt(new Point(1, 1)).orElseThrow(), "Anna is found");
+        Assertions.assertEquals(State.Occupant.CAT, state.occupantAt(new Point(4, 3)), "Cat");
+        Assertions.assertEquals(State.Occupant.NONE, state.occupantAt(0, 0), "Empty");
+        Assertions.assertEquals(State.Occupant.NONE, state.occupantAt(5, 0), "Off the map");
+        Assertions.assertEquals(bert, state.getCharacterAt(new Point(-1, -1)).orElseThrow(), "Not placed yet");
+
+        Assertions.assertTrue(anna.move(1, 0), "Moved");
+        Assertions.assertEquals(State.Occupant.NONE, state.occupantAt(1, 1), "Anna left");
+        Assertions.assertEquals(anna, state.getCharacterAt(new Point(2, 1)).orElseThrow(), "Anna entered");
+        bert.setCoordinates(new Point(0, 3));
+        Assertions.assertEquals(bert, state.getCharacterAt(new Point(0, 3)).orElseThrow(), "Bert placed");
+        Assertions.assertTrue(state.getCharacterAt(new Point(-1, -1)).isEmpty(), "Bert left");
+
+        state.setCatCoordinates(new Point(0, 0));
+        state.setJanitorCoordinates(new Point(4, 3));
+        Assertions.assertEquals(State.Occupant.CAT, state.occupantAt(0, 0), "Cat moved");
+        Assertions.assertEquals(State.Occupant.JANITOR, state.occupantAt(4, 3), "Janitor entered");
+
+        Character carl = character("Carl", new Point(3, 2));
+        characters.add(carl);
+        Assertions.assertEquals(carl, state.getCharacterAt(new Point(3, 2)).orElseThrow(), "Added characters");
+        state.setCharacters(Set.of(carl));
+        Assertions.assertTrue(state.getCharacterAt(new Point(2, 1)).isEmpty(), "Replaced characters");
+        anna.setCoordinates(new Point(3, 2));
+        Assertions.assertEquals(carl, state.getCharacterAt(new Point(3, 2)).orElseThrow(),
+                "Removed characters are not followed");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("[State] Occupants follow changes of the same character set.")
+    public void test_occupantsOfChangedSet() {
+        Character anna = character("Anna", new Point(0, 0));
+        Set<Character> characters = new HashSet<>(Set.of(anna));
+        State state = new State(1, freeMap(3, 3), new HashSet<>(), characters, null, null);
+        Assertions.assertEquals(anna, state.getCharacterAt(new Point(0, 0)).orElseThrow(), "Anna");
+
+        // same set, same size
+        Character bert = character("Bert", new Point(2, 2));
+        state.getCharacters().remove(anna);
+        state.getCharacters().add(bert);
+        Assertions.assertTrue(state.getCharacterAt(new Point(0, 0)).isEmpty(), "Anna was removed");
+        Assertions.assertEquals(bert, state.getCharacterAt(new Point(2, 2)).orElseThrow(), "Bert was added");
+        Assertions.assertEquals(State.Occupant.NONE, state.occupantAt(0, 0), "Empty");
+        Assertions.assertEquals(Set.of(bert), characters, "Passed to the set of the state");
+
+        Iterator<Character> iterator = state.getCharacters().iterator();
+        iterator.next();
+        iterator.remove();
+        Assertions.assertTrue(state.getCharacterAt(new Point(2, 2)).isEmpty(), "Bert was removed");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("[State] Characters sharing a cell keep it occupied.")
+    public void test_sharedCell() {
+        Character anna = character("Anna", new Point(1, 1));
+        Character bert = character("Bert", new Point(1, 1));
+        State state = new State(1, freeMap(3, 3), new HashSet<>(), new HashSet<>(Set.of(anna, bert)), null, null);
+        Character first = state.getCharacterAt(new Point(1, 1)).orElseThrow();
+        Character second = first == anna ? bert : anna;
+
+        first.setCoordinates(new Point(0, 0));
+        Assertions.assertEquals(second, state.getCharacterAt(new Point(1, 1)).orElseThrow(), "Still occupied");
+        second.setCoordinates(new Point(2, 2));
+        Assertions.assertEquals(State.Occupant.NONE, state.occupantAt(1, 1), "Both left");
+    }
+
+}
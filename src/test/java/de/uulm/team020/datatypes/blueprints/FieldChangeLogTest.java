@@ -0,0 +1,116 @@
+package de.uulm.team020.datatypes.blueprints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the recording of changes made to a map
+ */
+public class FieldChangeLogTest {
+
+    private static FieldMap getMeFieldMap() {
+        Field[][] fields = new Field[3][3];
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 3; x++) {
+                fields[y][x] = new Field(FieldStateEnum.FREE);
+            }
+        }
+        return new FieldMap(fields);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[FieldChangeLog] Replays the changes since a version.")
+    void test_replay() {
+        FieldChangeLog log = new FieldChangeLog(2);
+        Assertions.assertEquals(0, log.getVersion(), "Nothing recorded");
+        log.record(1, 2, FieldChangeLog.WALKABILITY);
+        log.record(3, 4, FieldChangeLog.CONTENT);
+        Assertions.assertEquals(2, log.getVersion(), "Two recorded");
+
+        List<int[]> changes = new ArrayList<>();
+        Assertions.assertTrue(log.forEachSince(1, (x, y, kinds) -> changes.add(new int[] { x, y, kinds })),
+                "Available");
+        Assertions.assertEquals(1, changes.size(), "Only the second one");
+        Assertions.assertArrayEquals(new int[] { 3, 4, FieldChangeLog.CONTENT }, changes.get(0), "Second change");
+
+        log.record(5, 6, FieldChangeLog.ALL);
+        Assertions.assertFalse(log.forEachSince(0, (x, y, kinds) -> Assertions.fail("Should not be called")),
+                "First change is gone");
+        Assertions.assertTrue(log.forEachSince(3, (x, y, kinds) -> Assertions.fail("Should not be called")),
+                "Nothing new");
+        Assertions.assertFalse(log.forEachSince(4, (x, y, kinds) -> Assertions.fail("Should not be called")),
+                "Unknown version");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[FieldChangeLog] Maps record the changes of their fields.")
+    void test_mapRecordsFieldChanges() {
+        FieldMap map = getMeFieldMap();
+        Assertions.assertEquals(0, map.getChangeVersion(), "Nothing changed");
+
+        // not tracking the fields yet
+        map.getSpecificField(new Point(1, 1)).setGadget(null);
+        map.getSpecificField(new Point(1, 1)).setState(FieldStateEnum.WALL);
+        Assertions.assertEquals(0, map.getChangeVersion(), "Not tracking");
+
+        map.trackFieldChanges();
+        map.getSpecificField(new Point(2, 1)).setState(FieldStateEnum.FREE);
+        Assertions.assertEquals(0, map.getChangeVersion(), "Same state, no change");
+        map.getSpecificField(new Point(2, 1)).setState(FieldStateEnum.BAR_TABLE);
+        map.getSpecificField(new Point(0, 2)).setFoggy(true);
+        map.getSpecificField(new Point(0, 0)).setChipAmount(3);
+
+        List<int[]> changes = new ArrayList<>();
+        Assertions.assertTrue(map.forEachChangeSince(0, (x, y, kinds) -> changes.add(new int[] { x, y, kinds })),
+                "Available");
+        Assertions.assertEquals(3, changes.size(), "Three changes");
+        Assertions.assertArrayEquals(new int[] { 2, 1, FieldChangeLog.WALKABILITY | FieldChangeLog.CONTENT },
+                changes.get(0), "Bar-Tables block the way but not the sight");
+        Assertions.assertArrayEquals(new int[] { 0, 2, FieldChangeLog.TRANSPARENCY | FieldChangeLog.CONTENT },
+                changes.get(1), "Fog blocks the sight");
+        Assertions.assertArrayEquals(new int[] { 0, 0, FieldChangeLog.CONTENT }, changes.get(2), "Just chips");
+
+        // replaced fields are no longer observed
+        Field old = map.getSpecificField(new Point(2, 2));
+        Field replacement = new Field(FieldStateEnum.FREE);
+        Assertions.assertTrue(map.setSpecificField(new Point(2, 2), replacement), "Should be set");
+        Assertions.assertEquals(4, map.getChangeVersion(), "Replacing is a change");
+        old.setState(FieldStateEnum.WALL);
+        Assertions.assertEquals(4, map.getChangeVersion(), "Old field is not part of the map");
+        replacement.setState(FieldStateEnum.WALL);
+        Assertions.assertEquals(5, map.getChangeVersion(), "New field is observed");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[FieldChangeLog] Equal chip amounts are no change.")
+    void test_equalChipAmounts() {
+        FieldMap map = getMeFieldMap();
+        map.trackFieldChanges();
+        Field field = map.getSpecificField(new Point(1, 1));
+        // outside of the integer cache, the boxes may differ
+        field.setChipAmount(Integer.valueOf(1000));
+        Assertions.assertEquals(1, map.getChangeVersion(), "Chips placed");
+        field.setChipAmount(Integer.valueOf(1000));
+        Assertions.assertEquals(1, map.getChangeVersion(), "Same amount, no change");
+        field.setChipAmount(0);
+        Assertions.assertEquals(2, map.getChangeVersion(), "Chips removed");
+    }
+
+}
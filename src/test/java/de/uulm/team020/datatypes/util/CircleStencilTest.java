@@ -0,0 +1,122 @@
+package de.uulm.team020.datatypes.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.uulm.team020.datatypes.SimpleGameField;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.point_helper.CircleStencil;
+
+/**
+ * Tests the cached circle shapes of {@link CircleStencil}.
+ *
+ * @author Florian Sihler
+ * @version 1.1, 07/11/2020
+ */
+public class CircleStencilTest {
+
+    // the construction used before the shapes were cached
+    private static List<Point> directCircle(Point center, int radius, double tolerance, DistanceMetric metric) {
+        List<Point> result = new ArrayList<>();
+        for (int y = center.getY() - radius; y <= center.getY() + radius; y++) {
+            if (metric.getDistance(center, new Point(center.getX(), y)) - tolerance > radius) {
+                continue;
+            }
+            int start = center.getX() - radius;
+            while (metric.getDistance(center, new Point(start, y)) - tolerance > radius) {
+                start++;
+            }
+            int end = center.getX() + radius;
+            while (metric.getDistance(center, new Point(end, y)) - tolerance > radius) {
+                end--;
+            }
+            for (int x = start; x <= end; x++) {
+                result.add(new Point(x, y));
+            }
+        }
+        return result;
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[Stencil] Circles match the direct construction.")
+    @CsvSource({ "0,0,0,0", "3,4,2,0", "-5,7,5,0.5", "10,-2,7,0.2", "1,1,12,1" })
+    void test_matchesDirect(int x, int y, int radius, double tolerance) {
+        Point center = new Point(x, y);
+        for (DistanceMetric metric : new DistanceMetric[] { Point::euclideanMetric, DistanceMetric.KING,
+                DistanceMetric.MANHATTAN }) {
+            Assertions.assertEquals(directCircle(center, radius, tolerance, metric),
+                    Point.getCircle(center, radius, tolerance, metric), "Circle around " + center);
+            CircleStencil stencil = CircleStencil.of(radius, tolerance, metric);
+            for (int dy = -radius - 1; dy <= radius + 1; dy++) {
+                for (int dx = -radius - 1; dx <= radius + 1; dx++) {
+                    Point p = new Point(x + dx, y + dy);
+                    // the shape never leaves the square around the center
+                    boolean inSquare = Math.abs(dx) <= radius && Math.abs(dy) <= radius;
+                    Assertions.assertEquals(inSquare && metric.getDistance(center, p) - tolerance <= radius,
+                            stencil.contains(center, p), "Contains " + p);
+                }
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[Stencil] Stencils are cached and clipped to the field.")
+    void test_cacheAndClip() {
+        Assertions.assertSame(CircleStencil.of(3, 0, DistanceMetric.KING), CircleStencil.of(3, 0, DistanceMetric.KING),
+                "Cached");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CircleStencil.of(-1, 0, DistanceMetric.KING),
+                "Negative radius");
+        SimpleGameField<FieldStateEnum> field = new SimpleGameField<>(new FieldStateEnum[][] { { FieldStateEnum.FREE,
+                FieldStateEnum.FREE, FieldStateEnum.FREE }, { FieldStateEnum.FREE }, {} });
+        Set<Point> expected = new HashSet<>(List.of(new Point(0, 0), new Point(1, 0), new Point(0, 1)));
+        Assertions.assertEquals(expected,
+                CircleStencil.of(1, 0, DistanceMetric.KING).translateAndClip(new Point(0, 0), field), "Clipped");
+        Assertions.assertEquals(9, CircleStencil.of(1, 0, DistanceMetric.KING).size(), "Size");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[Stencil] Fresh metrics do not starve the cache.")
+    void test_cacheEvicts() {
+        for (int i = 0; i <= 2 * CircleStencil.MAX_CACHED; i++) {
+            // a new metric every time, only comparable by identity
+            CircleStencil.of(2, 0, new DistanceMetric() {
+                @Override
+                public double getDistance(final Point a, final Point b) {
+                    return DistanceMetric.KING.getDistance(a, b);
+                }
+            });
+        }
+        Assertions.assertSame(CircleStencil.of(9, 0.25, DistanceMetric.MANHATTAN),
+                CircleStencil.of(9, 0.25, DistanceMetric.MANHATTAN), "Still cached");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[Stencil] Clipped points are fresh.")
+    void test_clippedPointsMutable() {
+        SimpleGameField<FieldStateEnum> field = new SimpleGameField<>(
+                new FieldStateEnum[][] { { FieldStateEnum.FREE, FieldStateEnum.FREE } });
+        Set<Point> points = CircleStencil.of(1, 0, DistanceMetric.KING).translateAndClip(new Point(0, 0), field);
+        for (Point p : points) {
+            Assertions.assertDoesNotThrow(() -> p.setX(p.getX()), "Mutable " + p);
+        }
+    }
+
+}
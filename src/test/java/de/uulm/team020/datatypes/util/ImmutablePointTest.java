@@ -0,0 +1,121 @@
+package de.uulm.team020.datatypes.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+
+/**
+ * Tests {@link ImmutablePoint} and the packed coordinates of {@link Point}.
+ *
+ * @author Florian Sihler
+ * @version 1.0, 07/11/2020
+ */
+public class ImmutablePointTest {
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[IPoint] Points of typical boards are interned.")
+    void test_interned() {
+        Assertions.assertSame(ImmutablePoint.of(3, 7), ImmutablePoint.of(3, 7), "Cached");
+        Assertions.assertSame(ImmutablePoint.of(3, 7), ImmutablePoint.of(new Point(3, 7)), "Cached from point");
+        final ImmutablePoint outside = ImmutablePoint.of(-1, ImmutablePoint.CACHE_SIZE);
+        Assertions.assertEquals(outside, ImmutablePoint.of(-1, ImmutablePoint.CACHE_SIZE), "Equal if not cached");
+        Assertions.assertSame(outside, ImmutablePoint.of(outside), "Immutable already");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[IPoint] Equal to mutable points and can not be changed.")
+    void test_immutable() {
+        final ImmutablePoint point = ImmutablePoint.of(2, 5);
+        Assertions.assertEquals(new Point(2, 5), point, "Equal to a point");
+        Assertions.assertEquals(point, new Point(2, 5), "Equal to an immutable point");
+        Assertions.assertEquals(new Point(2, 5).hashCode(), point.hashCode(), "Same hash");
+        final Set<Point> points = new HashSet<>();
+        points.add(new Point(2, 5));
+        Assertions.assertTrue(points.contains(point), "Look up mutable points");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> point.setX(1), "setX");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> point.set(1, 1), "set");
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> point.move(1, 1), "move");
+        Assertions.assertEquals(ImmutablePoint.of(2, 5), point, "Unchanged");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[IPoint] Hash matches the one of Objects.hash.")
+    @CsvSource({ "0,0", "1,2", "-4,17", "2147483647,-2147483648", "40000,-3" })
+    void test_hash(int x, int y) {
+        Assertions.assertEquals(Objects.hash(x, y), new Point(x, y).hashCode(), "Hash");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[IPoint] Coordinates survive packing.")
+    @CsvSource({ "0,0", "1,2", "-4,17", "2147483647,-2147483648", "-1,-1", "32767,-32768" })
+    void test_packing(int x, int y) {
+        final long packed = Point.pack(x, y);
+        Assertions.assertEquals(x, Point.unpackX(packed), "X of long");
+        Assertions.assertEquals(y, Point.unpackY(packed), "Y of long");
+        Assertions.assertEquals(packed, new Point(x, y).pack(), "Packed point");
+        Assertions.assertEquals(new Point(x, y), ImmutablePoint.ofPacked(packed), "Unpacked point");
+        if (x == (short) x && y == (short) y) {
+            final int packedInt = Point.packInt(x, y);
+            Assertions.assertEquals(x, Point.unpackIntX(packedInt), "X of int");
+            Assertions.assertEquals(y, Point.unpackIntY(packedInt), "Y of int");
+        } else {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Point.packInt(x, y), "Too large");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(5)
+    @DisplayName("[IPoint] Deserialized points stay interned.")
+    void test_serialization() throws IOException, ClassNotFoundException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ImmutablePoint.of(4, 2));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Assertions.assertSame(ImmutablePoint.of(4, 2), in.readObject(), "Interned");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(6)
+    @DisplayName("[IPoint] Neighbours handed out may be changed.")
+    void test_neighboursStayMutable() {
+        final FieldMap map = new FieldMap(
+                new Field[][] { { new Field(FieldStateEnum.FREE), new Field(FieldStateEnum.FREE) },
+                        { new Field(FieldStateEnum.FREE), new Field(FieldStateEnum.FREE) } });
+        final Set<Point> neighbours = map.getNeighboursOfSpecificField(new Point(0, 0)).orElseThrow();
+        Assertions.assertEquals(3, neighbours.size(), "Neighbours");
+        for (final Point neighbour : neighbours) {
+            Assertions.assertFalse(neighbour instanceof ImmutablePoint, "Fresh point: " + neighbour);
+            Assertions.assertDoesNotThrow(() -> neighbour.setX(5), "Mutable");
+        }
+    }
+
+}
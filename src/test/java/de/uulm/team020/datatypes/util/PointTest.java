@@ -10,11 +10,15 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import de.uulm.team020.datatypes.Scenario;
 import de.uulm.team020.datatypes.exceptions.PointParseException;
+import de.uulm.team020.datatypes.util.point_helper.PointAlgorithms;
+import de.uulm.team020.helper.NumericHelper;
 import de.uulm.team020.helper.pathfinding.Path;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
 import de.uulm.team020.validation.GameDataGson;
 
 /**
@@ -334,6 +338,8 @@ class PointTest {
         Path path = Point.getLine(a, b);
         Assertions.assertEquals(inLos, path.isLineOfSight(scenario, checkstartend),
                 "Should be as stated for LOS on: " + path + " (checkSE: " + checkstartend + ")");
+        Assertions.assertEquals(inLos, Path.isLineOfSight(a, b, scenario, checkstartend),
+                "Walked line should be as stated for LOS on: " + path + " (checkSE: " + checkstartend + ")");
     }
 
     private static Stream<Arguments> generate_fromStringValid() {
@@ -396,4 +402,87 @@ class PointTest {
     void test_fromStringInvalid(String data, Point shift) throws IOException, PointParseException {
         Assertions.assertThrows(PointParseException.class, () -> Point.fromString(data, shift));
     }
-}
\ No newline at end of file
+
+    // the fp-precision rasterization the integer one has to match
+    private static Path legacyLine(int startX, int startY, int endX, int endY) {
+        final int deltaX = endX - startX;
+        final int deltaY = endY - startY;
+        final int sigX = deltaX >= 0 ? +1 : -1;
+        final int sigY = deltaY >= 0 ? +1 : -1;
+        final Path result = new Path();
+        if (deltaX == 0) {
+            for (int y = startY; sigY > 0 ? y < endY : y > endY; y += sigY) {
+                result.append(new WayPoint(startX, y));
+            }
+        } else if (deltaY == 0) {
+            for (int x = startX; sigX > 0 ? x < endX : x > endX; x += sigX) {
+                result.append(new WayPoint(x, startY));
+            }
+        } else {
+            final int absX = Math.abs(deltaX);
+            final int absY = Math.abs(deltaY);
+            final double distStartEnd = Point.getDistance(startX, startY, endX, endY);
+            int currentError = 0;
+            int currentX = startX;
+            int currentY = startY;
+            boolean skipNext = false;
+            for (int i = 0; i < absX + absY; i++) {
+                final double cX = currentX + sigX / 2.0;
+                final double cY = currentY + sigY / 2.0;
+                final double distAC = Point.getDistance(startX, startY, cX, cY);
+                final double distCB = Point.getDistance(cX, cY, endX, endY);
+                if (!skipNext) {
+                    result.append(new WayPoint(currentX, currentY));
+                    skipNext = NumericHelper.closeEnough(distStartEnd, distAC + distCB, 0.0001);
+                } else {
+                    skipNext = false;
+                }
+                final int e1 = currentError + absY;
+                final int e2 = currentError - absX;
+                if (Math.abs(e1) < Math.abs(e2)) {
+                    currentX += sigX;
+                    currentError = e1;
+                } else {
+                    currentY += sigY;
+                    currentError = e2;
+                }
+            }
+        }
+        result.append(new WayPoint(endX, endY));
+        return result;
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(13)
+    @DisplayName("[Point] Walked lines match the fp-precision rasterization.")
+    @CsvSource({ "0,0,30", "-3,7,30", "11,-5,30", "2,1,90" })
+    void test_walkLineMatchesLegacy(int startX, int startY, int range) {
+        for (int endX = startX - range; endX <= startX + range; endX++) {
+            for (int endY = startY - range; endY <= startY + range; endY++) {
+                final Path expected = legacyLine(startX, startY, endX, endY);
+                final Path walked = new Path();
+                Assertions.assertTrue(PointAlgorithms.walkLine(startX, startY, endX, endY, (x, y) -> {
+                    walked.append(new WayPoint(x, y));
+                    return true;
+                }), "Walk is complete");
+                Assertions.assertEquals(expected, walked, "Walked from " + startX + "/" + startY + " to " + endX
+                        + "/" + endY);
+                Assertions.assertEquals(expected, Point.getLine(startX, startY, endX, endY), "Line");
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(14)
+    @DisplayName("[Point] Walking a line stops when told to.")
+    void test_walkLineStops() {
+        final int[] visited = { 0 };
+        Assertions.assertFalse(PointAlgorithms.walkLine(0, 0, 9, 4, (x, y) -> ++visited[0] < 3), "Stopped");
+        Assertions.assertEquals(3, visited[0], "Visited until stopped");
+        visited[0] = 0;
+        Assertions.assertFalse(PointAlgorithms.walkLine(0, 0, 0, 4, (x, y) -> ++visited[0] < 5), "Stopped at end");
+        Assertions.assertEquals(5, visited[0], "Visited the end");
+    }
+}
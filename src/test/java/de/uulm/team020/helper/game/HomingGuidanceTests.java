@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,6 +28,7 @@ import de.uulm.team020.datatypes.exceptions.HomingException;
 import de.uulm.team020.datatypes.exceptions.PointParseException;
 import de.uulm.team020.datatypes.util.Point;
 import de.uulm.team020.helper.RandomHelper;
+import de.uulm.team020.helper.pathfinding.DistanceField;
 
 /**
  * Testing the homing guidance :) Everybody wants to it something....
@@ -451,6 +453,96 @@ public class HomingGuidanceTests extends AbstractHomingTest {
 
     }
 
+    @Test
+    @DisplayName("[Homing] Movement targets")
+    public void test_movementTargets() {
+        // build example Guidance
+        HomingGuidance guide = new HomingGuidance();
+        // generate state data
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", RandomHelper.rndInt(1, 42),
+                new Point(-1, -1), new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+
+        // inside the box with the fireplace
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(6, 7));
+        operator.setMp(1);
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+        guide.updateOperation(state, matchconfig, operator, us);
+
+        Set<Point> possibleTargets = guide.getTargetsForMovement();
+        Assertions.assertEquals(5, possibleTargets.size(), "Should be 5 with: " + possibleTargets);
+        Assertions.assertFalse(possibleTargets.contains(new Point(6, 7)), "Not the operator itself");
+
+        operator.setMp(2);
+        guide.updateOperation(state, matchconfig, operator, us);
+        possibleTargets = guide.getTargetsForMovement();
+        Assertions.assertEquals(7, possibleTargets.size(), "Should be 7 with: " + possibleTargets);
+        Assertions.assertTrue(possibleTargets.contains(new Point(8, 8)), "Two steps away");
+        Assertions.assertFalse(possibleTargets.contains(new Point(8, 6)), "Fireplace");
+        Assertions.assertEquals(2, guide.getNeededMP(new Point(8, 8)), "Two steps");
+        Assertions.assertEquals(Integer.MAX_VALUE, guide.getNeededMP(new Point(11, 7)), "Walled in");
+
+        operator.setMp(0);
+        guide.updateOperation(state, matchconfig, operator, us);
+        Assertions.assertTrue(guide.getTargetsForMovement().isEmpty(), "No mp, no movement");
+    }
+
+    @Test
+    @DisplayName("[Homing] Movement targets and needed mp share the distances")
+    public void test_movementSharesDistances() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(6, 7));
+        operator.setMp(2);
+
+        List<DistanceField> fields = new ArrayList<>();
+        HomingGuidance guide = new HomingGuidance() {
+            @Override
+            protected DistanceField getWalkingDistances() {
+                DistanceField distances = super.getWalkingDistances();
+                if (fields.stream().noneMatch(f -> f == distances)) {
+                    fields.add(distances);
+                }
+                return distances;
+            }
+        };
+        guide.updateOperation(state, getMatchconfig(MATCHCONFIG_PATH), operator, us);
+        Assertions.assertEquals(7, guide.getTargetsFor(HomingTargetType.MOVEMENT).size(), "Targets");
+        Assertions.assertEquals(1, fields.size(), "Targets from the distances");
+        Assertions.assertEquals(2, guide.getNeededMP(new Point(8, 8)), "Two steps");
+        Assertions.assertEquals(1, fields.size(), "A single search");
+    }
+
+    @Test
+    @DisplayName("[Homing] Movement of an operator who left the map")
+    public void test_movementOffMap() {
+        HomingGuidance guide = new HomingGuidance();
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(6, 7));
+        operator.setMp(2);
+        guide.updateOperation(state, getMatchconfig(MATCHCONFIG_PATH), operator, us);
+        // left the map after the update, nothing calculated yet
+        operator.setCoordinates(new Point(-1, -1));
+
+        Assertions.assertEquals(2, guide.getNeededMP(new Point(1, 1)), "King distance");
+        Assertions.assertTrue(guide.targetsAvailableFor(HomingTargetType.MOVEMENT), "Corner can be reached");
+        Assertions.assertEquals(Set.of(new Point(0, 0)), guide.getTargetsFor(HomingTargetType.MOVEMENT),
+                "Only the corner is next to the operator");
+    }
+
     @Test
     @DisplayName("[Homing] Get Bangs and burns")
     public void test_bangsAndBurns() throws PointParseException {
@@ -510,6 +602,123 @@ public class HomingGuidanceTests extends AbstractHomingTest {
                 "left roulette should be there on 0/6 but isn't");
     }
 
+    @Test
+    @DisplayName("[Homing] Lazy targets match the calculated ones")
+    public void test_lazyTargets() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", RandomHelper.rndInt(1, 42),
+                new Point(-1, -1), new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        characters.get(0).setCoordinates(new Point(2, 14));
+        characters.get(1).setCoordinates(new Point(0, 12));
+        characters.get(1).addGadget(new Gadget(GadgetEnum.COCKTAIL));
+        characters.get(2).setCoordinates(new Point(6, 8));
+
+        Character operator = characters.get(3);
+        for (GadgetEnum gadget : List.of(GadgetEnum.ROCKET_PEN, GadgetEnum.LASER_COMPACT, GadgetEnum.JETPACK)) {
+            operator.addGadget(new Gadget(gadget));
+        }
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+        for (Point position : List.of(new Point(1, 14), new Point(6, 7), new Point(2, 9))) {
+            operator.setCoordinates(position);
+            for (int mp = 0; mp < 2; mp++) {
+                operator.setMp(mp);
+                HomingGuidance all = new HomingGuidance();
+                all.updateOperation(state, matchconfig, operator, us);
+                for (HomingTargetType aimTarget : HomingTargetType.values()) {
+                    if (aimTarget == HomingTargetType.RETIRE) {
+                        Assertions.assertNull(all.getTargetsFor(aimTarget), "No targets for retire");
+                        continue;
+                    }
+                    // a fresh guidance has not calculated anything yet
+                    HomingGuidance lazy = new HomingGuidance();
+                    lazy.updateOperation(state, matchconfig, operator, us);
+                    Assertions.assertEquals(!all.getTargetsFor(aimTarget).isEmpty(), lazy.targetsAvailableFor(aimTarget),
+                            aimTarget + " on " + position + " with mp " + mp);
+                }
+                Assertions.assertTrue(all.targetsAvailable(), "Rocket pen always hits something");
+            }
+        }
+
+        // updates drop the targets
+        HomingGuidance guide = new HomingGuidance();
+        operator.setCoordinates(new Point(1, 14));
+        guide.updateOperation(state, matchconfig, operator, us);
+        Assertions.assertTrue(guide.targetsAvailableFor(HomingTargetType.LASER_COMPACT), "Cocktail of char 1");
+        characters.get(1).removeGadget(characters.get(1).getGadgetType(GadgetEnum.COCKTAIL).orElseThrow());
+        Assertions.assertTrue(guide.getTargetsFor(HomingTargetType.LASER_COMPACT).isEmpty(), "Calculated on access");
+        characters.get(1).addGadget(new Gadget(GadgetEnum.COCKTAIL));
+        Assertions.assertTrue(guide.getTargetsFor(HomingTargetType.LASER_COMPACT).isEmpty(), "Kept until the update");
+        guide.updateOperation(state, matchconfig, operator, us);
+        Assertions.assertEquals(Set.of(new Point(0, 12)), guide.getTargetsFor(HomingTargetType.LASER_COMPACT),
+                "Calculated again");
+    }
+
+    @Test
+    @DisplayName("[Homing] Lazy targets follow overridden targets")
+    public void test_lazyTargetsOverridden() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(6, 7));
+        operator.addGadget(new Gadget(GadgetEnum.ROCKET_PEN));
+
+        // only aims off the map
+        HomingGuidance guide = new HomingGuidance() {
+            @Override
+            protected Stream<Point> streamTargetsForRocketPen() {
+                return super.streamTargetsForRocketPen().filter(p -> p.equals(new Point(100, 100)));
+            }
+        };
+        guide.updateOperation(state, getMatchconfig(MATCHCONFIG_PATH), operator, us);
+        Assertions.assertFalse(guide.targetsAvailableFor(HomingTargetType.ROCKET_PEN), "Early exit agrees");
+        Assertions.assertTrue(guide.getTargetsFor(HomingTargetType.ROCKET_PEN).isEmpty(), "Nothing calculated");
+    }
+
+    @Test
+    @DisplayName("[Homing] Parallel targets match the lazy ones")
+    public void test_parallelTargets() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", RandomHelper.rndInt(1, 42),
+                new Point(-1, -1), new Point(5, 3));
+        List<Character> characters = new ArrayList<Character>(state.getCharacters());
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        characters.get(0).setCoordinates(new Point(2, 14));
+        characters.get(1).setCoordinates(new Point(0, 12));
+        characters.get(1).addGadget(new Gadget(GadgetEnum.COCKTAIL));
+        characters.get(2).setCoordinates(new Point(6, 8));
+
+        Character operator = characters.get(3);
+        operator.setMp(2);
+        for (GadgetEnum gadget : GadgetEnum.values()) {
+            if (gadget != GadgetEnum.WIRETAP_WITH_EARPLUGS && gadget != GadgetEnum.COCKTAIL) {
+                operator.addGadget(new Gadget(gadget));
+            }
+        }
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            HomingGuidance parallel = new HomingGuidance();
+            parallel.setParallelPool(pool);
+            for (Point position : List.of(new Point(1, 14), new Point(6, 7), new Point(2, 9), new Point(3, 12))) {
+                operator.setCoordinates(position);
+                parallel.updateOperation(state, matchconfig, operator, us);
+                HomingGuidance lazy = new HomingGuidance();
+                lazy.updateOperation(state, matchconfig, operator, us);
+                for (HomingTargetType aimTarget : HomingTargetType.values()) {
+                    Assertions.assertEquals(lazy.getTargetsFor(aimTarget), parallel.getTargetsFor(aimTarget),
+                            aimTarget + " on " + position);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     // TODO: use test config with 0 range
     // TODO: other tests :D
 
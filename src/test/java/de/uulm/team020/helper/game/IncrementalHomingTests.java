@@ -0,0 +1,242 @@
+package de.uulm.team020.helper.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.uulm.team020.datatypes.Character;
+import de.uulm.team020.datatypes.Cocktail;
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.Gadget;
+import de.uulm.team020.datatypes.Matchconfig;
+import de.uulm.team020.datatypes.State;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.enumerations.GadgetEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Compares the targets of incremental updates with a full update
+ */
+@Tag("Helper")
+@Tag("Homing")
+public class IncrementalHomingTests extends AbstractHomingTest {
+
+    private static Point randomPoint(Random random, State state) {
+        Field[][] fields = state.getMap().getField();
+        int y = random.nextInt(fields.length);
+        return new Point(random.nextInt(fields[y].length), y);
+    }
+
+    private static Point randomFreePoint(Random random, State state) {
+        Point p;
+        do {
+            p = randomPoint(random, state);
+        } while (state.getMap().getSpecificField(p).getState() != FieldStateEnum.FREE);
+        return p;
+    }
+
+    // changes the state at random, returns the changes to report
+    private static HomingChanges randomChanges(Random random, State state, List<Character> characters,
+            Character operator) {
+        HomingChanges changes = new HomingChanges();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            Character c = characters.get(random.nextInt(characters.size()));
+            Field field = state.getMap().getSpecificField(randomPoint(random, state));
+            switch (random.nextInt(10)) {
+                case 0:
+                    if (c != operator) {
+                        c.setCoordinates(randomFreePoint(random, state));
+                    }
+                    break;
+                case 1:
+                    if (c != operator) {
+                        c.move(random.nextInt(3) - 1, random.nextInt(3) - 1);
+                    }
+                    break;
+                case 2:
+                    field.setGadget(random.nextBoolean() ? new Cocktail(false) : null);
+                    break;
+                case 3:
+                    field.setFoggy(!field.isFoggy());
+                    break;
+                case 4:
+                    field.setDestroyed(!field.isDestroyed());
+                    break;
+                case 5:
+                    if (field.getState() == FieldStateEnum.FREE || field.getState() == FieldStateEnum.WALL) {
+                        field.setState(
+                                field.getState() == FieldStateEnum.FREE ? FieldStateEnum.WALL : FieldStateEnum.FREE);
+                    }
+                    break;
+                case 6:
+                    if (c.getGadgetType(GadgetEnum.COCKTAIL).isPresent()) {
+                        c.removeGadget(c.getGadgetType(GadgetEnum.COCKTAIL).get());
+                    } else {
+                        c.addGadget(new Cocktail(false));
+                    }
+                    changes.characterChanged(c);
+                    break;
+                case 7:
+                    if (random.nextBoolean()) {
+                        state.setCatCoordinates(randomFreePoint(random, state));
+                    } else {
+                        state.setJanitorCoordinates(randomFreePoint(random, state));
+                    }
+                    break;
+                case 8:
+                    operator.setMp(random.nextInt(4));
+                    changes.characterChanged(operator);
+                    break;
+                default:
+                    if (random.nextInt(4) == 0) {
+                        operator.setCoordinates(randomFreePoint(random, state));
+                    }
+            }
+        }
+        return changes;
+    }
+
+    @ParameterizedTest
+    @DisplayName("[Homing] Incremental updates match full updates")
+    @ValueSource(ints = { 1, 2, 3, 4 })
+    public void test_incrementalUpdates(int seed) {
+        Random random = new Random(seed);
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(-1, -1));
+        List<Character> characters = new ArrayList<>(state.getCharacters());
+        for (Character c : characters) {
+            c.setCoordinates(randomFreePoint(random, state));
+        }
+        state.setCatCoordinates(randomFreePoint(random, state));
+        state.setJanitorCoordinates(randomFreePoint(random, state));
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        Character operator = characters.get(3);
+        operator.setMp(2);
+        for (GadgetEnum gadget : GadgetEnum.values()) {
+            if (gadget != GadgetEnum.WIRETAP_WITH_EARPLUGS && gadget != GadgetEnum.COCKTAIL) {
+                operator.addGadget(new Gadget(gadget));
+            }
+        }
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+
+        HomingGuidance incremental = new HomingGuidance();
+        incremental.updateOperation(state, matchconfig, operator, us);
+        for (int step = 0; step < 150; step++) {
+            // all targets are calculated before the changes
+            for (HomingTargetType aimTarget : HomingTargetType.values()) {
+                incremental.getTargetsFor(aimTarget);
+            }
+            HomingChanges changes = randomChanges(random, state, characters, operator);
+            incremental.updateOperation(state, matchconfig, operator, us, changes);
+
+            HomingGuidance full = new HomingGuidance();
+            full.updateOperation(state, matchconfig, operator, us);
+            for (HomingTargetType aimTarget : HomingTargetType.values()) {
+                Assertions.assertEquals(full.getTargetsFor(aimTarget), incremental.getTargetsFor(aimTarget),
+                        "Step " + step + ", " + aimTarget + " for " + operator.getCoordinates() + " after " + changes);
+            }
+            Assertions.assertEquals(full.getNeededMP(new Point(1, 1)), incremental.getNeededMP(new Point(1, 1)),
+                    "Step " + step + ", needed mp");
+        }
+    }
+
+    @Test
+    @DisplayName("[Homing] Incremental updates keep unaffected targets")
+    public void test_incrementalPathTaken() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(-1, -1));
+        List<Character> characters = new ArrayList<>(state.getCharacters());
+        for (int i = 0; i < characters.size(); i++) {
+            characters.get(i).setCoordinates(new Point(i, 14));
+        }
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(6, 7));
+        operator.setMp(2);
+        operator.addGadget(new Gadget(GadgetEnum.GAS_GLOSS));
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+
+        HomingGuidance guide = new HomingGuidance();
+        guide.updateOperation(state, matchconfig, operator, us);
+        // no line of sight asked for
+        Set<Point> movement = guide.getTargetsFor(HomingTargetType.MOVEMENT);
+        Set<Point> gasGloss = guide.getTargetsFor(HomingTargetType.GAS_GLOSS);
+
+        // far away from the operator
+        characters.get(0).setCoordinates(new Point(0, 13));
+        guide.updateOperation(state, matchconfig, operator, us, new HomingChanges());
+        Assertions.assertSame(movement, guide.getTargetsFor(HomingTargetType.MOVEMENT), "Kept movement");
+        Assertions.assertSame(gasGloss, guide.getTargetsFor(HomingTargetType.GAS_GLOSS), "Kept gas gloss");
+
+        // next to the operator
+        characters.get(0).setCoordinates(new Point(7, 7));
+        guide.updateOperation(state, matchconfig, operator, us, new HomingChanges());
+        Assertions.assertSame(movement, guide.getTargetsFor(HomingTargetType.MOVEMENT), "Still kept movement");
+        Assertions.assertEquals(Set.of(new Point(7, 7)), guide.getTargetsFor(HomingTargetType.GAS_GLOSS),
+                "Gas gloss calculated again");
+
+        // a character swapped in the same set, same size
+        state.getCharacters().remove(characters.get(1));
+        Character added = new Character(UUID.randomUUID(), "Added", new Point(5, 7), 3, 1, 100, 0, 0, List.of(),
+                List.of());
+        state.getCharacters().add(added);
+        Assertions.assertEquals(characters.size(), state.getCharacters().size(), "Same size");
+        guide.updateOperation(state, matchconfig, operator, us, new HomingChanges());
+        Assertions.assertEquals(Set.of(new Point(5, 7), new Point(7, 7)),
+                guide.getTargetsFor(HomingTargetType.GAS_GLOSS), "Added character noticed");
+        // and followed
+        added.setCoordinates(new Point(5, 6));
+        guide.updateOperation(state, matchconfig, operator, us, new HomingChanges());
+        Assertions.assertEquals(Set.of(new Point(5, 6), new Point(7, 7)),
+                guide.getTargetsFor(HomingTargetType.GAS_GLOSS), "Added character followed");
+    }
+
+    @Test
+    @DisplayName("[Homing] Incremental updates notice other safe combinations")
+    public void test_incrementalSafeCombinations() {
+        State state = getMeAState(CHARACTERS_PATH, "json/files/scenario/circles.scenario", 1, new Point(-1, -1),
+                new Point(-1, -1));
+        List<Character> characters = new ArrayList<>(state.getCharacters());
+        for (int i = 0; i < characters.size(); i++) {
+            characters.get(i).setCoordinates(new Point(i, 4));
+        }
+        List<UUID> us = characters.stream().skip(2).limit(4).map(Character::getCharacterId)
+                .collect(Collectors.toList());
+        // next to the only safe
+        Character operator = characters.get(3);
+        operator.setCoordinates(new Point(8, 13));
+        final Matchconfig matchconfig = getMatchconfig(MATCHCONFIG_PATH);
+
+        state.getMySafeCombinations().add(2);
+        HomingGuidance guide = new HomingGuidance();
+        guide.updateOperation(state, matchconfig, operator, us);
+        Assertions.assertTrue(guide.getTargetsFor(HomingTargetType.SPY).isEmpty(), "Combination unknown");
+
+        // same number of combinations
+        state.getMySafeCombinations().remove(2);
+        state.getMySafeCombinations().add(1);
+        guide.updateOperation(state, matchconfig, operator, us, new HomingChanges());
+        Assertions.assertEquals(Set.of(new Point(8, 14)), guide.getTargetsFor(HomingTargetType.SPY),
+                "Combination known");
+
+        // no validity checking for the state
+        State unchecked = new State(1, state.getMap(), null, state.getCharacters(), null, null);
+        Assertions.assertDoesNotThrow(() -> guide.updateOperation(unchecked, matchconfig, operator, us),
+                "No combinations");
+        Assertions.assertDoesNotThrow(() -> guide.updateOperation(unchecked, matchconfig, operator, us,
+                new HomingChanges()), "Still no combinations");
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Random;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Random fields shared by the pathfinding tests
+ */
+public abstract class AbstractPathfindingTest {
+
+    /**
+     * @param random            Source of the field
+     * @param width             Width of the (longest) rows
+     * @param height            Number of rows
+     * @param obstaclesPerMille Chance of a cell to be a wall
+     * @param shortRows         May some rows be shorter than the width?
+     *
+     * @return A field of free cells and walls
+     */
+    protected static FieldStateEnum[][] randomField(Random random, int width, int height, int obstaclesPerMille,
+            boolean shortRows) {
+        FieldStateEnum[][] field = new FieldStateEnum[height][];
+        for (int y = 0; y < height; y++) {
+            field[y] = new FieldStateEnum[shortRows && random.nextInt(5) == 0 ? 1 + random.nextInt(width) : width];
+            for (int x = 0; x < field[y].length; x++) {
+                field[y][x] = random.nextInt(1000) < obstaclesPerMille ? FieldStateEnum.WALL : FieldStateEnum.FREE;
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Like {@link #randomField(Random, int, int, int, boolean)} with some shorter
+     * rows.
+     */
+    protected static FieldStateEnum[][] randomField(Random random, int width, int height, int obstaclesPerMille) {
+        return randomField(random, width, height, obstaclesPerMille, true);
+    }
+
+    /**
+     * @param field The states of the cells
+     *
+     * @return New fields of the given states
+     */
+    protected static Field[][] toFields(FieldStateEnum[][] field) {
+        Field[][] fields = new Field[field.length][];
+        for (int y = 0; y < field.length; y++) {
+            fields[y] = new Field[field[y].length];
+            for (int x = 0; x < field[y].length; x++) {
+                fields[y][x] = new Field(field[y][x]);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @param random Source of the point
+     * @param field  The field, every row must hold a cell
+     *
+     * @return A point on the field
+     */
+    protected static Point randomPoint(Random random, Object[][] field) {
+        int y = random.nextInt(field.length);
+        return new Point(random.nextInt(field[y].length), y);
+    }
+
+}
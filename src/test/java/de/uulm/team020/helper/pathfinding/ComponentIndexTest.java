@@ -0,0 +1,138 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the connected components used by the pathfinder.
+ */
+public class ComponentIndexTest extends AbstractPathfindingTest {
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[ComponentIndex] Labels equal the breadth-first reachability.")
+    void test_labels() {
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            Field[][] fields = toFields(
+                    randomField(random, 1 + random.nextInt(30), 1 + random.nextInt(30), 350));
+            boolean canWalkDiagonal = random.nextBoolean();
+            ComponentIndex<Field> index = new ComponentIndex<>(fields, canWalkDiagonal, false, false);
+            for (int k = 0; k < 20; k++) {
+                Point start = randomPoint(random, fields);
+                Point end = randomPoint(random, fields);
+                if (fields[start.getY()][start.getX()].blocksWay()) {
+                    Assertions.assertEquals(ComponentIndex.NONE, index.getComponent(start.getX(), start.getY()),
+                            "Blocked");
+                    continue;
+                }
+                boolean reachable = DistanceField
+                        .compute(fields, start, canWalkDiagonal, false, DistanceField.NO_BUDGET).isReachable(end);
+                Assertions.assertEquals(reachable, index.connected(start.getX(), start.getY(), end.getX(),
+                        end.getY(), false), "From " + start + " to " + end);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[ComponentIndex] Updates equal labeling the changed field again.")
+    void test_updates() {
+        Random random = new Random(2);
+        for (int i = 0; i < 50; i++) {
+            Field[][] fields = toFields(
+                    randomField(random, 1 + random.nextInt(30), 1 + random.nextInt(30), 400));
+            boolean canWalkDiagonal = random.nextBoolean();
+            boolean legacyRules = random.nextBoolean();
+            ComponentIndex<Field> index = new ComponentIndex<>(fields, canWalkDiagonal, false, legacyRules);
+            for (int m = 0; m < 40; m++) {
+                Point changed = randomPoint(random, fields);
+                Field field = fields[changed.getY()][changed.getX()];
+                field.setState(field.blocksWay() ? FieldStateEnum.FREE : FieldStateEnum.WALL);
+                index.update(changed.getX(), changed.getY());
+            }
+            ComponentIndex<Field> fresh = new ComponentIndex<>(fields, canWalkDiagonal, false, legacyRules);
+            Assertions.assertEquals(fresh.getComponentCount(), index.getComponentCount(), "Component count");
+            for (int k = 0; k < 50; k++) {
+                Point a = randomPoint(random, fields);
+                Point b = randomPoint(random, fields);
+                boolean expected = fresh.getComponent(a.getX(), a.getY()) == fresh.getComponent(b.getX(), b.getY());
+                Assertions.assertEquals(expected,
+                        index.getComponent(a.getX(), a.getY()) == index.getComponent(b.getX(), b.getY()),
+                        "Same component: " + a + " and " + b);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[ComponentIndex] Pathfinder answers like the search, following changes.")
+    @EnumSource(PathfinderMode.class)
+    void test_pathfinderAgreesWithSearch(PathfinderMode mode) {
+        Random random = new Random(mode.ordinal());
+        for (int i = 0; i < 30; i++) {
+            Field[][] fields = toFields(
+                    randomField(random, 1 + random.nextInt(25), 1 + random.nextInt(25), 300));
+            FieldMap map = new FieldMap(fields);
+            boolean canWalkDiagonal = random.nextInt(3) != 0;
+            boolean flying = random.nextInt(6) == 0;
+            Pathfinder<Field> find = new Pathfinder<>(map, 0, canWalkDiagonal, flying, mode);
+            for (int k = 0; k < 40; k++) {
+                if (k % 10 == 9) {
+                    Point changed = randomPoint(random, fields);
+                    Field field = map.getSpecificField(changed);
+                    field.setState(field.blocksWay() ? FieldStateEnum.FREE : FieldStateEnum.WALL);
+                }
+                Point start = randomPoint(random, fields);
+                Point end = randomPoint(random, fields);
+                boolean checkStartEnd = random.nextBoolean();
+                Pathfinder<Field> searching = new Pathfinder<>(fields, 25, 25, 0, canWalkDiagonal, flying, mode);
+                Assertions.assertEquals(
+                        !Path.INVALID_PATH.equals(searching.findPath(start, end, checkStartEnd)),
+                        find.connected(start, end, checkStartEnd),
+                        "From " + start + " to " + end + ", checked: " + checkStartEnd);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[ComponentIndex] Connectivity is answered without searching.")
+    void test_noSearch() {
+        Field[][] fields = new Field[PathfinderTest.TRAINING_BOARD.length][];
+        for (int y = 0; y < fields.length; y++) {
+            fields[y] = new Field[PathfinderTest.TRAINING_BOARD[y].length];
+            for (int x = 0; x < fields[y].length; x++) {
+                fields[y][x] = PathfinderTest.TRAINING_BOARD[y][x] == FieldStateEnum.SAFE ? new Field(1)
+                        : new Field(PathfinderTest.TRAINING_BOARD[y][x]);
+            }
+        }
+        FieldMap map = new FieldMap(fields);
+        Pathfinder<Field> find = new Pathfinder<>(map, PathfinderMode.JUMP_POINT);
+        Assertions.assertTrue(find.connected(new Point(1, 3), new Point(1, 16)), "Connected");
+        for (Point point : new Point[] { new Point(1, 2), new Point(2, 2), new Point(2, 3), new Point(2, 4),
+                new Point(1, 4) }) {
+            map.getSpecificField(point).setState(FieldStateEnum.WALL);
+        }
+        Assertions.assertFalse(find.connected(new Point(1, 3), new Point(1, 16)), "Walled in");
+        Assertions.assertEquals(Path.INVALID_PATH, find.findPath(new Point(1, 3), new Point(1, 16)), "No path");
+        Assertions.assertEquals(0, find.getCache().getMisses(), "Never searched");
+    }
+
+}
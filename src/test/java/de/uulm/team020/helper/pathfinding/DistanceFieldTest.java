@@ -0,0 +1,108 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Tests the single-source distance field
+ */
+public class DistanceFieldTest {
+
+    private static final FieldStateEnum[][] BOARD = PathfinderTest.TRAINING_BOARD;
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[DistanceField] Distances match the lengths found by the pathfinder.")
+    @CsvSource({ "1,3,true", "1,3,false", "2,16,true", "4,9,false", "1,21,true" })
+    void test_matchesPathfinder(int x, int y, boolean diagonal) {
+        final Point source = new Point(x, y);
+        final DistanceField distances = DistanceField.compute(BOARD, source, diagonal, false, DistanceField.NO_BUDGET);
+        final Pathfinder<FieldStateEnum> find = new Pathfinder<>(BOARD, diagonal);
+        for (int ty = 0; ty < BOARD.length; ty++) {
+            for (int tx = 0; tx < BOARD[ty].length; tx++) {
+                if (BOARD[ty][tx].blocksWay()) {
+                    Assertions.assertFalse(distances.isReachable(new Point(tx, ty)),
+                            "Blocked cells are never entered: " + tx + "/" + ty);
+                    continue;
+                }
+                final Point target = new Point(tx, ty);
+                final Path path = find.findPath(source, target);
+                final int expected = Path.INVALID_PATH.equals(path) ? DistanceField.UNREACHABLE : path.size() - 1;
+                Assertions.assertEquals(expected, distances.getDistance(target),
+                        "Distance to " + target + " with path: " + path);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[DistanceField] Rebuilt paths are valid and start at the source.")
+    void test_paths() {
+        final Point source = new Point(1, 3);
+        final DistanceField distances = DistanceField.compute(BOARD, source, true, false, DistanceField.NO_BUDGET);
+        for (Point target : distances.getPointsWithin(0, Integer.MAX_VALUE)) {
+            final Path path = distances.getPath(target);
+            Assertions.assertEquals(distances.getDistance(target) + 1, path.size(), "Length of: " + path);
+            Assertions.assertEquals(source, path.getStart(), "Start of: " + path);
+            Assertions.assertEquals(target, path.getEnd(), "End of: " + path);
+            WayPoint last = null;
+            for (WayPoint current : path) {
+                Assertions.assertFalse(BOARD[current.getY()][current.getX()].blocksWay(), "Walkable: " + path);
+                if (last != null) {
+                    Assertions.assertEquals(1, Math.max(Math.abs(last.getX() - current.getX()),
+                            Math.abs(last.getY() - current.getY())), "Single steps only: " + path);
+                }
+                last = current;
+            }
+        }
+        Assertions.assertEquals(Path.INVALID_PATH, distances.getPath(new Point(0, 0)), "Wall");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[DistanceField] The budget limits the search.")
+    void test_budget() {
+        final Point source = new Point(1, 3);
+        final DistanceField full = DistanceField.compute(BOARD, source, true, false, DistanceField.NO_BUDGET);
+        final DistanceField limited = DistanceField.compute(BOARD, source, true, false, 2);
+        Assertions.assertEquals(2, limited.getBudget(), "Budget");
+        final List<Point> within = limited.getPointsWithin(1, 2);
+        Assertions.assertEquals(full.getPointsWithin(1, 2), within, "Same within the budget");
+        Assertions.assertEquals(within.size() + 1, limited.getReachableCount(), "Only those and the source");
+        Assertions.assertEquals(0, limited.getDistance(source), "Source");
+        Assertions.assertEquals(DistanceField.UNREACHABLE, limited.getDistance(new Point(1, 16)), "Too far");
+        Assertions.assertEquals(DistanceField.UNREACHABLE, limited.getDistance(-1, 200), "Not on the field");
+
+        final DistanceField none = DistanceField.compute(BOARD, source, true, false, 0);
+        Assertions.assertEquals(1, none.getReachableCount(), "Only the source");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[DistanceField] Flying ignores blocked cells, invalid arguments are rejected.")
+    void test_flyingAndArguments() {
+        final DistanceField flying = DistanceField.compute(BOARD, new Point(1, 3), true, true,
+                DistanceField.NO_BUDGET);
+        Assertions.assertEquals(1, flying.getDistance(new Point(0, 2)), "Flying over the wall");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> DistanceField.compute(BOARD, new Point(-1, 3), true, false, 1), "Not on the field");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> DistanceField.compute(BOARD, new Point(1, 3), true, false, -1), "Negative budget");
+    }
+
+}
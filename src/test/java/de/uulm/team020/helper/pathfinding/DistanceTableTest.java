@@ -0,0 +1,173 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.Scenario;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.validation.GameDataGson;
+
+/**
+ * Tests the precomputed all-pairs distances
+ */
+public class DistanceTableTest {
+
+    private static Scenario load(String name) throws IOException {
+        return GameDataGson.fromJson(GameDataGson.loadInternalJson("json/files/scenario/" + name + ".scenario"),
+                Scenario.class);
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[DistanceTable] Distances match the distance fields of every cell.")
+    @CsvSource({ "circles,true", "circles,false", "edge,true", "thepits,false", "hugeWorld,true" })
+    void test_matchesDistanceFields(String name, boolean diagonal) throws IOException {
+        final FieldStateEnum[][] field = load(name).getField();
+        final DistanceTable table = DistanceTable.compute(field, diagonal);
+        for (int sy = 0; sy < field.length; sy++) {
+            for (int sx = 0; sx < field[sy].length; sx++) {
+                final Point source = new Point(sx, sy);
+                final DistanceField distances = DistanceField.compute(field, source, diagonal, false,
+                        DistanceField.NO_BUDGET);
+                for (int ty = 0; ty < field.length; ty++) {
+                    for (int tx = 0; tx < field[ty].length; tx++) {
+                        final int expected = field[sy][sx].blocksWay() || field[ty][tx].blocksWay()
+                                ? DistanceTable.UNREACHABLE
+                                : distances.getDistance(tx, ty);
+                        Assertions.assertEquals(expected, table.getDistance(sx, sy, tx, ty),
+                                name + " from " + source + " to " + tx + "/" + ty);
+                    }
+                }
+            }
+        }
+        Assertions.assertEquals(DistanceTable.UNREACHABLE, table.getDistance(-1, 0, 0, 0), "Not on the field");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[DistanceTable] Tables can be stored next to the scenario and loaded again.")
+    void test_storeAndLoad(@TempDir File directory) throws IOException {
+        final Scenario scenario = load("circles");
+        final File scenarioFile = new File(directory, "circles.scenario");
+        final File tableFile = DistanceTable.fileFor(scenarioFile);
+        Assertions.assertEquals(new File(directory, "circles.scenario" + DistanceTable.FILE_SUFFIX), tableFile,
+                "Next to the scenario");
+
+        final DistanceTable computed = DistanceTable.loadOrCompute(scenarioFile, scenario);
+        Assertions.assertTrue(tableFile.isFile(), "Should have been stored");
+        final DistanceTable loaded = DistanceTable.readFrom(tableFile);
+        Assertions.assertTrue(loaded.matches(scenario.getField()), "Same field");
+        Assertions.assertEquals(computed.getCellCount(), loaded.getCellCount(), "Same cells");
+        final FieldStateEnum[][] field = scenario.getField();
+        for (int i = 0; i < 500; i++) {
+            int sx = i % field[0].length;
+            int sy = (i / 7) % field.length;
+            int tx = (i * 3) % field[0].length;
+            int ty = (i * 11) % field.length;
+            Assertions.assertEquals(computed.getDistance(sx, sy, tx, ty), loaded.getDistance(sx, sy, tx, ty),
+                    "Same distance " + i);
+        }
+
+        // another field, the stored one is outdated
+        final Scenario other = load("edge");
+        Assertions.assertFalse(loaded.matches(other.getField()), "Other field");
+        Assertions.assertTrue(DistanceTable.loadOrCompute(scenarioFile, other).matches(other.getField()),
+                "Rebuilt");
+
+        Files.write(tableFile.toPath(), new byte[] { 1, 2, 3 });
+        Assertions.assertThrows(IOException.class, () -> DistanceTable.readFrom(tableFile), "Garbage");
+        Assertions.assertTrue(DistanceTable.loadOrCompute(scenarioFile, scenario).matches(scenario.getField()),
+                "Rebuilt on garbage");
+    }
+
+    // a header as written by the table, followed by the given walkable cells
+    private static byte[] header(int height, int rowLength, int walkable) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x4E545444);
+            out.writeInt(1);
+            out.writeBoolean(true);
+            out.writeInt(height);
+            for (int y = 0; y < Math.min(height, 4); y++) {
+                out.writeInt(rowLength);
+            }
+            for (int i = 0; i < walkable; i++) {
+                out.writeBoolean(true);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[DistanceTable] Corrupt headers are rejected before allocating.")
+    @CsvSource({ "-1,0,0", "2147483647,1,0", "4,-3,0", "4,2147483647,0", "4,32767,0", "2,10,20", "1,1,1" })
+    void test_corruptHeader(int height, int rowLength, int walkable, @TempDir File directory) throws IOException {
+        final File tableFile = new File(directory, "corrupt" + DistanceTable.FILE_SUFFIX);
+        Files.write(tableFile.toPath(), header(height, rowLength, walkable));
+        if (height == 1) {
+            // a single cell has no pairs, nothing is missing
+            Assertions.assertEquals(1, DistanceTable.readFrom(tableFile).getCellCount(), "Single cell");
+        } else {
+            Assertions.assertThrows(IOException.class, () -> DistanceTable.readFrom(tableFile), "Corrupt");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[DistanceTable] Pathfinder rejects unreachable queries and drops outdated tables.")
+    void test_pathfinder() throws IOException {
+        Field[][] fields = new Field[PathfinderTest.TRAINING_BOARD.length][];
+        for (int y = 0; y < fields.length; y++) {
+            fields[y] = new Field[PathfinderTest.TRAINING_BOARD[y].length];
+            for (int x = 0; x < fields[y].length; x++) {
+                fields[y][x] = PathfinderTest.TRAINING_BOARD[y][x] == FieldStateEnum.SAFE ? new Field(1)
+                        : new Field(PathfinderTest.TRAINING_BOARD[y][x]);
+            }
+        }
+        FieldMap map = new FieldMap(fields);
+        Pathfinder<Field> find = new Pathfinder<>(map);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> find.setDistanceTable(DistanceTable.compute(map.getField(), false)), "Not diagonal");
+        final DistanceTable other = DistanceTable.compute(load("edge"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> find.setDistanceTable(other), "Other field");
+
+        find.setDistanceTable(DistanceTable.compute(map));
+        Assertions.assertNotNull(find.getDistanceTable(), "Set");
+        Assertions.assertNotEquals(Path.INVALID_PATH, find.findPath(new Point(1, 3), new Point(1, 16)), "Connected");
+        Assertions.assertEquals(1, find.getCache().getMisses(), "Searched");
+
+        // wall off the start
+        for (Point point : new Point[] { new Point(1, 2), new Point(2, 2), new Point(2, 3), new Point(2, 4),
+                new Point(1, 4) }) {
+            map.getSpecificField(point).setState(FieldStateEnum.WALL);
+        }
+        Assertions.assertFalse(find.connected(new Point(1, 3), new Point(1, 16)), "Walled in");
+        Assertions.assertNull(find.getDistanceTable(), "Outdated");
+
+        find.setDistanceTable(DistanceTable.compute(map));
+        final long misses = find.getCache().getMisses();
+        Assertions.assertFalse(find.connected(new Point(1, 3), new Point(1, 16)), "Still walled in");
+        Assertions.assertEquals(misses, find.getCache().getMisses(), "Answered by the table");
+    }
+
+}
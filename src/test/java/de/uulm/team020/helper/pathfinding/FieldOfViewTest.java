@@ -0,0 +1,92 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the single sweep field of view
+ */
+public class FieldOfViewTest {
+
+    private static FieldMap randomMap(Random random, int width, int height, boolean ragged) {
+        Field[][] fields = new Field[height][];
+        for (int y = 0; y < height; y++) {
+            fields[y] = new Field[ragged ? 1 + random.nextInt(width) : width];
+            for (int x = 0; x < fields[y].length; x++) {
+                fields[y][x] = new Field(random.nextInt(8) == 0 ? FieldStateEnum.WALL : FieldStateEnum.FREE);
+                fields[y][x].setFoggy(random.nextInt(15) == 0);
+            }
+        }
+        return new FieldMap(fields);
+    }
+
+    private static void assertMatchesLines(FieldMap map, Point source, int range) {
+        FieldOfView view = FieldOfView.compute(map, source, range);
+        Field[][] fields = map.getField();
+        int count = 0;
+        for (int y = -1; y <= fields.length; y++) {
+            for (int x = -1; x <= 20; x++) {
+                Point target = new Point(x, y);
+                boolean expected = target.isOnField(map) && Point.getKingDistance(source, target) <= range
+                        && Point.getLine(source, target).isLineOfSight(map);
+                Assertions.assertEquals(expected, view.isVisible(target),
+                        "From " + source + " with range " + range + " to " + target);
+                count += expected ? 1 : 0;
+            }
+        }
+        Assertions.assertEquals(count, view.getVisibleCount(), "Count from " + source);
+        Assertions.assertEquals(count, view.getVisiblePoints().size(), "Points from " + source);
+        Set<Point> evenRows = new HashSet<>();
+        for (Point p : view.getVisiblePoints()) {
+            if (p.getY() % 2 == 0) {
+                evenRows.add(p);
+            }
+        }
+        Assertions.assertEquals(evenRows, view.getVisiblePoints((x, y) -> y % 2 == 0), "Filtered from " + source);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[FieldOfView] Matches the line of sight of every single line.")
+    void test_matchesLines() {
+        Random random = new Random(19);
+        for (int i = 0; i < 30; i++) {
+            FieldMap map = randomMap(random, 1 + random.nextInt(18), 1 + random.nextInt(18), i % 3 == 0);
+            Field[][] fields = map.getField();
+            for (int k = 0; k < 8; k++) {
+                int y = random.nextInt(fields.length);
+                Point source = new Point(random.nextInt(fields[y].length), y);
+                assertMatchesLines(map, source, random.nextInt(10));
+            }
+            assertMatchesLines(map, new Point(0, 0), Integer.MAX_VALUE);
+            assertMatchesLines(map, new Point(-2, 3), 6);
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[FieldOfView] The range is validated.")
+    void test_range() {
+        FieldMap map = randomMap(new Random(1), 3, 3, false);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FieldOfView.compute(map, new Point(1, 1), -1),
+                "Negative");
+        FieldOfView view = FieldOfView.compute(map, new Point(1, 1), 0);
+        Assertions.assertEquals(1, view.getVisibleCount(), "Only the source");
+        Assertions.assertTrue(view.isVisible(1, 1), "Source is visible");
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import de.uulm.team020.datatypes.Scenario;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+import de.uulm.team020.validation.GameDataGson;
+
+/**
+ * Compares the primitive engine with the original implementation.
+ */
+public class GridSearchTest {
+
+    public static Stream<Arguments> generate_scenarios() {
+        Stream.Builder<Arguments> builder = Stream.builder();
+        for (String scenario : new String[] { "edge", "thepits", "thesword", "valid" }) {
+            for (boolean diagonal : new boolean[] { true, false }) {
+                builder.add(Arguments.arguments(scenario, diagonal, false));
+                builder.add(Arguments.arguments(scenario, diagonal, true));
+            }
+        }
+        return builder.build();
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[GridSearch] Same reachability and never longer than the original engine.")
+    @MethodSource("generate_scenarios")
+    void test_sameAsLegacy(String name, boolean diagonal, boolean flying) throws IOException {
+        String json = GameDataGson.loadInternalJson("json/files/scenario/" + name + ".scenario");
+        Scenario scenario = GameDataGson.fromJson(json, Scenario.class);
+        FieldStateEnum[][] field = scenario.getField();
+        Pathfinder<FieldStateEnum> finder = new Pathfinder<>(scenario, 1, diagonal, flying);
+
+        List<Point> points = new ArrayList<>();
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                points.add(new Point(x, y));
+            }
+        }
+
+        for (Point start : points) {
+            for (Point end : points) {
+                for (boolean checkStartEnd : new boolean[] { false, true }) {
+                    Path path = finder.findPath(start, end, checkStartEnd);
+                    boolean rejected = checkStartEnd && (scenario.getSpecificField(start).blocksWay()
+                            || scenario.getSpecificField(end).blocksWay());
+                    WayPoint legacy = rejected ? WayPoint.INVALID : finder.findLegacy(start, end, checkStartEnd);
+                    String msg = "For " + start + " -> " + end + " (checkStartEnd: " + checkStartEnd + ")";
+                    Assertions.assertEquals(WayPoint.INVALID.equals(legacy), path.invalid(), msg);
+                    if (path.invalid())
+                        continue;
+                    Assertions.assertTrue(path.size() <= new Path(legacy).size(),
+                            msg + " got " + path + " but original was " + new Path(legacy));
+                    assertWalkable(path, field, diagonal, flying, msg);
+                }
+            }
+        }
+    }
+
+    private static void assertWalkable(Path path, FieldStateEnum[][] field, boolean diagonal, boolean flying,
+            String msg) {
+        Iterator<WayPoint> iterator = path.iterator();
+        Point last = iterator.next();
+        while (iterator.hasNext()) {
+            Point next = iterator.next();
+            int distance = Math.abs(next.getX() - last.getX()) + Math.abs(next.getY() - last.getY());
+            Assertions.assertTrue(last.isNeighbour(next) && (diagonal || distance == 1),
+                    msg + " no valid step from " + last + " to " + next + " in " + path);
+            Assertions.assertTrue(flying || next.equals(path.getEnd()) || !field[next.getY()][next.getX()].blocksWay(),
+                    msg + " walked over blocked " + next + " in " + path);
+            last = next;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.Scenario;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+import de.uulm.team020.validation.GameDataGson;
+
+/**
+ * Tests the hierarchical search against breadth-first distances.
+ */
+public class HierarchicalSearchTest extends AbstractPathfindingTest {
+
+    private static void assertValid(Path path, Point start, Point end, boolean canWalkDiagonal) {
+        Assertions.assertEquals(start, path.getStart(), "Start of: " + path);
+        Assertions.assertEquals(end, path.getEnd(), "End of: " + path);
+        WayPoint last = null;
+        for (WayPoint current : path) {
+            if (last != null) {
+                int dx = Math.abs(last.getX() - current.getX());
+                int dy = Math.abs(last.getY() - current.getY());
+                Assertions.assertEquals(1, canWalkDiagonal ? Math.max(dx, dy) : dx + dy, "Single steps: " + path);
+            }
+            last = current;
+        }
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[HierarchicalSearch] Finds a near optimal path whenever there is one.")
+    @ValueSource(ints = { 0, 100, 300, 450 })
+    void test_reachabilityAndLength(int obstaclesPerMille) {
+        Random random = new Random(obstaclesPerMille);
+        long optimal = 0;
+        long found = 0;
+        for (int i = 0; i < 60; i++) {
+            FieldStateEnum[][] field = randomField(random, 1 + random.nextInt(50), 1 + random.nextInt(50),
+                    obstaclesPerMille);
+            boolean canWalkDiagonal = random.nextInt(3) != 0;
+            boolean flying = random.nextInt(6) == 0;
+            HierarchicalSearch<FieldStateEnum> search = new HierarchicalSearch<>(field, 2 + random.nextInt(12),
+                    canWalkDiagonal, flying);
+            SearchWorkspace workspace = new SearchWorkspace(1);
+            for (int k = 0; k < 20; k++) {
+                int sy = random.nextInt(field.length);
+                Point start = new Point(random.nextInt(field[sy].length), sy);
+                int ey = random.nextInt(field.length);
+                Point end = new Point(random.nextInt(field[ey].length), ey);
+                if (!flying && (field[sy][start.getX()].blocksWay() || field[ey][end.getX()].blocksWay())) {
+                    continue;
+                }
+                int distance = DistanceField.compute(field, start, canWalkDiagonal, flying, DistanceField.NO_BUDGET)
+                        .getDistance(end);
+                int node = search.search(workspace, start.getX(), start.getY(), end.getX(), end.getY(), true);
+                if (distance == DistanceField.UNREACHABLE) {
+                    Assertions.assertEquals(SearchEngine.NO_PATH, node, "No path from " + start + " to " + end);
+                    continue;
+                }
+                Assertions.assertNotEquals(SearchEngine.NO_PATH, node, "Path from " + start + " to " + end);
+                Path path = new Path(GridSearch.toWayPoint(workspace, node));
+                assertValid(path, start, end, canWalkDiagonal);
+                for (WayPoint current : path) {
+                    Assertions.assertTrue(flying || !field[current.getY()][current.getX()].blocksWay(),
+                            "Walkable: " + path);
+                }
+                Assertions.assertTrue(path.size() - 1 >= distance, "Can not be shorter: " + path);
+                optimal += distance;
+                found += path.size() - 1;
+            }
+        }
+        Assertions.assertTrue(found <= optimal * 1.1, "Near optimal, but " + found + " vs. " + optimal);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[HierarchicalSearch] Blocked ends may be reached if not checked.")
+    void test_blockedEnd() {
+        Pathfinder<FieldStateEnum> find = new Pathfinder<>(PathfinderTest.TRAINING_BOARD, 8, 23, 0, true, false,
+                PathfinderMode.HIERARCHICAL);
+        Assertions.assertEquals(PathfinderMode.HIERARCHICAL, find.getMode(), "Mode");
+        Path path = find.findPath(new Point(1, 3), new Point(0, 10), false);
+        Assertions.assertEquals(new Point(0, 10), path.getEnd(), "Reaches the wall: " + path);
+        assertValid(path, new Point(1, 3), new Point(0, 10), true);
+        Assertions.assertEquals(Path.INVALID_PATH, find.findPath(new Point(1, 3), new Point(0, 10), true),
+                "Not if checked");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[HierarchicalSearch] Repairing the changed clusters equals building them again.")
+    void test_repair() {
+        Random random = new Random(3);
+        for (int i = 0; i < 40; i++) {
+            FieldStateEnum[][] field = randomField(random, 5 + random.nextInt(40), 5 + random.nextInt(40), 250);
+            boolean canWalkDiagonal = random.nextBoolean();
+            int clusterSize = 2 + random.nextInt(8);
+            HierarchicalSearch<FieldStateEnum> repaired = new HierarchicalSearch<>(field, clusterSize,
+                    canWalkDiagonal, false);
+            SearchWorkspace workspace = new SearchWorkspace(1);
+            repaired.search(workspace, 0, 0, 0, 0, false);
+            for (int m = 0; m < 10; m++) {
+                int y = random.nextInt(field.length);
+                int x = random.nextInt(field[y].length);
+                field[y][x] = field[y][x].blocksWay() ? FieldStateEnum.FREE : FieldStateEnum.WALL;
+                repaired.invalidate(x, y);
+            }
+            HierarchicalSearch<FieldStateEnum> fresh = new HierarchicalSearch<>(field, clusterSize, canWalkDiagonal,
+                    false);
+            Assertions.assertEquals(fresh.getNodeCount(), repaired.getNodeCount(), "Same nodes");
+            for (int k = 0; k < 20; k++) {
+                int sy = random.nextInt(field.length);
+                int sx = random.nextInt(field[sy].length);
+                int ey = random.nextInt(field.length);
+                int ex = random.nextInt(field[ey].length);
+                int node = repaired.search(workspace, sx, sy, ex, ey, false);
+                int length = node == SearchEngine.NO_PATH ? -1 : workspace.getCost(node);
+                int freshNode = fresh.search(workspace, sx, sy, ex, ey, false);
+                Assertions.assertEquals(freshNode == SearchEngine.NO_PATH ? -1 : workspace.getCost(freshNode), length,
+                        "Same length from (" + sx + "," + sy + ") to (" + ex + "," + ey + ")");
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[HierarchicalSearch] Pathfinder on a field-map follows its changes.")
+    void test_pathfinderFollowsChanges() {
+        Random random = new Random(8);
+        Field[][] fields = new Field[60][60];
+        for (Field[] row : fields) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = new Field(random.nextInt(10) == 0 ? FieldStateEnum.WALL : FieldStateEnum.FREE);
+            }
+        }
+        FieldMap map = new FieldMap(fields);
+        map.getSpecificField(new Point(0, 0)).setState(FieldStateEnum.FREE);
+        map.getSpecificField(new Point(59, 59)).setState(FieldStateEnum.FREE);
+        Pathfinder<Field> find = new Pathfinder<>(map, PathfinderMode.HIERARCHICAL);
+        Path before = find.findPath(new Point(0, 0), new Point(59, 59));
+        Assertions.assertNotEquals(Path.INVALID_PATH, before, "Reachable");
+
+        // wall in the end
+        for (Point neighbour : new Point[] { new Point(58, 58), new Point(59, 58), new Point(58, 59) }) {
+            map.getSpecificField(neighbour).setState(FieldStateEnum.WALL);
+        }
+        Assertions.assertEquals(Path.INVALID_PATH, find.findPath(new Point(0, 0), new Point(59, 59)),
+                "Walled in");
+        map.getSpecificField(new Point(58, 59)).setState(FieldStateEnum.FREE);
+        Path after = find.findPath(new Point(0, 0), new Point(59, 59));
+        Assertions.assertEquals(new Point(58, 59), after.getEnd().getFather(), "Through the gap: " + after);
+        assertValid(after, new Point(0, 0), new Point(59, 59), true);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(5)
+    @DisplayName("[HierarchicalSearch] Unreported changes of a raw field are noticed.")
+    void test_unreportedChanges() {
+        Random random = new Random(5);
+        for (int i = 0; i < 30; i++) {
+            FieldStateEnum[][] field = randomField(random, 40, 40, 150);
+            boolean canWalkDiagonal = random.nextBoolean();
+            Pathfinder<FieldStateEnum> find = new Pathfinder<>(field, 40, 40, 0, canWalkDiagonal, false,
+                    PathfinderMode.HIERARCHICAL);
+            Point start = new Point(0, 0);
+            Point end = new Point(field[39].length - 1, 39);
+            field[0][0] = FieldStateEnum.FREE;
+            field[39][end.getX()] = FieldStateEnum.FREE;
+            Path before = find.findPath(start, end);
+            if (Path.INVALID_PATH.equals(before)) {
+                continue;
+            }
+            // block the middle of the path without telling the pathfinder
+            int skip = 0;
+            for (WayPoint p : before) {
+                if (skip++ > 2 && before.size() - skip > 2) {
+                    field[p.getY()][p.getX()] = FieldStateEnum.WALL;
+                }
+            }
+            Path after = Assertions.assertDoesNotThrow(() -> find.findPath(start, end), "Stale clusters");
+            if (!Path.INVALID_PATH.equals(after)) {
+                assertValid(after, start, end, canWalkDiagonal);
+                for (WayPoint p : after) {
+                    Assertions.assertFalse(field[p.getY()][p.getX()].blocksWay(), "Avoids the walls: " + after);
+                }
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(6)
+    @DisplayName("[HierarchicalSearch] Reaches everything A* reaches on the huge world.")
+    void test_hugeWorld() throws IOException {
+        Scenario scenario = GameDataGson.fromJson(
+                GameDataGson.loadInternalJson("json/files/scenario/hugeWorld.scenario"), Scenario.class);
+        FieldStateEnum[][] field = scenario.getField();
+        Pathfinder<FieldStateEnum> aStar = new Pathfinder<>(scenario, 0, true, false);
+        Pathfinder<FieldStateEnum> hierarchical = new Pathfinder<>(scenario, 0, true, false,
+                PathfinderMode.HIERARCHICAL);
+        Random random = new Random(20);
+        for (int i = 0; i < 200; i++) {
+            int sy = random.nextInt(field.length);
+            int ey = random.nextInt(field.length);
+            if (field[sy].length == 0 || field[ey].length == 0) {
+                continue;
+            }
+            Point start = new Point(random.nextInt(field[sy].length), sy);
+            Point end = new Point(random.nextInt(field[ey].length), ey);
+            Path expected = aStar.findPath(start, end);
+            if (Path.INVALID_PATH.equals(expected)) {
+                continue; // the right border may only be reachable for the hierarchical search
+            }
+            Path path = hierarchical.findPath(start, end);
+            Assertions.assertNotEquals(Path.INVALID_PATH, path, "Reachable from " + start + " to " + end);
+            assertValid(path, start, end, true);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Tests the incremental planner against breadth-first distances.
+ */
+public class IncrementalPathfinderTest extends AbstractPathfindingTest {
+
+    private static void assertValid(Field[][] fields, Path path, Point start, Point goal, boolean canWalkDiagonal) {
+        Assertions.assertEquals(start, path.getStart(), "Start of: " + path);
+        Assertions.assertEquals(goal, path.getEnd(), "End of: " + path);
+        WayPoint last = null;
+        for (WayPoint current : path) {
+            if (last != null) {
+                int dx = Math.abs(last.getX() - current.getX());
+                int dy = Math.abs(last.getY() - current.getY());
+                Assertions.assertEquals(1, canWalkDiagonal ? Math.max(dx, dy) : dx + dy, "Single steps: " + path);
+                Assertions.assertTrue(current.equals(goal) || !fields[current.getY()][current.getX()].blocksWay(),
+                        "Walkable: " + path);
+            }
+            last = current;
+        }
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[IncrementalPathfinder] Replanned paths are optimal while moving and changing the map.")
+    @ValueSource(strings = { "diagonal", "straight" })
+    void test_optimalWhileMoving(String movement) {
+        boolean canWalkDiagonal = "diagonal".equals(movement);
+        Random random = new Random(movement.hashCode());
+        for (int i = 0; i < 40; i++) {
+            Field[][] fields = toFields(
+                    randomField(random, 2 + random.nextInt(30), 2 + random.nextInt(30), 250));
+            FieldMap map = new FieldMap(fields);
+            Point goal = randomPoint(random, fields);
+            map.getSpecificField(goal).setState(FieldStateEnum.FREE);
+            IncrementalPathfinder<Field> planner = new IncrementalPathfinder<>(map, goal, canWalkDiagonal, false);
+            Point agent = randomPoint(random, fields);
+            for (int round = 0; round < 25; round++) {
+                for (int m = 0; m < 3; m++) {
+                    Point changed = randomPoint(random, fields);
+                    if (!changed.equals(goal)) {
+                        Field field = map.getSpecificField(changed);
+                        field.setState(field.blocksWay() ? FieldStateEnum.FREE : FieldStateEnum.WALL);
+                    }
+                }
+                Path path = planner.findPath(agent);
+                // the agent may leave a blocked field
+                DistanceField distances = DistanceField.compute(fields, goal, canWalkDiagonal, false,
+                        DistanceField.NO_BUDGET);
+                int expected = DistanceField.UNREACHABLE;
+                for (Point next : agent.getNeighbours()) {
+                    boolean straight = Math.abs(next.getX() - agent.getX()) + Math.abs(next.getY() - agent.getY()) == 1;
+                    int distance = distances.getDistance(next);
+                    if ((canWalkDiagonal || straight) && next.isOnField(fields) && distance != DistanceField.UNREACHABLE
+                            && (expected == DistanceField.UNREACHABLE || distance + 1 < expected)) {
+                        expected = distance + 1;
+                    }
+                }
+                if (agent.equals(goal)) {
+                    expected = 0;
+                }
+                if (expected == DistanceField.UNREACHABLE) {
+                    Assertions.assertEquals(Path.INVALID_PATH, path, "No path from " + agent);
+                    agent = randomPoint(random, fields);
+                    continue;
+                }
+                Assertions.assertEquals(expected, path.size() - 1, "Length from " + agent + ": " + path);
+                assertValid(fields, path, agent, goal, canWalkDiagonal);
+                // walk some steps
+                int steps = Math.min(path.size() - 1, 1 + random.nextInt(3));
+                WayPoint current = path.getStart();
+                for (int s = 0; s < steps; s++) {
+                    current = current.getChild();
+                }
+                agent = new Point(current);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[IncrementalPathfinder] Replanning expands far less cells than the first search.")
+    void test_replanningIsCheap() {
+        Random random = new Random(5);
+        Field[][] fields = toFields(randomField(random, 80, 80, 150));
+        Point goal = new Point(0, 0);
+        fields[0][0].setState(FieldStateEnum.FREE);
+        IncrementalPathfinder<Field> planner = new IncrementalPathfinder<>(fields, goal, true, false);
+        Point agent = randomPoint(random, fields);
+        while (agent.getX() + agent.getY() < 60) {
+            agent = randomPoint(random, fields);
+        }
+        Path path = planner.findPath(agent);
+        Assertions.assertNotEquals(Path.INVALID_PATH, path, "Reachable");
+        long first = planner.getExpansions();
+
+        long replanned = 0;
+        for (int round = 0; round < 10 && path.size() > 2; round++) {
+            // block a cell on the way, the agent moves on
+            WayPoint next = path.getStart().getChild();
+            WayPoint blocked = next.getChild();
+            if (!blocked.equals(goal)) {
+                fields[blocked.getY()][blocked.getX()].setState(FieldStateEnum.WALL);
+                planner.cellChanged(blocked.getX(), blocked.getY());
+            }
+            path = planner.findPath(next);
+            Assertions.assertNotEquals(Path.INVALID_PATH, path, "Still reachable");
+            Assertions.assertFalse(path.contains(blocked) && !blocked.equals(goal), "Avoids the new wall: " + path);
+            replanned += planner.getExpansions();
+        }
+        Assertions.assertTrue(replanned * 2 < first, "Replanning 10 times expanded " + replanned + " vs. " + first);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[IncrementalPathfinder] Blocked positions, unreachable goals and invalid arguments.")
+    void test_edgeCases() {
+        Field[][] fields = new Field[3][3];
+        for (Field[] row : fields) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = new Field(FieldStateEnum.FREE);
+            }
+        }
+        fields[1][1].setState(FieldStateEnum.WALL);
+        FieldMap map = new FieldMap(fields);
+        IncrementalPathfinder<Field> planner = new IncrementalPathfinder<>(map, new Point(2, 2), false, false);
+        Assertions.assertEquals(4, planner.findPath(new Point(0, 0)).size() - 1, "Around the wall");
+        Assertions.assertEquals(2, planner.findPath(new Point(1, 1)).size() - 1, "Leaves the wall");
+        map.getSpecificField(new Point(2, 1)).setState(FieldStateEnum.WALL);
+        map.getSpecificField(new Point(1, 2)).setState(FieldStateEnum.WALL);
+        Assertions.assertEquals(Path.INVALID_PATH, planner.findPath(new Point(0, 0)), "Walled in");
+        Assertions.assertNotEquals(Path.INVALID_PATH,
+                new IncrementalPathfinder<>(map, new Point(2, 2), false, true).findPath(new Point(0, 0)), "Flying");
+        map.getSpecificField(new Point(1, 2)).setState(FieldStateEnum.FREE);
+        Assertions.assertEquals(4, planner.findPath(new Point(0, 0)).size() - 1, "Open again");
+        Assertions.assertEquals(Path.of(new Point(2, 2)), planner.findPath(new Point(2, 2)), "Already there");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> planner.findPath(new Point(3, 0)),
+                "Not on the field");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new IncrementalPathfinder<>(map, new Point(-1, 0), true, false), "Goal not on the field");
+    }
+
+}
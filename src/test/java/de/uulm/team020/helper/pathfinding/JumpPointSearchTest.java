@@ -0,0 +1,164 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.uulm.team020.datatypes.Scenario;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+import de.uulm.team020.validation.GameDataGson;
+
+/**
+ * Tests the jump point search against breadth-first distances and A*.
+ */
+public class JumpPointSearchTest extends AbstractPathfindingTest {
+
+    private static void assertValid(FieldStateEnum[][] field, Path path, Point start, Point end, boolean flying) {
+        Assertions.assertEquals(start, path.getStart(), "Start of: " + path);
+        Assertions.assertEquals(end, path.getEnd(), "End of: " + path);
+        WayPoint last = null;
+        for (WayPoint current : path) {
+            if (last != null) {
+                Assertions.assertEquals(1, Math.max(Math.abs(last.getX() - current.getX()),
+                        Math.abs(last.getY() - current.getY())), "Single steps only: " + path);
+                Assertions.assertTrue(flying || !field[current.getY()][current.getX()].blocksWay(),
+                        "Walkable: " + path);
+            }
+            last = current;
+        }
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[JumpPointSearch] Paths are valid and as short as the breadth-first distance.")
+    @ValueSource(ints = { 0, 10, 100, 300 })
+    void test_optimalOnRandomFields(int obstaclesPerMille) {
+        Random random = new Random(obstaclesPerMille);
+        for (int i = 0; i < 60; i++) {
+            FieldStateEnum[][] field = randomField(random, 1 + random.nextInt(30), 1 + random.nextInt(30),
+                    obstaclesPerMille);
+            boolean flying = random.nextInt(4) == 0;
+            Pathfinder<FieldStateEnum> find = new Pathfinder<>(field, 30, 30, 0, true, flying,
+                    PathfinderMode.JUMP_POINT);
+            for (int k = 0; k < 10; k++) {
+                int sy = random.nextInt(field.length);
+                Point start = new Point(random.nextInt(field[sy].length), sy);
+                int ey = random.nextInt(field.length);
+                Point end = new Point(random.nextInt(field[ey].length), ey);
+                // the pathfinder checks them even if flying
+                if (field[sy][start.getX()].blocksWay() || field[ey][end.getX()].blocksWay()) {
+                    continue;
+                }
+                int distance = DistanceField.compute(field, start, true, flying, DistanceField.NO_BUDGET)
+                        .getDistance(end);
+                Path path = find.findPath(start, end, true);
+                if (distance == DistanceField.UNREACHABLE) {
+                    Assertions.assertEquals(Path.INVALID_PATH, path, "No path from " + start + " to " + end);
+                } else {
+                    Assertions.assertEquals(distance, path.size() - 1, "Length from " + start + " to " + end);
+                    assertValid(field, path, start, end, flying);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[JumpPointSearch] Never longer than A* on the scenarios.")
+    @ValueSource(strings = { "circles", "hugeWorld", "thepits", "edge" })
+    void test_scenarios(String name) throws IOException {
+        Scenario scenario = GameDataGson.fromJson(
+                GameDataGson.loadInternalJson("json/files/scenario/" + name + ".scenario"), Scenario.class);
+        FieldStateEnum[][] field = scenario.getField();
+        Pathfinder<FieldStateEnum> aStar = new Pathfinder<>(scenario, 0, true, false);
+        Pathfinder<FieldStateEnum> jumping = new Pathfinder<>(scenario, 0, true, false, PathfinderMode.JUMP_POINT);
+        Assertions.assertEquals(PathfinderMode.JUMP_POINT, jumping.getMode(), "Mode");
+        Random random = new Random(name.hashCode());
+        for (int i = 0; i < 200; i++) {
+            int sy = random.nextInt(field.length);
+            int ey = random.nextInt(field.length);
+            if (field[sy].length == 0 || field[ey].length == 0) {
+                continue;
+            }
+            Point start = new Point(random.nextInt(field[sy].length), sy);
+            Point end = new Point(random.nextInt(field[ey].length), ey);
+            Path expected = aStar.findPath(start, end);
+            Path path = jumping.findPath(start, end);
+            if (Path.INVALID_PATH.equals(expected)) {
+                continue; // the right border may only be reachable for the jump point search
+            }
+            Assertions.assertNotEquals(Path.INVALID_PATH, path, "Reachable from " + start + " to " + end);
+            Assertions.assertTrue(path.size() <= expected.size(),
+                    "Not longer from " + start + " to " + end + ": " + path + " vs. " + expected);
+            Assertions.assertEquals(start, path.getStart(), "Start");
+            Assertions.assertEquals(end, path.getEnd(), "End");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[JumpPointSearch] Expands an order of magnitude less cells on open maps.")
+    void test_expansions() {
+        Random random = new Random(42);
+        // an open floor with some tables
+        FieldStateEnum[][] field = new FieldStateEnum[64][64];
+        for (FieldStateEnum[] row : field) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt(200) == 0 ? FieldStateEnum.ROULETTE_TABLE : FieldStateEnum.FREE;
+            }
+        }
+        SearchWorkspace workspace = new SearchWorkspace(64 * 64);
+        GridSearch<FieldStateEnum> aStar = new GridSearch<>(field, true, false);
+        JumpPointSearch<FieldStateEnum> jumping = new JumpPointSearch<>(field, false);
+        long aStarExpansions = 0;
+        long jumpingExpansions = 0;
+        for (int i = 0; i < 100; i++) {
+            int sx = random.nextInt(field[0].length);
+            int sy = random.nextInt(field.length);
+            int ex = random.nextInt(field[0].length);
+            int ey = random.nextInt(field.length);
+            if (field[sy][sx].blocksWay() || field[ey][ex].blocksWay()) {
+                continue;
+            }
+            aStar.search(workspace, sx, sy, ex, ey, true);
+            aStarExpansions += workspace.getExpansions();
+            jumping.search(workspace, sx, sy, ex, ey, true);
+            jumpingExpansions += workspace.getExpansions();
+        }
+        Assertions.assertTrue(jumpingExpansions * 10 <= aStarExpansions,
+                "Expanded " + jumpingExpansions + " vs. " + aStarExpansions);
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[JumpPointSearch] Blocked ends and walking straight only.")
+    void test_blockedEndAndStraight() {
+        FieldStateEnum[][] field = PathfinderTest.TRAINING_BOARD;
+        Pathfinder<FieldStateEnum> jumping = new Pathfinder<>(field, 8, 23, 0, true, false,
+                PathfinderMode.JUMP_POINT);
+        // the wall is the end
+        Path path = jumping.findPath(new Point(1, 3), new Point(0, 10), false);
+        Assertions.assertEquals(new Point(0, 10), path.getEnd(), "Reaches the wall: " + path);
+        Assertions.assertEquals(Path.INVALID_PATH, jumping.findPath(new Point(1, 3), new Point(0, 10), true),
+                "Not if checked");
+
+        Pathfinder<FieldStateEnum> straight = new Pathfinder<>(field, 8, 23, 0, false, false,
+                PathfinderMode.JUMP_POINT);
+        Assertions.assertEquals(new Pathfinder<>(field, false).findPath(new Point(1, 3), new Point(1, 16)),
+                straight.findPath(new Point(1, 3), new Point(1, 16)), "Falls back to A*");
+    }
+
+}
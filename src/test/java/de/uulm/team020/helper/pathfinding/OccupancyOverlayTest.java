@@ -0,0 +1,131 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.ImmutablePair;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the overlay of moving obstacles
+ */
+public class OccupancyOverlayTest extends AbstractPathfindingTest {
+
+    // the field with all occupied cells turned into walls
+    private static Field[][] withObstacles(Field[][] fields, OccupancyOverlay overlay) {
+        Field[][] copy = new Field[fields.length][];
+        for (int y = 0; y < fields.length; y++) {
+            copy[y] = new Field[fields[y].length];
+            for (int x = 0; x < fields[y].length; x++) {
+                copy[y][x] = new Field(overlay.isOccupied(x, y) ? FieldStateEnum.WALL : fields[y][x].getState());
+            }
+        }
+        return copy;
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[OccupancyOverlay] Occupying, releasing and moving cells.")
+    void test_overlay() {
+        OccupancyOverlay overlay = new OccupancyOverlay(70, 3);
+        Assertions.assertTrue(overlay.isEmpty(), "Empty");
+        Assertions.assertTrue(overlay.occupy(69, 2), "Occupied");
+        Assertions.assertFalse(overlay.occupy(new Point(69, 2)), "Already occupied");
+        Assertions.assertTrue(overlay.occupy(0, 1), "Occupied");
+        Assertions.assertEquals(2, overlay.getOccupiedCount(), "Count");
+        Assertions.assertTrue(overlay.isOccupied(new Point(69, 2)), "Last cell");
+        Assertions.assertFalse(overlay.isOccupied(68, 2), "Neighbour");
+        Assertions.assertFalse(overlay.isOccupied(70, 2), "Outside");
+
+        overlay.move(new Point(0, 1), new Point(1, 1));
+        Assertions.assertFalse(overlay.isOccupied(0, 1), "Left");
+        Assertions.assertTrue(overlay.isOccupied(1, 1), "Entered");
+        Assertions.assertEquals(2, overlay.getOccupiedCount(), "Count after move");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> overlay.move(new Point(1, 1), new Point(1, 3)),
+                "Outside");
+        Assertions.assertTrue(overlay.isOccupied(1, 1), "Failed move keeps the cell");
+        Assertions.assertTrue(overlay.release(1, 1), "Released");
+        Assertions.assertFalse(overlay.release(new Point(1, 1)), "Already free");
+        overlay.clear();
+        Assertions.assertTrue(overlay.isEmpty(), "Cleared");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> overlay.occupy(-1, 0), "Outside");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[OccupancyOverlay] Searches avoid occupied cells like walls.")
+    @EnumSource(PathfinderMode.class)
+    void test_searchesAvoidOccupied(PathfinderMode mode) {
+        Random random = new Random(14 + mode.ordinal());
+        // without obstacles the hierarchical search is not exact, with them the plain one is used
+        PathfinderMode expectedMode = mode == PathfinderMode.HIERARCHICAL ? PathfinderMode.A_STAR : mode;
+        for (int i = 0; i < 20; i++) {
+            Field[][] fields = toFields(
+                    randomField(random, 2 + random.nextInt(25), 2 + random.nextInt(25), 200, false));
+            FieldMap map = new FieldMap(fields);
+            boolean canWalkDiagonal = random.nextInt(3) != 0;
+            Pathfinder<Field> find = new Pathfinder<>(map, 32, canWalkDiagonal, false, mode);
+            OccupancyOverlay overlay = new OccupancyOverlay(map);
+            find.setOccupancy(overlay);
+            List<Point> agents = new ArrayList<>();
+            for (int a = 0; a < 6; a++) {
+                Point agent = new Point(random.nextInt(fields[0].length), random.nextInt(fields.length));
+                if (overlay.occupy(agent)) {
+                    agents.add(agent);
+                }
+            }
+            for (int k = 0; k < 40; k++) {
+                // every agent makes a move
+                for (int a = 0; a < agents.size(); a++) {
+                    Point next = new Point(random.nextInt(fields[0].length), random.nextInt(fields.length));
+                    if (!overlay.isOccupied(next)) {
+                        overlay.move(agents.get(a), next);
+                        agents.set(a, next);
+                    }
+                }
+                Point start = agents.get(random.nextInt(agents.size()));
+                Point end = new Point(random.nextInt(fields[0].length), random.nextInt(fields.length));
+                boolean checkStartEnd = random.nextBoolean();
+                Field[][] copy = withObstacles(fields, overlay);
+                // the agent itself may stand on its start
+                copy[start.getY()][start.getX()] = new Field(fields[start.getY()][start.getX()].getState());
+                Path expected = new Pathfinder<>(copy, 32, 32, 0, canWalkDiagonal, false, expectedMode)
+                        .findPath(start, end, checkStartEnd);
+                Path found = find.findPath(start, end, checkStartEnd);
+                String message = "From " + start + " to " + end + " checked: " + checkStartEnd + ", " + found;
+                Assertions.assertEquals(expected.size(), found.size(), message);
+                Assertions.assertEquals(expected.invalid(), found.invalid(), message);
+                Assertions.assertEquals(!expected.invalid(), find.connected(start, end, checkStartEnd), message);
+                List<Path> batch = find.findPaths(List.of(ImmutablePair.of(start, end)), checkStartEnd,
+                        ForkJoinPool.commonPool());
+                Assertions.assertEquals(expected.size(), batch.get(0).size(), "Batch: " + message);
+            }
+            // paths found while occupied were not cached
+            overlay.clear();
+            for (int k = 0; k < 20; k++) {
+                Point start = new Point(random.nextInt(fields[0].length), random.nextInt(fields.length));
+                Point end = new Point(random.nextInt(fields[0].length), random.nextInt(fields.length));
+                Path expected = new Pathfinder<>(fields, 32, 32, 0, canWalkDiagonal, false, mode).findPath(start,
+                        end);
+                Assertions.assertEquals(expected.size(), find.findPath(start, end).size(),
+                        "Free again, from " + start + " to " + end);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Tests the packed variant of the path
+ */
+public class PackedPathTest {
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[PackedPath] Packing keeps all points in order.")
+    void test_packing() {
+        Path path = Path.of(1, 1, 2, 2, 3, 2, 4, 3);
+        PackedPath packed = path.toPacked();
+        Assertions.assertEquals(4, packed.size(), "Size");
+        Assertions.assertEquals(3, packed.getX(2), "X");
+        Assertions.assertEquals(2, packed.getY(2), "Y");
+        Assertions.assertEquals(new Point(1, 1), packed.getStart(), "Start");
+        Assertions.assertEquals(new Point(4, 3), packed.getEnd(), "End");
+        Assertions.assertEquals(path, packed.toPath(), "Back to a path");
+        Assertions.assertEquals(PackedPath.of(1, 1, 2, 2, 3, 2, 4, 3), packed, "Equal coordinates");
+        Assertions.assertEquals(PackedPath.of(4, 3, 3, 2, 2, 2, 1, 1), packed.reversed(), "Reversed");
+        Assertions.assertEquals(packed, PackedPath.of(path.getEnd()), "From the end");
+
+        List<WayPoint> iterated = new ArrayList<>();
+        packed.forEach(iterated::add);
+        Assertions.assertArrayEquals(path.toArray(), iterated.toArray(), "Iterated views");
+        StringBuilder visited = new StringBuilder();
+        packed.forEachCell((x, y) -> visited.append(x).append(y));
+        Assertions.assertEquals("11223243", visited.toString(), "Visited cells");
+
+        Assertions.assertTrue(Path.INVALID_PATH.toPacked().invalid(), "Invalid");
+        Assertions.assertSame(Path.INVALID_PATH, PackedPath.INVALID_PATH.toPath(), "Invalid back");
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> packed.getX(4), "Out of bounds");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PackedPath.of(1, 2, 3), "Odd");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[PackedPath] Contains agrees with the linked path.")
+    void test_contains() {
+        Random random = new Random(12);
+        for (int length : new int[] { 0, 1, 5, 16, 17, 200 }) {
+            Path path = new Path();
+            for (int i = 0; i < length; i++) {
+                path.append(new WayPoint(random.nextInt(20), random.nextInt(20)));
+            }
+            PackedPath packed = path.toPacked();
+            for (int x = -1; x <= 20; x++) {
+                for (int y = -1; y <= 20; y++) {
+                    Point point = new Point(x, y);
+                    Assertions.assertEquals(path.contains(point), packed.contains(point),
+                            "Contains " + point + " with length " + length);
+                }
+            }
+            List<Point> all = new ArrayList<>(path);
+            Assertions.assertTrue(path.containsAll(all), "All points");
+            all.add(new Point(21, 21));
+            Assertions.assertFalse(path.containsAll(all), "Not contained");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[PackedPath] Long paths are searched and serialized flat.")
+    void test_longPaths() throws IOException, ClassNotFoundException {
+        Field[][] fields = new Field[3][200];
+        for (Field[] row : fields) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = new Field(FieldStateEnum.FREE);
+            }
+        }
+        Pathfinder<Field> find = new Pathfinder<>(fields, 200, 3, 0, false, false, PathfinderMode.A_STAR);
+        PackedPath packed = find.findPackedPath(new Point(0, 1), new Point(199, 1), true);
+        Assertions.assertEquals(find.findPath(new Point(0, 1), new Point(199, 1), true).toPacked(), packed,
+                "Same as linked");
+        Assertions.assertEquals(200, packed.size(), "Straight");
+        fields[0][5].setState(FieldStateEnum.WALL);
+        fields[1][5].setState(FieldStateEnum.WALL);
+        fields[2][5].setState(FieldStateEnum.WALL);
+        Assertions.assertTrue(new Pathfinder<>(fields, 200, 3, 0, false, false, PathfinderMode.A_STAR)
+                .findPackedPath(new Point(0, 1), new Point(199, 1), true).invalid(), "Blocked");
+
+        int[] coordinates = new int[100_000];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = i / 2;
+        }
+        PackedPath diagonal = PackedPath.of(coordinates);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(diagonal);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            PackedPath read = (PackedPath) in.readObject();
+            Assertions.assertEquals(diagonal, read, "Same after reading");
+            Assertions.assertTrue(read.contains(49_999, 49_999), "Index after reading");
+            Assertions.assertFalse(read.contains(49_999, 0), "Index after reading");
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+import de.uulm.team020.helper.pathfinding.Path.WayPoint;
+
+/**
+ * Tests the lru-cache of the pathfinder
+ */
+public class PathCacheTest {
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[PathCache] Keys have to differ for all components.")
+    void test_keys() {
+        long base = PathCache.key(1, 2, 3, 4, true, false);
+        Assertions.assertNotEquals(base, PathCache.key(2, 1, 3, 4, true, false), "Start swapped");
+        Assertions.assertNotEquals(base, PathCache.key(3, 4, 1, 2, true, false), "Start and end swapped");
+        Assertions.assertNotEquals(base, PathCache.key(1, 2, 3, 4, false, false), "Diagonal");
+        Assertions.assertNotEquals(base, PathCache.key(1, 2, 3, 4, true, true), "Flying");
+        Assertions.assertEquals(PathCache.NO_KEY, PathCache.key(1 << 15, 2, 3, 4, true, true), "Too big");
+        Assertions.assertEquals(PathCache.NO_KEY, PathCache.key(-1, 2, 3, 4, true, true), "Negative");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[PathCache] Least recently used is evicted first.")
+    void test_lru() {
+        PathCache cache = new PathCache(2);
+        WayPoint a = new WayPoint(1, 1);
+        WayPoint b = new WayPoint(2, 2);
+        WayPoint c = new WayPoint(3, 3);
+        cache.put(1, a);
+        cache.put(2, b);
+        Assertions.assertSame(a, cache.get(1), "a should be there");
+        cache.put(3, c); // evicts b
+        Assertions.assertNull(cache.get(2), "b should be evicted");
+        Assertions.assertSame(a, cache.get(1), "a should be there");
+        Assertions.assertSame(c, cache.get(3), "c should be there");
+        Assertions.assertEquals(2, cache.size(), "Full");
+        Assertions.assertEquals(3, cache.getHits(), "Hits");
+        Assertions.assertEquals(1, cache.getMisses(), "Misses");
+        Assertions.assertEquals(1, cache.getEvictions(), "Evictions");
+        Assertions.assertEquals(0.75, cache.getHitRate(), 1e-9, "Hit-rate");
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.size(), "Cleared");
+        Assertions.assertNull(cache.get(1), "Cleared");
+        cache.resetStatistics();
+        Assertions.assertEquals(0, cache.getHits() + cache.getMisses() + cache.getEvictions(), "Reset");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[PathCache] Behaves like a linked-hash-map in access-order.")
+    void test_againstReference() {
+        final int capacity = 7;
+        PathCache cache = new PathCache(capacity);
+        Map<Long, WayPoint> reference = new LinkedHashMap<Long, WayPoint>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, WayPoint> eldest) {
+                return size() > capacity;
+            }
+        };
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long key = PathCache.key(random.nextInt(5), random.nextInt(5), random.nextInt(3), 0, random.nextBoolean(),
+                    false);
+            if (random.nextBoolean()) {
+                WayPoint value = new WayPoint(i, i);
+                cache.put(key, value);
+                reference.put(key, value);
+            } else {
+                Assertions.assertSame(reference.get(key), cache.get(key), "Lookup " + i);
+            }
+            Assertions.assertEquals(reference.size(), cache.size(), "Size " + i);
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[PathCache] Pathfinder reports hits and may run without cache.")
+    void test_pathfinderStatistics() {
+        Pathfinder<FieldStateEnum> find = new Pathfinder<>(PathfinderTest.TRAINING_BOARD);
+        Path first = find.findPath(new Point(1, 3), new Point(1, 16));
+        Path second = find.findPath(new Point(1, 3), new Point(1, 16));
+        Assertions.assertEquals(first, second, "Same path");
+        Assertions.assertEquals(1, find.getCache().getHits(), "Second one is cached");
+        Assertions.assertEquals(1, find.getCache().getMisses(), "First one is not");
+
+        Pathfinder<FieldStateEnum> uncached = new Pathfinder<>(PathfinderTest.TRAINING_BOARD, 8, 23, 0);
+        Assertions.assertNull(uncached.getCache(), "Caching disabled");
+        Assertions.assertEquals(first, uncached.findPath(new Point(1, 3), new Point(1, 16)), "Same path");
+        Assertions.assertDoesNotThrow(uncached::invalidateCache, "Nothing to invalidate");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(5)
+    @DisplayName("[PathCache] Changes of the map only drop the affected paths.")
+    void test_invalidationOnMapChanges() {
+        Field[][] fields = new Field[PathfinderTest.TRAINING_BOARD.length][];
+        for (int y = 0; y < fields.length; y++) {
+            fields[y] = new Field[PathfinderTest.TRAINING_BOARD[y].length];
+            for (int x = 0; x < fields[y].length; x++) {
+                fields[y][x] = PathfinderTest.TRAINING_BOARD[y][x] == FieldStateEnum.SAFE ? new Field(1)
+                        : new Field(PathfinderTest.TRAINING_BOARD[y][x]);
+            }
+        }
+        FieldMap map = new FieldMap(fields);
+        Pathfinder<Field> find = new Pathfinder<>(map);
+        Path longPath = find.findPath(new Point(1, 3), new Point(1, 16));
+        Path shortPath = find.findPath(new Point(1, 1), new Point(1, 3));
+        Path flyPath = new Pathfinder<>(map, true, true).findPath(new Point(1, 1), new Point(1, 21));
+
+        // not changing the walkability
+        map.getSpecificField(new Point(1, 10)).setChipAmount(2);
+        find.findPath(new Point(1, 3), new Point(1, 16));
+        Assertions.assertEquals(1, find.getCache().getHits(), "Still cached");
+
+        // block the long path
+        map.getSpecificField(new Point(1, 10)).setState(FieldStateEnum.WALL);
+        Path changed = find.findPath(new Point(1, 3), new Point(1, 16));
+        Assertions.assertNotEquals(longPath, changed, "Has to walk around, but: " + changed);
+        Assertions.assertFalse(changed.contains(new Point(1, 10)), "Should not walk through the wall: " + changed);
+        Assertions.assertEquals(shortPath, find.findPath(new Point(1, 1), new Point(1, 3)), "Unaffected");
+        Assertions.assertEquals(2, find.getCache().getHits(), "Short one was not affected");
+        Assertions.assertEquals(1, find.getCache().getInvalidations(), "Long one was dropped");
+
+        // open a shortcut for the short path
+        map.setSpecificField(new Point(1, 2), new Field(FieldStateEnum.FREE));
+        map.getSpecificField(new Point(2, 2)).setState(FieldStateEnum.FREE);
+        Assertions.assertEquals(shortPath, find.findPath(new Point(1, 1), new Point(1, 3)), "Still the same");
+        Assertions.assertEquals(2, find.getCache().getHits(), "But was recalculated");
+
+        Assertions.assertEquals(flyPath, new Pathfinder<>(map, true, true).findPath(new Point(1, 1), new Point(1, 21)),
+                "Flying does not care");
+    }
+
+}
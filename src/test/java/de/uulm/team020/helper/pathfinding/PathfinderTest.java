@@ -8,6 +8,12 @@ import static de.uulm.team020.datatypes.enumerations.FieldStateEnum.FREE;
 import static de.uulm.team020.datatypes.enumerations.FieldStateEnum.SAFE;
 import static de.uulm.team020.datatypes.enumerations.FieldStateEnum.WALL;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
@@ -17,9 +23,14 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
 import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.DistanceMetric;
+import de.uulm.team020.datatypes.util.ImmutablePair;
 import de.uulm.team020.datatypes.util.Point;
 
 /**
@@ -275,4 +286,209 @@ public class PathfinderTest {
         Path path = find.findPath(start, end, false);
         Assertions.assertEquals(length, path.size(), "Should have expected, but: " + path);
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(7)
+    @DisplayName("[Find] Batches answer like single queries, in order.")
+    @EnumSource(PathfinderMode.class)
+    void test_findPathsInOrder(PathfinderMode mode) {
+        Random random = new Random(7);
+        List<ImmutablePair<Point, Point>> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int sy = random.nextInt(TRAINING_BOARD.length);
+            int ey = random.nextInt(TRAINING_BOARD.length);
+            queries.add(ImmutablePair.of(new Point(random.nextInt(TRAINING_BOARD[sy].length), sy),
+                    new Point(random.nextInt(TRAINING_BOARD[ey].length), ey)));
+        }
+        // off the field
+        queries.add(ImmutablePair.of(new Point(1, 1), new Point(100, 1)));
+        Pathfinder<FieldStateEnum> single = new Pathfinder<>(TRAINING_BOARD, 8, 23, 0, true, false, mode);
+        Pathfinder<FieldStateEnum> batch = new Pathfinder<>(TRAINING_BOARD, 8, 23, 64, true, false, mode);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (boolean checkStartEnd : new boolean[] { false, true }) {
+                List<Path> paths = batch.findPaths(queries, checkStartEnd, pool);
+                Assertions.assertEquals(queries.size(), paths.size(), "One path per query");
+                for (int i = 0; i < queries.size(); i++) {
+                    ImmutablePair<Point, Point> query = queries.get(i);
+                    Assertions.assertEquals(single.findPath(query.getKey(), query.getValue(), checkStartEnd),
+                            paths.get(i), "Query " + i + ": " + query);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertTrue(batch.getCache().getHits() > 0, "Repeated queries are cached");
+        Assertions.assertThrows(NullPointerException.class, () -> batch.findPaths(queries, false, null), "No pool");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(7)
+    @DisplayName("[Find] Batches search the field as it was when called.")
+    void test_findPathsUsesSnapshot() {
+        Field[][] fields = new Field[TRAINING_BOARD.length][];
+        for (int y = 0; y < fields.length; y++) {
+            fields[y] = new Field[TRAINING_BOARD[y].length];
+            for (int x = 0; x < fields[y].length; x++) {
+                fields[y][x] = TRAINING_BOARD[y][x] == FieldStateEnum.SAFE ? new Field(1)
+                        : new Field(TRAINING_BOARD[y][x]);
+            }
+        }
+        FieldMap map = new FieldMap(fields);
+        Pathfinder<Field> find = new Pathfinder<>(map);
+        List<ImmutablePair<Point, Point>> queries = List.of(ImmutablePair.of(new Point(1, 3), new Point(1, 16)),
+                ImmutablePair.of(new Point(1, 1), new Point(1, 3)));
+        List<Path> before = find.findPaths(queries);
+        Assertions.assertEquals(find.findPath(new Point(1, 3), new Point(1, 16)), before.get(0), "Same as single");
+
+        map.getSpecificField(new Point(1, 10)).setState(FieldStateEnum.WALL);
+        List<Path> after = find.findPaths(queries);
+        Assertions.assertFalse(after.get(0).contains(new Point(1, 10)), "Walks around the new wall: " + after);
+        Assertions.assertEquals(before.get(1), after.get(1), "Unaffected");
+        Assertions.assertTrue(find.findPaths(List.of()).isEmpty(), "Nothing to do");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(8)
+    @DisplayName("[Find] Nearest goal is found by a single search.")
+    @EnumSource(PathfinderMode.class)
+    void test_findNearest(PathfinderMode mode) {
+        Random random = new Random(8);
+        Pathfinder<FieldStateEnum> nearest = new Pathfinder<>(TRAINING_BOARD, 8, 23, 0, true, false, mode);
+        Pathfinder<FieldStateEnum> single = new Pathfinder<>(TRAINING_BOARD, 8, 23, 0, true, false,
+                PathfinderMode.A_STAR);
+        for (int i = 0; i < 100; i++) {
+            int sy = random.nextInt(TRAINING_BOARD.length);
+            Point start = new Point(random.nextInt(TRAINING_BOARD[sy].length), sy);
+            Set<Point> goals = new HashSet<>();
+            for (int g = 1 + random.nextInt(5); g > 0; g--) {
+                int gy = random.nextInt(TRAINING_BOARD.length);
+                goals.add(new Point(random.nextInt(TRAINING_BOARD[gy].length + 1), gy));
+            }
+            for (boolean checkStartEnd : new boolean[] { false, true }) {
+                int expected = -1;
+                for (Point goal : goals) {
+                    Path path = goal.isOnField(TRAINING_BOARD) ? single.findPath(start, goal, checkStartEnd)
+                            : Path.INVALID_PATH;
+                    if (!path.invalid() && (expected < 0 || path.size() < expected)) {
+                        expected = path.size();
+                    }
+                }
+                Path found = nearest.findNearest(start, goals, checkStartEnd);
+                String message = "From " + start + " to " + goals + ", checked: " + checkStartEnd;
+                if (expected < 0) {
+                    Assertions.assertEquals(Path.INVALID_PATH, found, message);
+                    continue;
+                }
+                Assertions.assertEquals(expected, found.size(), message + ": " + found);
+                Assertions.assertEquals(start, found.getStart(), message);
+                Assertions.assertTrue(goals.contains(found.getEnd()), message);
+                Assertions.assertEquals(expected,
+                        nearest.findNearest(start, goals::contains, checkStartEnd).size(), "Predicate: " + message);
+            }
+        }
+        Assertions.assertEquals(Path.INVALID_PATH, nearest.findNearest(new Point(1, 1), Set.of(), false), "No goals");
+        Assertions.assertEquals(Path.INVALID_PATH, nearest.findNearest(new Point(1, 1), p -> false, false),
+                "Nothing accepted");
+        Assertions.assertEquals(Path.of(1, 1), nearest.findNearest(new Point(1, 1), p -> true, false), "Already there");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(9)
+    @DisplayName("[Find] Heuristics never overestimating keep paths shortest, better ones expand less.")
+    @EnumSource(value = PathfinderMode.class, names = { "A_STAR", "JUMP_POINT" })
+    void test_heuristics(PathfinderMode mode) {
+        Random random = new Random(15);
+        FieldStateEnum[][] field = new FieldStateEnum[40][40];
+        for (FieldStateEnum[] row : field) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt(5) == 0 ? WALL : FREE;
+            }
+        }
+        for (boolean canWalkDiagonal : new boolean[] { true, false }) {
+            Pathfinder<FieldStateEnum> estimating = new Pathfinder<>(field, 40, 40, 0, canWalkDiagonal, false, mode);
+            Pathfinder<FieldStateEnum> dijkstra = new Pathfinder<>(field, 40, 40, 0, canWalkDiagonal, false, mode);
+            dijkstra.setHeuristic(DistanceMetric.ZERO);
+            // works on points, not coordinates
+            Pathfinder<FieldStateEnum> custom = new Pathfinder<>(field, 40, 40, 0, canWalkDiagonal, false, mode);
+            custom.setHeuristic(canWalkDiagonal ? Point::kingMetric : (a, b) -> Math.abs(a.getX() - b.getX()));
+            long estimatingExpansions = 0;
+            long dijkstraExpansions = 0;
+            for (int i = 0; i < 100; i++) {
+                Point start = new Point(random.nextInt(40), random.nextInt(40));
+                Point end = new Point(random.nextInt(40), random.nextInt(40));
+                Path path = estimating.findPath(start, end, true);
+                estimatingExpansions += estimating.getExpansions();
+                Assertions.assertEquals(path.size(), dijkstra.findPath(start, end, true).size(),
+                        "Dijkstra from " + start + " to " + end);
+                dijkstraExpansions += dijkstra.getExpansions();
+                Assertions.assertEquals(path.size(), custom.findPath(start, end, true).size(),
+                        "Custom from " + start + " to " + end);
+            }
+            Assertions.assertTrue(estimatingExpansions * 2 < dijkstraExpansions,
+                    "Expanded " + estimatingExpansions + " vs. " + dijkstraExpansions);
+        }
+        Assertions.assertNull(new Pathfinder<>(field).getHeuristic(), "Default");
+        Assertions.assertEquals(3, DistanceMetric.KING.getDistance(new Point(1, 1), new Point(4, 3)), "King");
+        Assertions.assertEquals(5, DistanceMetric.MANHATTAN.getDistance(1, 1, 4, 3), "Manhattan");
+        Assertions.assertEquals(0, DistanceMetric.ZERO.getDistance(1, 1, 4, 3), "Zero");
+    }
+
+    @ParameterizedTest
+    @Tag("Util")
+    @Order(10)
+    @DisplayName("[Find] Budgeted searches stop early with a partial path.")
+    @EnumSource(PathfinderMode.class)
+    void test_budgetedSearch(PathfinderMode mode) {
+        // a long corridor winding through walls
+        FieldStateEnum[][] field = new FieldStateEnum[41][41];
+        for (int y = 0; y < field.length; y++) {
+            for (int x = 0; x < field[y].length; x++) {
+                field[y][x] = y % 4 == 1 && x != (y % 8 == 1 ? 40 : 0) ? WALL : FREE;
+            }
+        }
+        Pathfinder<FieldStateEnum> find = new Pathfinder<>(field, 41, 41, 16, true, false, mode);
+        Point start = new Point(0, 0);
+        Point end = new Point(0, 40);
+        Path optimal = new Pathfinder<>(field, 41, 41, 0, true, false, mode).findPath(start, end);
+
+        SearchResult limited = find.findPath(start, end, true, SearchBudget.ofExpansions(10));
+        Assertions.assertEquals(SearchResult.Status.EXHAUSTED, limited.getStatus(), "Exhausted: " + limited);
+        Assertions.assertFalse(limited.isComplete(), "Not complete");
+        Assertions.assertEquals(10, limited.getExpansions(), "Stopped at the limit");
+        Path partial = limited.getPath();
+        Assertions.assertEquals(start, partial.getStart(), "Starts at the start");
+        Assertions.assertTrue(Point.getKingDistance(partial.getEnd(), end) <= Point.getKingDistance(start, end),
+                "Not farther away: " + partial);
+        Path.WayPoint last = null;
+        for (Path.WayPoint current : partial) {
+            Assertions.assertFalse(field[current.getY()][current.getX()].blocksWay(), "Walkable: " + partial);
+            if (last != null) {
+                Assertions.assertTrue(Point.isNeighbour(last, current), "Single steps: " + partial);
+            }
+            last = current;
+        }
+
+        SearchResult unlimited = find.findPath(start, end, true, SearchBudget.UNLIMITED);
+        Assertions.assertEquals(SearchResult.Status.FOUND, unlimited.getStatus(), "Found");
+        Assertions.assertEquals(optimal.size(), unlimited.getPath().size(), "Same as without budget");
+        SearchResult cached = find.findPath(start, end, true, SearchBudget.ofExpansions(0));
+        Assertions.assertEquals(SearchResult.Status.FOUND, cached.getStatus(), "Cached paths need no budget");
+        Assertions.assertEquals(0, cached.getExpansions(), "Not searched");
+
+        SearchResult late = find.findPath(new Point(40, 0), end, true, SearchBudget.ofDeadline(System.nanoTime()));
+        Assertions.assertEquals(SearchResult.Status.EXHAUSTED, late.getStatus(), "Deadline passed");
+        Assertions.assertEquals(1, late.getExpansions(), "Checked with the first expansion");
+        Assertions.assertEquals(SearchResult.Status.FOUND,
+                find.findPath(new Point(40, 0), end, true, SearchBudget.ofTimeout(60_000_000_000L).withExpansions(
+                        100_000)).getStatus(),
+                "Enough time");
+        Assertions.assertEquals(SearchResult.Status.NO_PATH,
+                find.findPath(start, new Point(1, 1), true, SearchBudget.ofExpansions(10)).getStatus(), "Wall");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SearchBudget.ofExpansions(-1), "Negative");
+    }
+}
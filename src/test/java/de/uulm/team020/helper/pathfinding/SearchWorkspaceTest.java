@@ -0,0 +1,61 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the reuse of the search-state
+ */
+public class SearchWorkspaceTest {
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[SearchWorkspace] Preparing forgets all cells of the last search.")
+    void test_prepareResets() {
+        SearchWorkspace workspace = new SearchWorkspace(4);
+        workspace.prepare(2, 2);
+        workspace.reach(1, 3, 0);
+        workspace.close(1);
+        Assertions.assertEquals(3, workspace.getCost(1), "Cost should be set");
+        Assertions.assertTrue(workspace.isClosed(1), "Should be closed");
+        Assertions.assertEquals(Integer.MAX_VALUE, workspace.getCost(2), "Not reached");
+
+        workspace.prepare(2, 2);
+        Assertions.assertEquals(Integer.MAX_VALUE, workspace.getCost(1), "Should be forgotten");
+        Assertions.assertFalse(workspace.isClosed(1), "Should be open again");
+
+        // grow
+        workspace.prepare(5, 5);
+        workspace.reach(24, 1, 23);
+        Assertions.assertEquals(1, workspace.getCost(24), "Should have grown");
+        Assertions.assertEquals(23, workspace.getParent(24), "Parent should be set");
+        Assertions.assertEquals(5, workspace.getWidth(), "Width of the search");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[SearchWorkspace] Reused workspaces produce the same paths as new ones.")
+    void test_reuseProducesSamePaths() {
+        FieldStateEnum[][] board = PathfinderTest.TRAINING_BOARD;
+        // no cache to get the workspace involved every time
+        Pathfinder<FieldStateEnum> reused = new Pathfinder<>(board, 8, 23, 1, true, false);
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Point start = new Point(random.nextInt(8), random.nextInt(23));
+            Point end = new Point(random.nextInt(8), random.nextInt(23));
+            Path fresh = new Pathfinder<>(board, 8, 23, 1, true, false).findPath(start, end);
+            Assertions.assertEquals(fresh, reused.findPath(start, end), "Same path for " + start + " -> " + end);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package de.uulm.team020.helper.pathfinding;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import de.uulm.team020.datatypes.Field;
+import de.uulm.team020.datatypes.FieldMap;
+import de.uulm.team020.datatypes.enumerations.FieldStateEnum;
+import de.uulm.team020.datatypes.util.Point;
+
+/**
+ * Tests the precomputed line of sight
+ */
+public class VisibilityIndexTest {
+
+    private static FieldMap randomMap(Random random, int width, int height) {
+        Field[][] fields = new Field[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                fields[y][x] = new Field(random.nextInt(10) == 0 ? FieldStateEnum.WALL : FieldStateEnum.FREE);
+                fields[y][x].setFoggy(random.nextInt(12) == 0);
+            }
+        }
+        return new FieldMap(fields);
+    }
+
+    private static void assertMatchesLines(FieldMap map, VisibilityIndex index, String message) {
+        Field[][] fields = map.getField();
+        for (int sy = 0; sy < fields.length; sy++) {
+            for (int sx = 0; sx < fields[sy].length; sx++) {
+                for (int ey = 0; ey < fields.length; ey++) {
+                    for (int ex = 0; ex < fields[ey].length; ex++) {
+                        Point start = new Point(sx, sy);
+                        Point end = new Point(ex, ey);
+                        Assertions.assertEquals(Point.getLine(start, end).isLineOfSight(map),
+                                index.isLineOfSight(start, end), message + ": from " + start + " to " + end);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(1)
+    @DisplayName("[VisibilityIndex] Matches the lines drawn, computed on demand and in parallel.")
+    void test_matchesLines() {
+        Random random = new Random(17);
+        for (int i = 0; i < 6; i++) {
+            FieldMap map = randomMap(random, 1 + random.nextInt(14), 1 + random.nextInt(14));
+            VisibilityIndex index = VisibilityIndex.of(map);
+            Assertions.assertEquals(0, index.getComputedCount(), "Nothing computed yet");
+            Assertions.assertTrue(index.isLineOfSight(new Point(0, 0), new Point(0, 0)), "Self");
+            Assertions.assertEquals(1, index.getComputedCount(), "Only the source queried");
+            assertMatchesLines(map, index, "On demand");
+            assertMatchesLines(map, VisibilityIndex.of(map).precompute(), "Parallel");
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(2)
+    @DisplayName("[VisibilityIndex] Follows fog and replaced cells.")
+    void test_followsChanges() {
+        Random random = new Random(42);
+        for (int i = 0; i < 4; i++) {
+            FieldMap map = randomMap(random, 4 + random.nextInt(10), 4 + random.nextInt(10));
+            VisibilityIndex index = VisibilityIndex.of(map).precompute();
+            Field[][] fields = map.getField();
+            for (int k = 0; k < 8; k++) {
+                int x = random.nextInt(fields[0].length);
+                int y = random.nextInt(fields.length);
+                if (random.nextBoolean()) {
+                    fields[y][x].setFoggy(!fields[y][x].isFoggy());
+                } else {
+                    map.setSpecificField(new Point(x, y),
+                            new Field(fields[y][x].blocksLOS() ? FieldStateEnum.FREE : FieldStateEnum.WALL));
+                }
+                assertMatchesLines(map, index, "After changing " + x + "/" + y);
+            }
+        }
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(3)
+    @DisplayName("[VisibilityIndex] Lines leaving the map are blocked.")
+    void test_outside() {
+        FieldMap map = randomMap(new Random(3), 5, 5);
+        VisibilityIndex index = VisibilityIndex.of(map);
+        Assertions.assertFalse(index.isLineOfSight(new Point(0, 0), new Point(-3, 0)), "Leaves the map");
+        Assertions.assertTrue(index.isLineOfSight(new Point(0, 0), new Point(-1, 0)), "Only the end is outside");
+    }
+
+    @Test
+    @Tag("Util")
+    @Order(4)
+    @DisplayName("[VisibilityIndex] Prepared sources learn the changes and compute once.")
+    void test_prepare() {
+        FieldMap map = randomMap(new Random(5), 6, 6);
+        VisibilityIndex index = VisibilityIndex.of(map);
+        Assertions.assertSame(index, index.prepare(new Point(2, 3)), "Same index");
+        Assertions.assertEquals(1, index.getComputedCount(), "Source computed");
+        index.prepare(new Point(-1, 2));
+        Assertions.assertEquals(1, index.getComputedCount(), "Nothing to compute off the map");
+
+        map.getSpecificField(new Point(2, 2)).setFoggy(!map.getSpecificField(new Point(2, 2)).isFoggy());
+        index.prepare(new Point(2, 3));
+        Assertions.assertEquals(1, index.getComputedCount(), "Still one source");
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 6; x++) {
+                Point end = new Point(x, y);
+                Assertions.assertEquals(Point.getLine(new Point(2, 3), end).isLineOfSight(map),
+                        index.isLineOfSight(new Point(2, 3), end), "To " + end);
+            }
+        }
+        Assertions.assertEquals(1, index.getComputedCount(), "Queries only read");
+    }
+
+}